@@ -1,5 +1,6 @@
 package builder.resid;
 
+import java.util.Arrays;
 import java.util.function.IntConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -7,6 +8,7 @@ import java.util.logging.Logger;
 import libsidplay.common.ChipModel;
 import libsidplay.common.Event;
 import libsidplay.common.EventScheduler;
+import libsidplay.common.NoMachineState;
 import libsidplay.common.SIDChip;
 import libsidplay.common.SIDEmu;
 
@@ -21,6 +23,7 @@ public abstract class ReSIDBase extends SIDEmu {
 	/**
 	 * Consumes samples of the SID while clocking.
 	 */
+	@NoMachineState
 	private IntConsumer sampler;
 
 	/**
@@ -28,6 +31,28 @@ public abstract class ReSIDBase extends SIDEmu {
 	 */
 	protected long lastTime;
 
+	/**
+	 * Record register writes instead of clocking the chip to the moment of each
+	 * write (parallel clocking of the SIDMixer).
+	 */
+	private boolean deferWrites;
+
+	/**
+	 * Recorded register writes, each entry consists of clocks since the last
+	 * access, register address and value.
+	 */
+	private int[] writeLog = new int[3 * 64];
+
+	/**
+	 * Used size of the recorded register writes.
+	 */
+	private int writeLogSize;
+
+	/**
+	 * Clocks to the present moment, determined in advance by the player thread.
+	 */
+	private int clocksToPresent;
+
 	/**
 	 * Constructor
 	 *
@@ -46,8 +71,20 @@ public abstract class ReSIDBase extends SIDEmu {
 		return sampler;
 	}
 
+	/**
+	 * Record register writes instead of clocking the chip to the moment of each
+	 * write. Recorded writes are replayed the next time the chip gets clocked.
+	 *
+	 * @param deferWrites record register writes
+	 */
+	void setDeferWrites(boolean deferWrites) {
+		replayWriteLog();
+		this.deferWrites = deferWrites;
+	}
+
 	@Override
 	public void reset(final byte volume) {
+		replayWriteLog();
 		clocksSinceLastAccess();
 		sid.reset();
 		sid.write(0x18, volume);
@@ -55,15 +92,25 @@ public abstract class ReSIDBase extends SIDEmu {
 
 	@Override
 	public byte read(int addr) {
+		// reads of OSC3/ENV3 must see the present moment
 		clock();
 		return sid.read(addr);
 	}
 
 	@Override
 	public void write(int addr, final byte data) {
-		clock();
+		if (deferWrites) {
+			if (writeLogSize == writeLog.length) {
+				writeLog = Arrays.copyOf(writeLog, writeLog.length << 1);
+			}
+			writeLog[writeLogSize++] = clocksSinceLastAccess();
+			writeLog[writeLogSize++] = addr;
+			writeLog[writeLogSize++] = data;
+		} else {
+			clock();
+			sid.write(addr, data);
+		}
 		super.write(addr, data);
-		sid.write(addr, data);
 		if (RESID.isLoggable(Level.FINE)) {
 			RESID.fine(String.format("write 0x%02x=0x%02x", addr, data));
 		}
@@ -71,12 +118,43 @@ public abstract class ReSIDBase extends SIDEmu {
 
 	@Override
 	public void clock() {
-		int cycles = clocksSinceLastAccess();
-		sid.clock(cycles, sampler);
+		prepareClock();
+		clockPrepared();
+	}
+
+	/**
+	 * Determine the clocks to the present moment. Must be called by the player
+	 * thread before {@link #clockPrepared()}.
+	 */
+	void prepareClock() {
+		clocksToPresent = clocksSinceLastAccess();
+	}
+
+	/**
+	 * Replay recorded register writes and clock the chip to the moment
+	 * {@link #prepareClock()} has been called. Can be called by a worker thread,
+	 * while the player thread waits for completion.
+	 */
+	void clockPrepared() {
+		replayWriteLog();
+		sid.clock(clocksToPresent, sampler);
+	}
+
+	/**
+	 * Clock the chip to the moment of each recorded register write and write the
+	 * register.
+	 */
+	private void replayWriteLog() {
+		for (int i = 0; i < writeLogSize; i += 3) {
+			sid.clock(writeLog[i], sampler);
+			sid.write(writeLog[i + 1], (byte) writeLog[i + 2]);
+		}
+		writeLogSize = 0;
 	}
 
 	@Override
 	public void setVoiceMute(final int num, final boolean mute) {
+		replayWriteLog();
 		sid.mute(num, mute);
 	}
 
@@ -87,6 +165,7 @@ public abstract class ReSIDBase extends SIDEmu {
 	 */
 	@Override
 	public void setClockFrequency(final double systemClock) {
+		replayWriteLog();
 		sid.setClockFrequency(systemClock);
 	}
 
@@ -97,16 +176,19 @@ public abstract class ReSIDBase extends SIDEmu {
 	 */
 	@Override
 	public void setChipModel(final ChipModel model) {
+		replayWriteLog();
 		sid.setChipModel(model);
 	}
 
 	@Override
 	public void input(int input) {
+		replayWriteLog();
 		sid.input(input);
 	}
 
 	@Override
 	public void setDigiBoost(boolean digiBoost) {
+		replayWriteLog();
 		sid.setDigiBoost(digiBoost);
 	}
 
@@ -2,13 +2,17 @@ package builder.resid;
 
 import static java.nio.ByteOrder.nativeOrder;
 import static libsidplay.components.pla.PLA.MAX_SIDS;
+import static libsidplay.config.IAudioSystemProperties.SID_MIXER_PARALLEL;
+import static libsidplay.config.IAudioSystemProperties.SID_MIXER_THREADS;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 import builder.resid.SampleMixer.LinearFadingSampleMixer;
 import builder.resid.resample.Resampler;
@@ -16,6 +20,7 @@ import libsidplay.common.CPUClock;
 import libsidplay.common.Event;
 import libsidplay.common.EventScheduler;
 import libsidplay.common.Mixer;
+import libsidplay.common.NoMachineState;
 import libsidplay.common.SamplingMethod;
 import libsidplay.config.IAudioSection;
 import libsidplay.config.IConfig;
@@ -39,6 +44,36 @@ public class SIDMixer implements Mixer {
 	 */
 	private static final int VOLUME_SCALER = 10;
 
+	/**
+	 * Worker threads to clock SIDs in parallel (created on first use).
+	 */
+	private static final class ClockExecutor {
+		private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(SID_MIXER_THREADS, runnable -> {
+			Thread thread = new Thread(runnable, "SIDMixer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Clock a SID to the present moment using a worker thread.
+	 */
+	private final class ClockTask implements Runnable {
+		private ReSIDBase sid;
+
+		@Override
+		public void run() {
+			try {
+				sid.clockPrepared();
+				((SampleMixer) sid.getSampler()).clear();
+			} catch (Throwable e) {
+				clockError = e;
+			} finally {
+				clocked.release();
+			}
+		}
+	}
+
 	/**
 	 * The mixer mixes the generated sound samples into the drivers audio buffer.
 	 *
@@ -51,9 +86,11 @@ public class SIDMixer implements Mixer {
 		}
 
 		/**
-		 * Random source for triangular dithering
+		 * Random source for triangular dithering (fixed seed, rendering a tune twice
+		 * produces identical output). The linear congruential generator of
+		 * java.util.Random, its seed is part of the machine state.
 		 */
-		private final Random RANDOM = new Random();
+		private long randomSeed = 0x5DEECE66DL;
 		/**
 		 * State of HP-TPDF.
 		 */
@@ -78,38 +115,55 @@ public class SIDMixer implements Mixer {
 		 * <LI>do some audio post-processing
 		 * </OL>
 		 * <B>Note:</B><BR>
-		 * Audio buffer is cleared afterwards to get refilled during next event.
+		 * Audio buffer is cleared while it is read to get refilled during next event.
+		 * This method is called very often, therefore it must not allocate memory.
 		 */
 		@Override
 		public void event() throws InterruptedException {
 			// Clock SIDs to fill the audio buffer
-			for (ReSIDBase sid : sids) {
-				SampleMixer sampler = (SampleMixer) sid.getSampler();
-				// clock SID to the present moment
-				sid.clock();
-				sampler.clear();
+			if (parallel && sids.size() > 1) {
+				clockParallel();
+			} else {
+				for (int sidNum = 0; sidNum < sids.size(); sidNum++) {
+					ReSIDBase sid = sids.get(sidNum);
+					SampleMixer sampler = (SampleMixer) sid.getSampler();
+					// clock SID to the present moment
+					sid.clock();
+					sampler.clear();
+				}
 			}
 			// Read from audio buffers
 			int valL = 0, valR = 0;
 			for (int i = 0; i < bufferSize; i++) {
-				// Accumulate sample data with respect to fast forward factor
-				valL += audioBufferL.get();
-				valR += audioBufferR.get();
+				// Accumulate sample data with respect to fast forward factor and erase
+				valL += audioBufferL.get(i);
+				valR += audioBufferR.get(i);
+				audioBufferL.put(i, 0);
+				audioBufferR.put(i, 0);
 
 				// once enough samples have been accumulated, write output
 				if ((i & fastForwardBitMask) == fastForwardBitMask) {
 					int dither = triangularDithering();
 
-					if (resamplerL.input(valL >> fastForwardShift)) {
+					if (silent) {
+						// keep the resampler state up to date, but skip the output
+						int levelL = valL >> fastForwardShift, levelR = valR >> fastForwardShift;
+						levelMin = Math.min(levelMin, Math.min(levelL, levelR));
+						levelMax = Math.max(levelMax, Math.max(levelL, levelR));
+						resamplerL.skip(levelL);
+						resamplerR.skip(levelR);
+					} else if (resamplerL.input(valL >> fastForwardShift)) {
 						short outputL = (short) Math.max(Math.min(resamplerL.output() + dither, Short.MAX_VALUE),
 								Short.MIN_VALUE);
 						buffer.putShort(outputL);
 					}
-					if (resamplerR.input(valR >> fastForwardShift)) {
+					if (!silent && resamplerR.input(valR >> fastForwardShift)) {
 						short outputR = (short) Math.max(Math.min(resamplerR.output() + dither, Short.MAX_VALUE),
 								Short.MIN_VALUE);
 						if (!buffer.putShort(outputR).hasRemaining()) {
-							audioProcessors.stream().forEach(processor -> processor.process(buffer));
+							for (int processorNum = 0; processorNum < audioProcessors.size(); processorNum++) {
+								audioProcessors.get(processorNum).process(buffer);
+							}
 							audioDriver.write();
 							((Buffer) buffer).clear();
 						}
@@ -121,12 +175,53 @@ public class SIDMixer implements Mixer {
 					valL = valR = 0;
 				}
 			}
-			// Erase audio buffers
-			((Buffer) audioBufferL).flip();
-			((Buffer) audioBufferR).flip();
-			((Buffer) audioBufferL.put(new int[bufferSize])).clear();
-			((Buffer) audioBufferR.put(new int[bufferSize])).clear();
 			context.schedule(this, bufferSize);
+			mixerListener.run();
+		}
+
+		/**
+		 * Clock the first SID in the player thread and the others using worker
+		 * threads. Each SID fills its own audio buffers, that are added to the audio
+		 * buffer afterwards. Integer addition is associative, therefore the result is
+		 * bit-identical to sequential clocking.
+		 *
+		 */
+		private void clockParallel() {
+			for (int sidNum = 0; sidNum < sids.size(); sidNum++) {
+				sids.get(sidNum).prepareClock();
+			}
+			int submitted = 0;
+			try {
+				for (int sidNum = 1; sidNum < sids.size(); sidNum++) {
+					clockTasks[sidNum].sid = sids.get(sidNum);
+					ClockExecutor.EXECUTOR.execute(clockTasks[sidNum]);
+					submitted++;
+				}
+				ReSIDBase sid = sids.get(0);
+				sid.clockPrepared();
+				((SampleMixer) sid.getSampler()).clear();
+			} finally {
+				// clock tasks take a buffer's time at most, they must never outlive this
+				// event (an interrupt would leave their permits for the next event)
+				clocked.acquireUninterruptibly(submitted);
+			}
+			final Throwable error = clockError;
+			if (error != null) {
+				clockError = null;
+				throw new RuntimeException("Parallel SID clocking failed", error);
+			}
+			for (int sidNum = 1; sidNum < MAX_SIDS; sidNum++) {
+				IntBuffer sidBufferL = sidBuffersL[sidNum];
+				IntBuffer sidBufferR = sidBuffersR[sidNum];
+				if (sidBufferL != null) {
+					for (int i = 0; i < bufferSize; i++) {
+						audioBufferL.put(i, audioBufferL.get(i) + sidBufferL.get(i));
+						audioBufferR.put(i, audioBufferR.get(i) + sidBufferR.get(i));
+						sidBufferL.put(i, 0);
+						sidBufferR.put(i, 0);
+					}
+				}
+			}
 		}
 
 		/**
@@ -137,7 +232,8 @@ public class SIDMixer implements Mixer {
 		 */
 		private int triangularDithering() {
 			int prevValue = oldRandomValue;
-			oldRandomValue = RANDOM.nextInt() & 0x1;
+			randomSeed = randomSeed * 0x5DEECE66DL + 0xBL & (1L << 48) - 1;
+			oldRandomValue = (int) (randomSeed >>> 16) & 0x1;
 			return oldRandomValue - prevValue;
 		}
 
@@ -169,10 +265,40 @@ public class SIDMixer implements Mixer {
 	private final MixerEvent mixerAudio = new MixerEvent("MixerAudio");
 
 	/**
-	 * Audio buffers for two channels (stereo).
+	 * Audio buffers for two channels (stereo), empty after each mixer event.
 	 */
+	@NoMachineState
 	private IntBuffer audioBufferL, audioBufferR;
 
+	/**
+	 * Clock the SIDs of stereo and 3-SID tunes in parallel.
+	 */
+	private final boolean parallel;
+
+	/**
+	 * Parallel clocking: Separate audio buffers of each SID, but the first.
+	 */
+	@NoMachineState
+	private final IntBuffer[] sidBuffersL = new IntBuffer[MAX_SIDS], sidBuffersR = new IntBuffer[MAX_SIDS];
+
+	/**
+	 * Parallel clocking: Tasks to clock each SID, but the first.
+	 */
+	@NoMachineState
+	private final ClockTask[] clockTasks = new ClockTask[MAX_SIDS];
+
+	/**
+	 * Parallel clocking: Permits released by the clock tasks.
+	 */
+	@NoMachineState
+	private final Semaphore clocked = new Semaphore(0);
+
+	/**
+	 * Parallel clocking: Error of a clock task.
+	 */
+	@NoMachineState
+	private volatile Throwable clockError;
+
 	/**
 	 * Capacity of the Audio buffers audioBufferL and audioBufferR.
 	 */
@@ -228,9 +354,39 @@ public class SIDMixer implements Mixer {
 	/**
 	 * Audio driver buffer.
 	 */
+	@NoMachineState
 	private ByteBuffer buffer;
 
+	/**
+	 * Clock SIDs and resampler without audio output.
+	 */
+	@NoMachineState
+	private boolean silent;
+
+	/**
+	 * Minimum and maximum SID output level in silent mode.
+	 */
+	@NoMachineState
+	private int levelMin = Integer.MAX_VALUE, levelMax = Integer.MIN_VALUE;
+
+	/**
+	 * Listener called after each mixer event.
+	 */
+	@NoMachineState
+	private Runnable mixerListener = () -> {
+	};
+
 	public SIDMixer(EventScheduler context, IConfig config, CPUClock cpuClock) {
+		this(context, config, cpuClock, SID_MIXER_PARALLEL);
+	}
+
+	/**
+	 * @param context  system event context
+	 * @param config   configuration
+	 * @param cpuClock CPU clock
+	 * @param parallel clock the SIDs of stereo and 3-SID tunes in parallel
+	 */
+	public SIDMixer(EventScheduler context, IConfig config, CPUClock cpuClock, boolean parallel) {
 		ISidPlay2Section sidplay2Section = config.getSidplay2Section();
 		IAudioSection audioSection = config.getAudioSection();
 		IWhatsSidSection whatsSidSection = config.getWhatsSidSection();
@@ -243,6 +399,7 @@ public class SIDMixer implements Mixer {
 		this.context = context;
 		this.config = config;
 		this.cpuClock = cpuClock;
+		this.parallel = parallel;
 		this.resamplerL = Resampler.createResampler(cpuFrequency, samplingMethod, samplingFrequency, middleFrequency);
 		this.resamplerR = Resampler.createResampler(cpuFrequency, samplingMethod, samplingFrequency, middleFrequency);
 		this.fadeInFadeOutEnabled = sidplay2Section.getFadeInTime() != 0 || sidplay2Section.getFadeOutTime() != 0;
@@ -264,6 +421,15 @@ public class SIDMixer implements Mixer {
 		this.buffer = audioDriver.buffer();
 		this.audioBufferL = ByteBuffer.allocateDirect(Integer.BYTES * bufferSize).order(nativeOrder()).asIntBuffer();
 		this.audioBufferR = ByteBuffer.allocateDirect(Integer.BYTES * bufferSize).order(nativeOrder()).asIntBuffer();
+		if (parallel) {
+			for (int sidNum = 1; sidNum < MAX_SIDS; sidNum++) {
+				sidBuffersL[sidNum] = ByteBuffer.allocateDirect(Integer.BYTES * bufferSize).order(nativeOrder())
+						.asIntBuffer();
+				sidBuffersR[sidNum] = ByteBuffer.allocateDirect(Integer.BYTES * bufferSize).order(nativeOrder())
+						.asIntBuffer();
+				clockTasks[sidNum] = new ClockTask();
+			}
+		}
 	}
 
 	/**
@@ -271,6 +437,8 @@ public class SIDMixer implements Mixer {
 	 */
 	@Override
 	public void start() {
+		clockError = null;
+		clocked.drainPermits();
 		context.schedule(mixerAudio, 0, Event.Phase.PHI2);
 	}
 
@@ -313,6 +481,7 @@ public class SIDMixer implements Mixer {
 			sids.add(sid);
 		}
 		createSampleMixer(sid, sidNum);
+		sid.setDeferWrites(parallel);
 		setVolume(sidNum, config.getAudioSection().getVolume(sidNum));
 		setBalance(sidNum, config.getAudioSection().getBalance(sidNum));
 		setDelay(sidNum, config.getAudioSection().getDelay(sidNum));
@@ -325,6 +494,7 @@ public class SIDMixer implements Mixer {
 	 */
 	public void remove(ReSIDBase sid) {
 		sids.remove(sid);
+		sid.setDeferWrites(false);
 		sid.setSampler(null);
 		updateSampleMixerVolume();
 	}
@@ -388,8 +558,9 @@ public class SIDMixer implements Mixer {
 	 * @param sid SID chip that requires a sample mixer.
 	 */
 	private void createSampleMixer(ReSIDBase sid, int sidNum) {
-		IntBuffer intBufferL = audioBufferL.duplicate();
-		IntBuffer intBufferR = audioBufferR.duplicate();
+		boolean ownBuffers = parallel && sidNum > 0;
+		IntBuffer intBufferL = (ownBuffers ? sidBuffersL[sidNum] : audioBufferL).duplicate();
+		IntBuffer intBufferR = (ownBuffers ? sidBuffersR[sidNum] : audioBufferR).duplicate();
 		if (fadeInFadeOutEnabled) {
 			sid.setSampler(new LinearFadingSampleMixer(intBufferL, intBufferR));
 		} else {
@@ -471,4 +642,37 @@ public class SIDMixer implements Mixer {
 		this.whatsSidEnabled = whatsSidEnabled;
 	}
 
+	/**
+	 * Clock the SIDs and the resampler without any audio output (e.g. to analyze
+	 * the SID output only). The machine state evolves exactly the same way.
+	 *
+	 * @param silent skip audio output
+	 */
+	public void setSilent(boolean silent) {
+		this.silent = silent;
+	}
+
+	/**
+	 * Set a listener called after each mixer event, e.g. to analyze the output
+	 * level.
+	 *
+	 * @param mixerListener listener called by the thread clocking the machine
+	 */
+	public void setMixerListener(Runnable mixerListener) {
+		this.mixerListener = mixerListener;
+	}
+
+	/**
+	 * Get the peak-to-peak SID output level (before resampling) in silent mode
+	 * since the last call, e.g. to detect silence without audio output.
+	 *
+	 * @return peak-to-peak output level (0 means silence)
+	 */
+	public int getOutputLevel() {
+		int level = Math.max(levelMax - levelMin, 0);
+		levelMin = Integer.MAX_VALUE;
+		levelMax = Integer.MIN_VALUE;
+		return level;
+	}
+
 }
\ No newline at end of file
@@ -1,11 +1,11 @@
 package builder.resid;
 
 import java.nio.Buffer;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.util.function.IntConsumer;
 
+import libsidplay.common.NoMachineState;
+
 /**
  * Sound sample consumer consuming sample data while a SID is being clock'ed. A
  * sample value is added to the audio buffer to mix the output of several SIDs
@@ -110,6 +110,7 @@ class SampleMixer implements IntConsumer {
 	/**
 	 * Buffers of mixed sample values for left/right speaker.
 	 */
+	@NoMachineState
 	private IntBuffer bufferL, bufferR;
 
 	/**
@@ -118,9 +119,10 @@ class SampleMixer implements IntConsumer {
 	protected int volumeL, volumeR;
 
 	/**
-	 * Sample buffer for delay effect.
+	 * Sample ring buffer for delay effect and position of the oldest sample.
 	 */
-	private IntBuffer delayedSamples;
+	private int[] delayedSamples;
+	private int delayedSamplesPos;
 
 	SampleMixer(IntBuffer audioBufferL, IntBuffer audioBufferR) {
 		this.bufferL = audioBufferL;
@@ -133,17 +135,17 @@ class SampleMixer implements IntConsumer {
 	}
 
 	public void setDelay(int delayedSamples) {
-		this.delayedSamples = ByteBuffer.allocateDirect(Integer.BYTES * (delayedSamples + 1))
-				.order(ByteOrder.nativeOrder()).asIntBuffer().put(new int[delayedSamples + 1]);
-		((Buffer) this.delayedSamples).flip();
+		this.delayedSamples = new int[delayedSamples + 1];
+		this.delayedSamplesPos = 0;
 	}
 
 	@Override
 	public void accept(int sample) {
-		if (!delayedSamples.put(sample).hasRemaining()) {
-			((Buffer) this.delayedSamples).flip();
+		delayedSamples[delayedSamplesPos] = sample;
+		if (++delayedSamplesPos == delayedSamples.length) {
+			delayedSamplesPos = 0;
 		}
-		sample = delayedSamples.get(delayedSamples.position());
+		sample = delayedSamples[delayedSamplesPos];
 		bufferL.put(bufferL.get(bufferL.position()) + sample * volumeL);
 		bufferR.put(bufferR.get(bufferR.position()) + sample * volumeR);
 	}
@@ -0,0 +1,166 @@
+package builder.resid.resample;
+
+import static libsidplay.config.IAudioSystemProperties.FIR_CACHE_DIR;
+import static libsidplay.config.IAudioSystemProperties.FIR_CACHE_SIZE;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache of FIR tables shared by all resampler instances of the Java process
+ * (players are created in parallel by the server). The least recently used
+ * table is dropped, if the cache is full.
+ *
+ * FIR tables can optionally be persisted to a directory (system property
+ * jsidplay2.fir_cache.dir), so a cold Java process does not need to compute
+ * them again. A file format version is part of the filename and the header.
+ */
+final class FIRCache {
+
+	private static final Logger FIR_CACHE = Logger.getLogger(FIRCache.class.getName());
+
+	/**
+	 * Increase, if the FIR table computation changes!
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * FIR tables (or their pending computation). Computation of a missing FIR
+	 * table is done without a global lock, a parallel request for the same table
+	 * waits for the pending computation instead of computing it again.
+	 */
+	private static final Map<String, CompletableFuture<int[][]>> CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * Keys of the cached FIR tables in access order to drop the least recently
+	 * used table.
+	 */
+	private static final Map<String, Boolean> LRU = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+			if (size() > FIR_CACHE_SIZE) {
+				CACHE.remove(eldest.getKey());
+				return true;
+			}
+			return false;
+		}
+	};
+
+	private FIRCache() {
+	}
+
+	/**
+	 * Get FIR table from cache, disk or compute it.
+	 *
+	 * @param firN             filter length
+	 * @param firRES           filter resolution (number of FIR tables)
+	 * @param cyclesPerSampleD clock frequency / sampling frequency
+	 * @param compute          FIR table computation
+	 * @return FIR table (must not be modified)
+	 */
+	static int[][] get(int firN, int firRES, double cyclesPerSampleD, Supplier<int[][]> compute) {
+		final String firKey = firN + "," + firRES + "," + cyclesPerSampleD;
+		CompletableFuture<int[][]> future = CACHE.get(firKey);
+		if (future == null) {
+			final CompletableFuture<int[][]> newFuture = new CompletableFuture<>();
+			future = CACHE.putIfAbsent(firKey, newFuture);
+			if (future == null) {
+				future = newFuture;
+				try {
+					newFuture.complete(load(firKey, firN, firRES, compute));
+				} catch (RuntimeException | Error e) {
+					// let the next request try again
+					CACHE.remove(firKey, newFuture);
+					newFuture.completeExceptionally(e);
+					throw e;
+				}
+			}
+		}
+		synchronized (LRU) {
+			LRU.put(firKey, Boolean.TRUE);
+		}
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private static int[][] load(String firKey, int firN, int firRES, Supplier<int[][]> compute) {
+		if (FIR_CACHE_DIR.isEmpty()) {
+			return compute.get();
+		}
+		final File file = new File(FIR_CACHE_DIR, String.format("fir_v%d_%s.bin", VERSION, firKey.replace(',', '_')));
+		int[][] fir = read(file, firN, firRES);
+		if (fir == null) {
+			fir = compute.get();
+			write(file, fir);
+		}
+		return fir;
+	}
+
+	private static int[][] read(File file, int firN, int firRES) {
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			final IntBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).asIntBuffer();
+			if (in.remaining() != 3 + firRES * firN || in.get() != VERSION || in.get() != firRES
+					|| in.get() != firN) {
+				FIR_CACHE.warning("Ignore FIR table with wrong version or size: " + file);
+				return null;
+			}
+			final int[][] fir = new int[firRES][firN];
+			for (int[] firTable : fir) {
+				in.get(firTable);
+			}
+			return fir;
+		} catch (IOException e) {
+			FIR_CACHE.log(Level.WARNING, "Cannot read FIR table: " + file, e);
+			return null;
+		}
+	}
+
+	private static void write(File file, int[][] fir) {
+		final ByteBuffer out = ByteBuffer.allocate((3 + fir.length * fir[0].length) * Integer.BYTES);
+		final IntBuffer outInts = out.asIntBuffer();
+		outInts.put(VERSION).put(fir.length).put(fir[0].length);
+		for (int[] firTable : fir) {
+			outInts.put(firTable);
+		}
+		File tmpFile = null;
+		try {
+			file.getParentFile().mkdirs();
+			// other processes must never see an incomplete file
+			tmpFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+			Files.write(tmpFile.toPath(), out.array());
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			FIR_CACHE.log(Level.WARNING, "Cannot write FIR table: " + file, e);
+		} finally {
+			if (tmpFile != null) {
+				tmpFile.delete();
+			}
+		}
+	}
+}
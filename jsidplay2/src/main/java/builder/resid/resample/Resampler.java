@@ -18,6 +18,18 @@ public interface Resampler {
 	 */
 	boolean input(int sample);
 
+	/**
+	 * Input a sample into resampler without calculating the output sample. The
+	 * state of the resampler stays the same as for {@link #input(int)}, e.g. while
+	 * no audio output is required.
+	 *
+	 * @param sample The sample to input into the resampler.
+	 * @return true when a sample would be ready
+	 */
+	default boolean skip(int sample) {
+		return input(sample);
+	}
+
 	/**
 	 * Output a sample from resampler
 	 *
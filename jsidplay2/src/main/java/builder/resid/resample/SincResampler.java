@@ -22,11 +22,12 @@
 package builder.resid.resample;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 
+import libsidplay.common.NoMachineState;
+
 /**
  * This is the theoretically correct (and computationally intensive) audio
  * sample generation. The samples are generated by resampling to the specified
@@ -69,6 +70,7 @@ public final class SincResampler implements Resampler {
 
 	private final int[] sample = new int[RINGSIZE * 2];
 
+	@NoMachineState
 	private int[][] fir;
 
 	private int sampleIndex;
@@ -81,12 +83,6 @@ public final class SincResampler implements Resampler {
 
 	private int output;
 
-	/**
-	 * Cache for caching the expensive FIR table computation results in the Java
-	 * process.
-	 */
-	private static Map<String, int[][]> FIR_CACHE = new HashMap<>();
-
 	/** Maximum error acceptable in I0 is 1e-6, or ~96 dB. */
 	private static final double I0E = 1e-6;
 
@@ -208,18 +204,14 @@ public final class SincResampler implements Resampler {
 		// the same as nyquist.
 		final double wc = Math.PI;
 
-		final String firKey = firN + "," + firRES + "," + cyclesPerSampleD;
-		fir = FIR_CACHE.get(firKey);
-
 		/*
 		 * The FIR computation is expensive and we set sampling parameters often, but
 		 * from a very small set of choices. Thus, caching is used to speed
 		 * initialization.
 		 */
-		if (fir == null) {
+		fir = FIRCache.get(firN, firRES, cyclesPerSampleD, () -> {
 			// Allocate memory for FIR tables.
-			fir = new int[firRES][firN];
-			FIR_CACHE.put(firKey, fir);
+			final int[][] fir = new int[firRES][firN];
 
 			/* Calculate the sinc tables. */
 			final double scale = 32768.0 * wc / cyclesPerSampleD / Math.PI;
@@ -237,7 +229,8 @@ public final class SincResampler implements Resampler {
 					fir[i][j] = (int) (scale * sincWt * kaiserXt);
 				}
 			}
-		}
+			return fir;
+		});
 	}
 
 	/**
@@ -264,6 +257,30 @@ public final class SincResampler implements Resampler {
 		return ready;
 	}
 
+	/**
+	 * Inputs a given sample into this SincResampler without the convolution of
+	 * the output sample.
+	 *
+	 * @param input The sample to input into this resampler.
+	 *
+	 * @return True if the sample would be ready to output.
+	 */
+	@Override
+	public boolean skip(int input) {
+		boolean ready = false;
+
+		sample[sampleIndex] = sample[sampleIndex + RINGSIZE] = input;
+		sampleIndex = sampleIndex + 1 & RINGSIZE - 1;
+
+		if (sampleOffset < 1024) {
+			ready = true;
+			sampleOffset += cyclesPerSample;
+		}
+		sampleOffset -= 1024;
+
+		return ready;
+	}
+
 	/**
 	 * Gets the current output sample.
 	 *
@@ -26,6 +26,11 @@ public class TwoPassSincResampler implements Resampler {
 		return s1.input(sample) && s2.input(s1.output());
 	}
 
+	@Override
+	public boolean skip(int sample) {
+		return s1.input(sample) && s2.skip(s1.output());
+	}
+
 	@Override
 	public int output() {
 		return s2.output();
@@ -1,9 +1,47 @@
 package builder.resid.resid;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import libsidplay.common.SIDChip;
 import libsidplay.config.IFilterSection;
 
+/**
+ * Model of the 6581 filter.
+ *
+ * The op-amp, VCR, summer, mixer and gain tables are expensive to calculate
+ * (several hundred ms), therefore they are generated at build time into the
+ * resource {@link #TABLES} (see {@link #main(String[])}). They are calculated at
+ * runtime only, if the resource is missing (e.g. running from the IDE) or
+ * outdated.
+ */
 public final class FilterModelConfig {
+	private static final Logger FILTER_MODEL_CONFIG = Logger.getLogger(FilterModelConfig.class.getName());
+
+	/**
+	 * Resource containing the pre-calculated tables.
+	 */
+	private static final String TABLES = "FilterModelConfig.bin";
+
+	/**
+	 * Increase, if the table calculation changes!
+	 */
+	private static final int TABLES_VERSION = 1;
+
+	/**
+	 * Number of tables: opamp_rev, vcr_Vg, vcr_n_Ids_term, summer[7], mixer[8],
+	 * gain[16]
+	 */
+	private static final int TABLES_COUNT = 34;
+
 	private static final double[][] opamp_voltage = { { 0.75, 10.02 }, // Approximate
 																		// start
 																		// of
@@ -46,9 +84,7 @@ public final class FilterModelConfig {
 	private static final double vmin, norm;
 	private static final double opamp_working_point;
 	private static final double[] dac = new double[11];
-	private static final char[] vcr_Vg = new char[1 << 16];
-	private static final char[] vcr_n_Ids_term = new char[1 << 16];
-	private static final char[] opamp_rev = new char[1 << 16];
+	private static final char[] vcr_Vg, vcr_n_Ids_term, opamp_rev;
 	private static final char[][] mixer, summer, gain;
 
 	static {
@@ -67,6 +103,28 @@ public final class FilterModelConfig {
 
 		SID.kinkedDac(dac, dac_2R_div_R, dac_term);
 
+		char[][] tables = loadTables();
+		if (tables == null) {
+			tables = calculateTables();
+		}
+		opamp_rev = tables[0];
+		vcr_Vg = tables[1];
+		vcr_n_Ids_term = tables[2];
+		summer = Arrays.copyOfRange(tables, 3, 10);
+		mixer = Arrays.copyOfRange(tables, 10, 18);
+		gain = Arrays.copyOfRange(tables, 18, TABLES_COUNT);
+	}
+
+	/**
+	 * Calculate tables.
+	 *
+	 * @return all tables, see {@link #TABLES_COUNT}
+	 */
+	private static char[][] calculateTables() {
+		final char[] vcr_Vg = new char[1 << 16];
+		final char[] vcr_n_Ids_term = new char[1 << 16];
+		final char[] opamp_rev = new char[1 << 16];
+
 		double N16 = norm * ((1 << 16) - 1);
 
 		// The "zero" output level of the voices.
@@ -98,7 +156,7 @@ public final class FilterModelConfig {
 		// and transistors are not linear components. However modeling all
 		// transistors separately would be extremely costly.
 		OpAmp opampModel = new OpAmp(opamp_voltage, Vdd - Vth);
-		summer = new char[7][];
+		final char[][] summer = new char[7][];
 		for (int i = 0; i < summer.length; i++) {
 			int idiv = 2 + i; // 2 - 6 input "resistors".
 			int size = idiv << 16;
@@ -116,7 +174,7 @@ public final class FilterModelConfig {
 		//
 		// All "on", transistors are modeled as one - see comments above for
 		// the filter summer.
-		mixer = new char[8][];
+		final char[][] mixer = new char[8][];
 		for (int i = 0; i < mixer.length; i++) {
 			final int size;
 			if (i == 0) {
@@ -137,10 +195,10 @@ public final class FilterModelConfig {
 		// From die photographs of the bandpass and volume "resistor" ladders
 		// it follows that gain ~ vol/8 and 1/Q ~ ~res/8 (assuming ideal
 		// op-amps and ideal "resistors").
-		gain = new char[16][1 << 16];
-		for (int n8 = 0; n8 < FilterModelConfig.gain.length; n8++) {
+		final char[][] gain = new char[16][1 << 16];
+		for (int n8 = 0; n8 < gain.length; n8++) {
 			opampModel.reset();
-			for (int vi = 0; vi < FilterModelConfig.gain[n8].length; vi++) {
+			for (int vi = 0; vi < gain[n8].length; vi++) {
 				double vin = vmin + vi / N16; /* vmin .. vmax */
 				gain[n8][vi] = (char) ((opampModel.solve(n8 / 8.0, vin) - vmin) * N16 + 0.5);
 			}
@@ -178,6 +236,70 @@ public final class FilterModelConfig {
 			// Scaled by m*2^15
 			vcr_n_Ids_term[Vgx] = (char) (n_Is * log_term * log_term + .5);
 		}
+
+		final char[][] tables = new char[TABLES_COUNT][];
+		tables[0] = opamp_rev;
+		tables[1] = vcr_Vg;
+		tables[2] = vcr_n_Ids_term;
+		System.arraycopy(summer, 0, tables, 3, summer.length);
+		System.arraycopy(mixer, 0, tables, 10, mixer.length);
+		System.arraycopy(gain, 0, tables, 18, gain.length);
+		return tables;
+	}
+
+	/**
+	 * Load pre-calculated tables.
+	 *
+	 * @return tables or null (resource is missing or outdated)
+	 */
+	private static char[][] loadTables() {
+		try (InputStream is = FilterModelConfig.class.getResourceAsStream(TABLES)) {
+			if (is == null) {
+				return null;
+			}
+			DataInputStream in = new DataInputStream(is);
+			if (in.readInt() != TABLES_VERSION || in.readInt() != TABLES_COUNT) {
+				FILTER_MODEL_CONFIG.warning("Outdated " + TABLES + ", tables are calculated instead");
+				return null;
+			}
+			final char[][] tables = new char[TABLES_COUNT][];
+			for (int i = 0; i < tables.length; i++) {
+				final byte[] bytes = new byte[in.readInt() * Character.BYTES];
+				in.readFully(bytes);
+				tables[i] = new char[bytes.length / Character.BYTES];
+				ByteBuffer.wrap(bytes).asCharBuffer().get(tables[i]);
+			}
+			return tables;
+		} catch (IOException e) {
+			FILTER_MODEL_CONFIG.log(Level.WARNING, "Cannot read " + TABLES + ", tables are calculated instead", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Generate the resource containing the pre-calculated tables (called during
+	 * the build).
+	 *
+	 * @param args output directory
+	 * @throws IOException cannot write resource
+	 */
+	public static void main(String[] args) throws IOException {
+		final File dir = new File(args[0], FilterModelConfig.class.getPackage().getName().replace('.', '/'));
+		dir.mkdirs();
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(new File(dir, TABLES)))) {
+			final char[][] tables = calculateTables();
+			final ByteBuffer bytes = ByteBuffer.allocate(1 << 20);
+			out.writeInt(TABLES_VERSION);
+			out.writeInt(TABLES_COUNT);
+			for (char[] table : tables) {
+				out.writeInt(table.length);
+				for (int offset = 0; offset < table.length; offset += bytes.capacity() / Character.BYTES) {
+					final int length = Math.min(table.length - offset, bytes.capacity() / Character.BYTES);
+					bytes.asCharBuffer().put(table, offset, length);
+					out.write(bytes.array(), 0, length * Character.BYTES);
+				}
+			}
+		}
 	}
 
 	public static double getDacZero(double adjustment) {
@@ -21,8 +21,8 @@
  */
 package builder.resid.resid;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import libsidplay.common.ChipModel;
 
@@ -32,7 +32,7 @@ import libsidplay.common.ChipModel;
  * @author Antti Lankila
  */
 public final class WaveformCalculator {
-	private static final Map<CombinedWaveformConfig[], short[][]> CACHE = new HashMap<>();
+	private static final Map<CombinedWaveformConfig[], short[][]> CACHE = new ConcurrentHashMap<>();
 
 	protected static class CombinedWaveformConfig {
 		protected CombinedWaveformConfig(final float f, final float g, final float h, final float i, final float j) {
@@ -98,7 +98,7 @@ public final class WaveformCalculator {
 	protected static short[][] buildTable(ChipModel model) {
 		CombinedWaveformConfig[] cfgArray = config[model == ChipModel.MOS6581 ? 0 : 1];
 
-		if (!CACHE.containsKey(cfgArray)) {
+		return CACHE.computeIfAbsent(cfgArray, key -> {
 			short[][] wftable = new short[8][4096];
 
 			for (int accumulator = 0; accumulator < 1 << 24; accumulator += 1 << 12) {
@@ -112,11 +112,8 @@ public final class WaveformCalculator {
 				wftable[6][idx] = calculateCombinedWaveform(cfgArray[2], 6, accumulator);
 				wftable[7][idx] = calculateCombinedWaveform(cfgArray[3], 7, accumulator);
 			}
-
-			CACHE.put(cfgArray, wftable);
-		}
-
-		return CACHE.get(cfgArray);
+			return wftable;
+		});
 	}
 
 	/**
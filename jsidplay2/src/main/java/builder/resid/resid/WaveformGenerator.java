@@ -22,6 +22,7 @@
 package builder.resid.resid;
 
 import libsidplay.common.ChipModel;
+import libsidplay.common.NoMachineState;
 
 /**
  * A 24 bit accumulator is the basis for waveform generation. FREQ is added to
@@ -37,7 +38,9 @@ import libsidplay.common.ChipModel;
  * @author Antti Lankila
  */
 public final class WaveformGenerator {
+	@NoMachineState
 	private final short[][] model_wave = new short[8][4096];
+	@NoMachineState
 	private final short[] dac = new short[4096];
 
 	/** Current and previous accumulator value. */
@@ -24,8 +24,8 @@ package builder.resid.residfp;
 import java.io.DataOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import libsidplay.common.ChipModel;
 
@@ -35,8 +35,7 @@ import libsidplay.common.ChipModel;
  * @author Antti Lankila
  */
 public final class WaveformCalculator {
-	private static final Map<String, float[][]> WFTABLE_CACHE = new HashMap<>();
-	private static final Map<String, byte[][]> WFDIGITAL_CACHE = new HashMap<>();
+	private static final Map<String, Object[]> CACHE = new ConcurrentHashMap<>();
 
 	private static class CombinedWaveformConfig {
 		public CombinedWaveformConfig(final float f, final float g, final float h, final float i, final float j) {
@@ -136,7 +135,7 @@ public final class WaveformCalculator {
 		}
 
 		final String key = nonlinearity + "," + model;
-		if (!WFTABLE_CACHE.containsKey(key)) {
+		final Object[] tables = CACHE.computeIfAbsent(key, k -> {
 			float wave_zero = model == ChipModel.MOS6581 ? -0x380 : -0x800;
 
 			final float[] o = new float[12];
@@ -161,11 +160,10 @@ public final class WaveformCalculator {
 				}
 			}
 
-			WFTABLE_CACHE.put(key, wftable);
-			WFDIGITAL_CACHE.put(key, wfdigital);
-		}
+			return new Object[] { wftable, wfdigital };
+		});
 
-		return new Object[] { WFTABLE_CACHE.get(key), dac, WFDIGITAL_CACHE.get(key) };
+		return new Object[] { tables[0], dac, tables[1] };
 	}
 
 	/* explode reg12 to a floating point bit array */
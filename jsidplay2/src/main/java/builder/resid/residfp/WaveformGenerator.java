@@ -22,6 +22,7 @@
 package builder.resid.residfp;
 
 import libsidplay.common.ChipModel;
+import libsidplay.common.NoMachineState;
 
 /**
  * A 24 bit accumulator is the basis for waveform generation. FREQ is added to
@@ -34,8 +35,11 @@ import libsidplay.common.ChipModel;
  *
  */
 public final class WaveformGenerator {
+	@NoMachineState
 	private float[][] wftable;
+	@NoMachineState
 	private byte[][] wfdigital;
+	@NoMachineState
 	private float[] dac;
 
 	protected void setWftable(final float[][] newWftable, final float[] newDac, final byte[][] newWfdigital) {
@@ -1,11 +1,15 @@
 package libsidplay;
 
+import static libsidplay.config.IEmulationSystemProperties.C1541_MAX_LAG;
+import static libsidplay.config.IEmulationSystemProperties.C1541_THREADED;
+
 import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -15,6 +19,7 @@ import java.util.Locale;
 import libsidplay.common.CPUClock;
 import libsidplay.common.Event;
 import libsidplay.common.Event.Phase;
+import libsidplay.common.MachineState;
 import libsidplay.common.Ultimate64Mode;
 import libsidplay.components.c1530.Datasette;
 import libsidplay.components.c1541.C1541;
@@ -25,6 +30,7 @@ import libsidplay.components.c1541.FloppyType;
 import libsidplay.components.c1541.IExtendImageListener;
 import libsidplay.components.c1541.IParallelCable;
 import libsidplay.components.c1541.SameThreadC1541Runner;
+import libsidplay.components.c1541.ThreadedC1541Runner;
 import libsidplay.components.c1541.VIACore;
 import libsidplay.components.cart.CartridgeType;
 import libsidplay.components.iec.IECBus;
@@ -144,21 +150,21 @@ public class HardwareEnsemble implements Ultimate64 {
 		this.c64 = new C64(cpuClass) {
 			@Override
 			public void printerUserportWriteData(final byte data) {
-				if (config.getPrinterSection().isPrinterOn()) {
+				if (getConfig().getPrinterSection().isPrinterOn()) {
 					printer.printerUserportWriteData(data);
 				}
 			}
 
 			@Override
 			public void printerUserportWriteStrobe(final boolean strobe) {
-				if (config.getPrinterSection().isPrinterOn()) {
+				if (getConfig().getPrinterSection().isPrinterOn()) {
 					printer.printerUserportWriteStrobe(strobe);
 				}
 			}
 
 			@Override
 			public byte readFromIECBus() {
-				if (config.getC1541Section().isDriveOn()) {
+				if (getConfig().getC1541Section().isDriveOn()) {
 					c1541Runner.synchronize(0);
 				}
 				return iecBus.readFromIECBus();
@@ -166,7 +172,7 @@ public class HardwareEnsemble implements Ultimate64 {
 
 			@Override
 			public void writeToIECBus(final byte data) {
-				if (config.getC1541Section().isDriveOn()) {
+				if (getConfig().getC1541Section().isDriveOn()) {
 					c1541Runner.synchronize(1);
 				}
 				iecBus.writeToIECBus(data);
@@ -202,7 +208,9 @@ public class HardwareEnsemble implements Ultimate64 {
 
 		this.iecBus.setFloppies(floppies);
 		this.iecBus.setSerialDevices(serialDevices);
-		this.c1541Runner = new SameThreadC1541Runner(c64.getEventScheduler(), c1541.getEventScheduler());
+		this.c1541Runner = C1541_THREADED
+				? new ThreadedC1541Runner(c64.getEventScheduler(), c1541, C1541_MAX_LAG)
+				: new SameThreadC1541Runner(c64.getEventScheduler(), c1541);
 	}
 
 	/**
@@ -214,6 +222,16 @@ public class HardwareEnsemble implements Ultimate64 {
 		return config;
 	}
 
+	/**
+	 * Set Configuration, e.g. to reuse the hardware with another configuration.
+	 * Takes effect with the next reset.
+	 *
+	 * @param config configuration
+	 */
+	public void setConfig(IConfig config) {
+		this.config = config;
+	}
+
 	/**
 	 * Get C64.
 	 *
@@ -310,6 +328,33 @@ public class HardwareEnsemble implements Ultimate64 {
 		enablePrinter(config.getPrinterSection().isPrinterOn());
 	}
 
+	/**
+	 * Save the state of the emulated hardware (C64, SIDs, floppies, datasette,
+	 * printer). Must be called by the thread clocking the hardware.
+	 *
+	 * @param out output stream to write the snapshot to
+	 * @throws IOException I/O error
+	 * @see MachineState
+	 */
+	public void saveState(final OutputStream out) throws IOException {
+		c1541Runner.waitUntilIdle();
+		MachineState.save(this, out);
+	}
+
+	/**
+	 * Restore the state of the emulated hardware saved by
+	 * {@link #saveState(OutputStream)} of a hardware ensemble with the same
+	 * configuration. Must be called by the thread clocking the hardware.
+	 *
+	 * @param in input stream to read the snapshot from
+	 * @throws IOException I/O error or snapshot of a different configuration
+	 * @see MachineState
+	 */
+	public void restoreState(final InputStream in) throws IOException {
+		c1541Runner.waitUntilIdle();
+		MachineState.restore(this, in);
+	}
+
 	/**
 	 * Enable floppy disk drives.
 	 *
@@ -343,6 +388,10 @@ public class HardwareEnsemble implements Ultimate64 {
 		for (final C1541 floppy : floppies) {
 			floppy.getBusController().setParallelCable(cable);
 		}
+		if (c1541Runner instanceof ThreadedC1541Runner) {
+			// the parallel cable signals the CIA of the C64
+			((ThreadedC1541Runner) c1541Runner).setThreaded(!connected);
+		}
 	}
 
 	/**
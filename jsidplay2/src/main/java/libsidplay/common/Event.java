@@ -28,8 +28,25 @@ public abstract class Event {
 	protected long triggerTime;
 
 	/** The next event in sequence */
+	@NoMachineState
 	protected Event next;
 
+	/** The previous event in sequence (timing wheel event queue only) */
+	@NoMachineState
+	Event prev;
+
+	/** Is this event pending (timing wheel event queue only) */
+	@NoMachineState
+	boolean pending;
+
+	/** Position in the far-future heap or -1 (timing wheel event queue only) */
+	@NoMachineState
+	int heapIndex = -1;
+
+	/** Insertion order of far-future events (timing wheel event queue only) */
+	@NoMachineState
+	long sequence;
+
 	/**
 	 * Events are used for delayed execution. Name is not used by code, but is
 	 * useful for debugging.
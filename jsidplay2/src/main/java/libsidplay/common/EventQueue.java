@@ -0,0 +1,78 @@
+package libsidplay.common;
+
+import java.util.function.Consumer;
+
+/**
+ * Pending events of the EventScheduler ordered by trigger time. Events with the
+ * same trigger time are returned in the order they have been added.
+ */
+abstract class EventQueue {
+
+	/**
+	 * Add event to the queue.
+	 * 
+	 * @param event event to add, trigger time is already set
+	 */
+	abstract void add(Event event);
+
+	/**
+	 * Remove event from the queue, if it is pending.
+	 * 
+	 * @param event event to remove
+	 */
+	abstract void remove(Event event);
+
+	/**
+	 * Remove and return the event with the lowest trigger time.
+	 * 
+	 * @return next event to fire
+	 */
+	abstract Event poll();
+
+	/**
+	 * Is the event pending in this queue?
+	 * 
+	 * @param event the event
+	 * @return true when pending
+	 */
+	abstract boolean contains(Event event);
+
+	/**
+	 * Remove all pending events.
+	 */
+	abstract void clear();
+
+	/**
+	 * Is no event pending?
+	 * 
+	 * @return true when empty
+	 */
+	abstract boolean isEmpty();
+
+	/**
+	 * Perform the action for each pending event in the order they fire. The
+	 * queue is not modified, the action must not modify it either.
+	 * 
+	 * @param action action to perform
+	 */
+	abstract void forEach(Consumer<Event> action);
+
+	/**
+	 * Get the trigger time of the first pending event, that is not idle. Only the
+	 * idle events in front of it are visited.
+	 * 
+	 * @param idleEvents events to skip (null entries are ignored)
+	 * @return trigger time of the first other event or Long.MAX_VALUE
+	 */
+	abstract long nextTriggerTime(Event[] idleEvents);
+
+	static boolean isIdle(final Event event, final Event[] idleEvents) {
+		for (Event idleEvent : idleEvents) {
+			if (event == idleEvent) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
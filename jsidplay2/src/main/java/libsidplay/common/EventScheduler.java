@@ -15,15 +15,19 @@
  */
 package libsidplay.common;
 
+import static libsidplay.config.IEmulationSystemProperties.EVENT_SCHEDULER_TIMING_WHEEL;
+
 import java.util.ArrayList;
 import java.util.List;
 
 import libsidplay.common.Event.Phase;
 
 /**
- * Fast EventScheduler, which maintains a linked list of Events. This scheduler
- * takes neglible time even when it is used to schedule events for nearly every
- * clock.
+ * Fast EventScheduler, which maintains a queue of Events. This scheduler takes
+ * neglible time even when it is used to schedule events for nearly every clock.
+ * The queue is either a linked list (default) or a timing wheel (system
+ * property jsidplay2.event_scheduler.timing_wheel=true), which scales better
+ * with many pending events.
  *
  * Events occur on an internal clock which is 2x the visible clock. The visible
  * clock is divided to two phases called phi1 and phi2.
@@ -49,40 +53,27 @@ public final class EventScheduler {
 	private static final int THREAD_SAFE_QUEUE_CHECK_INTERVAL = 500;
 
 	/** EventScheduler's current clock */
-	private long currentTime;
+	long currentTime;
 
 	private double cyclesPerSecond;
 
-	private List<Event> threadSafeKeyQueue = new ArrayList<>();
-	private List<Event> threadSafeQueue = new ArrayList<>();
+	@NoMachineState
+	private final ThreadSafeEventQueue threadSafeKeyQueue = new ThreadSafeEventQueue();
+	@NoMachineState
+	private final ThreadSafeEventQueue threadSafeQueue = new ThreadSafeEventQueue();
 
 	/**
-	 * The tail event, always after every other event.
+	 * Pending events (saved by {@link MachineState} in the order they fire).
 	 */
-	private final Event lastEvent = new Event("Tail") {
-		{
-			triggerTime = Long.MAX_VALUE;
-		}
-
-		@Override
-		public void event() {
-			throw new RuntimeException("Event scheduler ran out of events to execute");
-		}
-	};
+	@NoMachineState
+	private final EventQueue eventQueue;
 
 	/**
-	 * The root of event chain, always before and after every other event.
+	 * Events delayed by {@link #fastForward(Event, long, long)} (reused to not
+	 * allocate on each call).
 	 */
-	private final Event firstEvent = new Event("Root") {
-		{
-			triggerTime = Long.MIN_VALUE;
-		}
-
-		@Override
-		public void event() {
-			throw new RuntimeException("Event scheduler executed the root event");
-		}
-	};
+	@NoMachineState
+	private final Event[] idleEvents = new Event[3];
 
 	/**
 	 * Periodic thread-safe event scheduling mechanism.
@@ -90,26 +81,21 @@ public final class EventScheduler {
 	private final Event threadSafeQueueingEvent = new Event("Inject events in thread-safe manner.") {
 		@Override
 		public void event() throws InterruptedException {
-			synchronized (threadSafeQueue) {
-				if (!threadSafeQueue.isEmpty()) {
-					threadSafeQueue.remove(0).event();
-				}
-			}
+			threadSafeQueue.fireAll();
 			schedule(this, THREAD_SAFE_QUEUE_CHECK_INTERVAL);
 		}
 	};
 
 	/**
 	 * Periodic thread-safe event scheduling mechanism for key events.
+	 *
+	 * <B>Note:</B> Only one key event per check interval, the keyboard scan of the
+	 * C64 must see each key press and release.
 	 */
 	private final Event threadSafeQueueingKeyEvent = new Event("Inject key events in thread-safe manner.") {
 		@Override
 		public void event() throws InterruptedException {
-			synchronized (threadSafeKeyQueue) {
-				if (!threadSafeKeyQueue.isEmpty()) {
-					threadSafeKeyQueue.remove(0).event();
-				}
-			}
+			threadSafeKeyQueue.fireNext();
 			schedule(this, THREAD_SAFE_KEY_EVENT_QUEUE_CHECK_INTERVAL);
 		}
 	};
@@ -123,26 +109,31 @@ public final class EventScheduler {
 	 * @param event The event to schedule.
 	 */
 	public void scheduleThreadSafeKeyEvent(final Event event) {
-		synchronized (threadSafeKeyQueue) {
-			threadSafeKeyQueue.add(event);
-		}
+		threadSafeKeyQueue.add(event);
 	}
 
 	/**
 	 * Schedule an event in a thread-safe manner.
 	 *
-	 * The thread-safe queue is moved to the unsafe queue periodically, and specific
-	 * execution time is unpredictable, but will always occur during the PHI1 phase.
+	 * The thread-safe queue is moved to the unsafe queue periodically (all pending
+	 * events at once), and specific execution time is unpredictable, but will
+	 * always occur during the PHI1 phase.
 	 *
 	 * @param event The event to schedule.
 	 */
 	public void scheduleThreadSafe(final Event event) {
-		synchronized (threadSafeQueue) {
-			threadSafeQueue.add(event);
-		}
+		threadSafeQueue.add(event);
 	}
 
 	public EventScheduler() {
+		this(EVENT_SCHEDULER_TIMING_WHEEL);
+	}
+
+	/**
+	 * @param timingWheel use timing wheel event queue instead of linked list
+	 */
+	public EventScheduler(boolean timingWheel) {
+		eventQueue = timingWheel ? new TimingWheelEventQueue() : new LinkedListEventQueue();
 		reset();
 	}
 
@@ -186,22 +177,12 @@ public final class EventScheduler {
 	}
 
 	/**
-	 * Scan the event queue and schedule event for execution.
+	 * Schedule event for execution.
 	 *
 	 * @param event The event to add
 	 */
 	private void addEventToSchedule(final Event event) {
-		Event scan = firstEvent;
-		while (true) {
-			final Event next = scan.next;
-			/* find the right spot where to tuck this new event */
-			if (next.triggerTime > event.triggerTime) {
-				event.next = next;
-				scan.next = event;
-				return;
-			}
-			scan = next;
-		}
+		eventQueue.add(event);
 	}
 
 	/**
@@ -210,17 +191,7 @@ public final class EventScheduler {
 	 * @param event The event to cancel
 	 */
 	public void cancel(final Event event) {
-		Event prev = firstEvent;
-		Event scan = firstEvent.next;
-		while (scan.triggerTime <= event.triggerTime) {
-			/* find the event at triggerTime to cancel */
-			if (event == scan) {
-				prev.next = scan.next;
-				return;
-			}
-			prev = scan;
-			scan = scan.next;
-		}
+		eventQueue.remove(event);
 	}
 
 	/** Cancel all pending events and reset time. */
@@ -228,7 +199,7 @@ public final class EventScheduler {
 		threadSafeQueue.clear();
 		threadSafeKeyQueue.clear();
 		currentTime = 0;
-		firstEvent.next = lastEvent;
+		eventQueue.clear();
 		schedule(threadSafeQueueingEvent, 0, Event.Phase.PHI1);
 		schedule(threadSafeQueueingKeyEvent, 0, Event.Phase.PHI1);
 	}
@@ -239,23 +210,92 @@ public final class EventScheduler {
 	 * @throws InterruptedException
 	 */
 	public void clock() throws InterruptedException {
-		final Event event = firstEvent.next;
-		firstEvent.next = event.next;
+		final Event event = eventQueue.poll();
 		currentTime = event.triggerTime;
 		event.event();
 	}
 
 	/**
-	 * Process next thread-save event
+	 * Process pending thread-save events
 	 *
 	 * @throws InterruptedException
 	 */
 	public void clockThreadSafeEvents() throws InterruptedException {
-		synchronized (threadSafeQueue) {
-			if (!threadSafeQueue.isEmpty()) {
-				threadSafeQueue.remove(0).event();
+		threadSafeQueue.fireAll();
+	}
+
+	/**
+	 * @return queue depth and injection latency of thread-safe events
+	 */
+	public ThreadSafeEventQueue getThreadSafeQueue() {
+		return threadSafeQueue;
+	}
+
+	/**
+	 * @return queue depth and injection latency of thread-safe key events
+	 */
+	public ThreadSafeEventQueue getThreadSafeKeyQueue() {
+		return threadSafeKeyQueue;
+	}
+
+	/**
+	 * Get pending events (machine state).
+	 *
+	 * @return pending events in the order they fire
+	 */
+	List<Event> getPendingEvents() {
+		final List<Event> events = new ArrayList<>();
+		eventQueue.forEach(events::add);
+		return events;
+	}
+
+	/**
+	 * Replace pending events (machine state).
+	 *
+	 * @param events pending events in the order they fire (trigger time is set)
+	 */
+	void setPendingEvents(List<Event> events) {
+		eventQueue.clear();
+		for (Event event : events) {
+			eventQueue.add(event);
+		}
+	}
+
+	/**
+	 * Fast-forward an idle machine, e.g. a CPU executing an idle loop. The clock
+	 * advances by complete iterations of the loop, the event of the loop is
+	 * delayed accordingly. The clock does not advance beyond any other event,
+	 * except the periodic checks of the thread-safe queues while
+	 * they are empty (they are delayed, as well).
+	 *
+	 * @param idleEvent event executing the idle loop
+	 * @param period    cycles per iteration of the idle loop
+	 * @param maxCycles maximum number of cycles to advance
+	 * @return cycles advanced (a multiple of the period)
+	 */
+	public long fastForward(final Event idleEvent, final long period, final long maxCycles) {
+		final boolean threadSafeEvents = threadSafeQueue.getSize() != 0 || threadSafeKeyQueue.getSize() != 0;
+		idleEvents[0] = idleEvent;
+		idleEvents[1] = threadSafeEvents ? null : threadSafeQueueingEvent;
+		idleEvents[2] = threadSafeEvents ? null : threadSafeQueueingKeyEvent;
+		final long nextEventTime = eventQueue.nextTriggerTime(idleEvents);
+		if (!eventQueue.contains(idleEvent) || idleEvent.triggerTime >= nextEventTime) {
+			return 0;
+		}
+		final long cycles = Math.min(maxCycles, (nextEventTime - currentTime >> 1) - 1) / period * period;
+		if (cycles <= 0) {
+			return 0;
+		}
+		// only the idle events in front of the next event are re-inserted
+		for (Event event : idleEvents) {
+			if (event != null && event.triggerTime < nextEventTime && eventQueue.contains(event)) {
+				eventQueue.remove(event);
+				event.triggerTime += cycles << 1;
+				eventQueue.add(event);
 			}
 		}
+		currentTime += cycles << 1;
+		return cycles;
 	}
 
 	/**
@@ -265,15 +305,7 @@ public final class EventScheduler {
 	 * @return true when pending
 	 */
 	public boolean isPending(final Event event) {
-		Event scan = firstEvent.next;
-		while (scan.triggerTime <= event.triggerTime) {
-			/* find the event at triggerTime */
-			if (event == scan) {
-				return true;
-			}
-			scan = scan.next;
-		}
-		return false;
+		return eventQueue.contains(event);
 	}
 
 	/**
@@ -0,0 +1,127 @@
+package libsidplay.common;
+
+import java.util.function.Consumer;
+
+/**
+ * Fast event queue, which maintains a linked list of Events. Insertion scans
+ * the list from the start, which is very fast as long as only a few events are
+ * pending, that typically fire within the next few clocks.
+ * 
+ * @author Antti S. Lankila
+ */
+final class LinkedListEventQueue extends EventQueue {
+
+	/**
+	 * The tail event, always after every other event.
+	 */
+	private final Event lastEvent = new Event("Tail") {
+		{
+			triggerTime = Long.MAX_VALUE;
+		}
+
+		@Override
+		public void event() {
+			throw new RuntimeException("Event scheduler ran out of events to execute");
+		}
+	};
+
+	/**
+	 * The root of event chain, always before and after every other event.
+	 */
+	private final Event firstEvent = new Event("Root") {
+		{
+			triggerTime = Long.MIN_VALUE;
+		}
+
+		@Override
+		public void event() {
+			throw new RuntimeException("Event scheduler executed the root event");
+		}
+	};
+
+	LinkedListEventQueue() {
+		clear();
+	}
+
+	/**
+	 * Scan the event queue and schedule event for execution.
+	 *
+	 * @param event The event to add
+	 */
+	@Override
+	void add(final Event event) {
+		Event scan = firstEvent;
+		while (true) {
+			final Event next = scan.next;
+			/* find the right spot where to tuck this new event */
+			if (next.triggerTime > event.triggerTime) {
+				event.next = next;
+				scan.next = event;
+				return;
+			}
+			scan = next;
+		}
+	}
+
+	@Override
+	void remove(final Event event) {
+		Event prev = firstEvent;
+		Event scan = firstEvent.next;
+		while (scan.triggerTime <= event.triggerTime) {
+			/* find the event at triggerTime to cancel */
+			if (event == scan) {
+				prev.next = scan.next;
+				return;
+			}
+			prev = scan;
+			scan = scan.next;
+		}
+	}
+
+	@Override
+	Event poll() {
+		final Event event = firstEvent.next;
+		firstEvent.next = event.next;
+		return event;
+	}
+
+	@Override
+	boolean contains(final Event event) {
+		Event scan = firstEvent.next;
+		while (scan.triggerTime <= event.triggerTime) {
+			/* find the event at triggerTime */
+			if (event == scan) {
+				return true;
+			}
+			scan = scan.next;
+		}
+		return false;
+	}
+
+	@Override
+	void clear() {
+		firstEvent.next = lastEvent;
+	}
+
+	@Override
+	boolean isEmpty() {
+		return firstEvent.next == lastEvent;
+	}
+
+	@Override
+	void forEach(final Consumer<Event> action) {
+		for (Event scan = firstEvent.next; scan != lastEvent; scan = scan.next) {
+			action.accept(scan);
+		}
+	}
+
+	@Override
+	long nextTriggerTime(final Event[] idleEvents) {
+		Event scan = firstEvent.next;
+		while (scan != lastEvent && isIdle(scan, idleEvents)) {
+			scan = scan.next;
+		}
+		return scan.triggerTime;
+	}
+
+}
@@ -0,0 +1,657 @@
+package libsidplay.common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Snapshot of an emulated machine. The state of all components reachable from
+ * a root object (e.g. the HardwareEnsemble) is saved in a compact versioned
+ * binary format and restored into a machine of the same configuration, without
+ * replaying any cycle.
+ *
+ * Components are found by reflection: every non-static field declared by a
+ * class of the emulation packages (libsidplay and builder.resid, except
+ * configuration and tunes) is part of the machine state, unless it is annotated
+ * by {@link NoMachineState} (e.g. audio output). Final references define the
+ * structure of the machine, they are not saved. Objects of final
+ * {@link NoMachineState} references (e.g. calculated tables) and constants
+ * (e.g. ROM banks) are part of the structure without any state. References to
+ * configuration, drivers or lambdas are left untouched on restore.
+ *
+ * State, that cannot be saved by reflection (e.g. collections, buffers or
+ * positions in external files), is rejected with an IOException, unless the
+ * field is annotated by {@link NoMachineState} and the component saves it by
+ * itself as a {@link MachineStateHook}.
+ *
+ * Pending events are saved in the order they fire. Pending events that do not
+ * belong to the machine (e.g. the player's timer) are kept on restore, their
+ * trigger time is moved by the time difference.
+ *
+ * <B>Note:</B> Must be called by the thread clocking the machine.
+ */
+public final class MachineState {
+
+	/**
+	 * File format marker "JSNP".
+	 */
+	private static final int MAGIC = 0x4a534e50;
+
+	/**
+	 * Increase, if the file format changes!
+	 */
+	private static final int VERSION = 2;
+
+	private static final String[] MACHINE_PACKAGES = { "libsidplay.", "builder.resid." };
+
+	private static final String[] NON_MACHINE_PACKAGES = { "libsidplay.config.", "libsidplay.sidtune." };
+
+	private static final String[] RUNTIME_PACKAGES = { "java.", "javax.", "jdk.", "sun." };
+
+	private static final int NULL = 0, ID = 1, ENUM = 2, STRING = 3, OPAQUE = 4;
+
+	/**
+	 * Reference of an object, that does not belong to the machine.
+	 */
+	private static final Object KEEP = new Object();
+
+	/**
+	 * Fields of a class of the machine (super class first).
+	 */
+	private static final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>() {
+		@Override
+		protected Field[] computeValue(Class<?> type) {
+			final List<Field> fields = new ArrayList<>();
+			if (type.getSuperclass() != null) {
+				for (Field field : get(type.getSuperclass())) {
+					fields.add(field);
+				}
+			}
+			if (isMachinePackage(type.getName())) {
+				for (Field field : type.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+						field.setAccessible(true);
+						fields.add(field);
+					}
+				}
+			}
+			return fields.toArray(new Field[0]);
+		}
+	};
+
+	/**
+	 * Constants (static final references) of a class of the machine.
+	 */
+	private static final ClassValue<Field[]> CONSTANTS = new ClassValue<Field[]>() {
+		@Override
+		protected Field[] computeValue(Class<?> type) {
+			final List<Field> fields = new ArrayList<>();
+			if (isMachinePackage(type.getName())) {
+				for (Field field : type.getDeclaredFields()) {
+					final int modifiers = field.getModifiers();
+					if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers) && !field.getType().isPrimitive()
+							&& !field.isSynthetic()) {
+						field.setAccessible(true);
+						fields.add(field);
+					}
+				}
+			}
+			return fields.toArray(new Field[0]);
+		}
+	};
+
+	/**
+	 * Structure of a class to detect snapshots of a different machine or version.
+	 */
+	private static final ClassValue<String> SIGNATURE = new ClassValue<String>() {
+		@Override
+		protected String computeValue(Class<?> type) {
+			final StringBuilder signature = new StringBuilder(type.getName());
+			for (Field field : FIELDS.get(type)) {
+				signature.append(',').append(field.getName()).append(':').append(field.getType().getName());
+			}
+			return signature.toString();
+		}
+	};
+
+	/**
+	 * Reference to an object of the machine.
+	 */
+	private static final class Reference {
+		private final Object object;
+		private final int parentId;
+		private final String name;
+		private final boolean stateless;
+
+		private Reference(Object object, int parentId, String name, boolean stateless) {
+			this.object = object;
+			this.parentId = parentId;
+			this.name = name;
+			this.stateless = stateless;
+		}
+	}
+
+	/**
+	 * All objects of the machine, each object gets a number. Objects reachable by
+	 * final references are numbered first, then array elements and then objects
+	 * reachable by other references, therefore numbering does not depend on the
+	 * state of the machine. The path to each object is part of the signature, a
+	 * snapshot of a machine with a different structure is rejected.
+	 *
+	 * Objects reachable by final {@link NoMachineState} references (e.g. tables,
+	 * that mutable references point to) and constants of the classes belong to the
+	 * structure, but are stateless. Otherwise, constants would be numbered depending on the
+	 * state (e.g. ROM banks of the current memory configuration).
+	 */
+	private static final class Registry {
+		private final List<Object> objects = new ArrayList<>();
+		private final Map<Object, Integer> ids = new IdentityHashMap<>();
+		private final BitSet stateless = new BitSet();
+		private final List<EventScheduler> schedulers = new ArrayList<>();
+		private final CRC32 signature = new CRC32();
+		private final Set<Class<?>> classes = new HashSet<>();
+
+		private Registry(Object root) throws IOException {
+			final Deque<Integer> structural = new ArrayDeque<>();
+			final Deque<Reference> elements = new ArrayDeque<>();
+			final Deque<Reference> mutable = new ArrayDeque<>();
+			register(new Reference(root, -1, "root", false), structural);
+			while (true) {
+				if (!structural.isEmpty()) {
+					expand(structural.poll(), structural, elements, mutable);
+				} else if (!elements.isEmpty()) {
+					register(elements.poll(), structural);
+				} else if (!mutable.isEmpty()) {
+					register(mutable.poll(), structural);
+				} else {
+					break;
+				}
+			}
+		}
+
+		private void expand(int id, Deque<Integer> structural, Deque<Reference> elements, Deque<Reference> mutable)
+				throws IOException {
+			final Object object = objects.get(id);
+			final boolean isStateless = stateless.get(id);
+			if (object instanceof Object[]) {
+				final Object[] array = (Object[]) object;
+				for (int i = 0; i < array.length; i++) {
+					if (array[i] != null) {
+						checkSupported(array[i], isStateless, object.getClass().getName() + "[" + i + "]");
+						elements.add(new Reference(array[i], id, String.valueOf(i), isStateless));
+					}
+				}
+			} else if (object instanceof ArrayList) {
+				final List<?> list = (List<?>) object;
+				for (int i = 0; i < list.size(); i++) {
+					if (list.get(i) != null) {
+						checkSupported(list.get(i), isStateless, "ArrayList[" + i + "]");
+						elements.add(new Reference(list.get(i), id, String.valueOf(i), isStateless));
+					}
+				}
+			} else if (!object.getClass().isArray()) {
+				for (Class<?> type = object.getClass(); type != null && classes.add(type); type = type
+						.getSuperclass()) {
+					for (Field field : CONSTANTS.get(type)) {
+						final Object value = get(field, null);
+						if (value != null) {
+							register(new Reference(value, id, field.getName(), true), structural);
+						}
+					}
+				}
+				for (Field field : FIELDS.get(object.getClass())) {
+					final boolean isFinal = Modifier.isFinal(field.getModifiers());
+					final boolean isExcluded = isExcluded(field);
+					if (field.getType().isPrimitive() || !isFinal && (isExcluded || isStateless)) {
+						continue;
+					}
+					final Object value = get(field, object);
+					if (value != null) {
+						checkSupported(value, isStateless || isExcluded, field.toString());
+						final Reference reference = new Reference(value, id, field.getName(),
+								isStateless || isExcluded);
+						if (isFinal) {
+							register(reference, structural);
+						} else {
+							mutable.add(reference);
+						}
+					}
+				}
+			}
+		}
+
+		private void register(Reference reference, Deque<Integer> structural) {
+			final Object object = reference.object;
+			if (isMachineObject(object) && !ids.containsKey(object)) {
+				final int id = objects.size();
+				ids.put(object, id);
+				objects.add(object);
+				stateless.set(id, reference.stateless);
+				structural.add(id);
+				if (object instanceof EventScheduler) {
+					schedulers.add((EventScheduler) object);
+				}
+				final Class<?> type = object.getClass();
+				final String typeSignature = type.isArray() ? type.getName() + Array.getLength(object)
+						: SIGNATURE.get(type);
+				signature.update((typeSignature + "@" + reference.parentId + "." + reference.name).getBytes());
+			}
+		}
+
+		private boolean hasState(int id) {
+			return !stateless.get(id);
+		}
+
+		/**
+		 * Reject state, that cannot be saved by reflection (objects of the Java
+		 * runtime, like collections, buffers or files).
+		 */
+		private void checkSupported(Object value, boolean isStateless, String location) throws IOException {
+			if (isStateless || isMachineObject(value) || value instanceof Enum || value instanceof String
+					|| value instanceof Boolean || value instanceof Character || value instanceof Class
+					|| value.getClass().isSynthetic()) {
+				return;
+			}
+			final String className = value.getClass().getName();
+			if (value instanceof Number && className.startsWith("java.lang.")) {
+				return;
+			}
+			for (String runtimePackage : RUNTIME_PACKAGES) {
+				if (className.startsWith(runtimePackage)) {
+					throw new IOException("Cannot save " + location + " (" + className + "), annotate it by @"
+							+ NoMachineState.class.getSimpleName() + " and implement "
+							+ MachineStateHook.class.getSimpleName());
+				}
+			}
+		}
+	}
+
+	private MachineState() {
+	}
+
+	/**
+	 * Save the machine state.
+	 *
+	 * @param root root object of the machine (e.g. HardwareEnsemble)
+	 * @param out  output stream to write the snapshot to (not closed)
+	 * @throws IOException I/O error
+	 */
+	public static void save(Object root, OutputStream out) throws IOException {
+		final Registry registry = new Registry(root);
+		final DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(MAGIC);
+		header.writeInt(VERSION);
+		header.flush();
+		final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			final DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater);
+			final DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(deflaterOut, 1 << 16));
+			dout.writeInt(registry.objects.size());
+			dout.writeLong(registry.signature.getValue());
+			for (int id = 0; id < registry.objects.size(); id++) {
+				if (registry.hasState(id)) {
+					writeObject(registry, registry.objects.get(id), dout);
+				}
+			}
+			for (EventScheduler scheduler : registry.schedulers) {
+				final List<Event> events = new ArrayList<>();
+				for (Event event : scheduler.getPendingEvents()) {
+					if (registry.ids.containsKey(event)) {
+						events.add(event);
+					}
+				}
+				dout.writeInt(events.size());
+				for (Event event : events) {
+					dout.writeInt(registry.ids.get(event));
+					dout.writeLong(event.triggerTime);
+				}
+			}
+			dout.flush();
+			deflaterOut.finish();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Restore the machine state.
+	 *
+	 * @param root root object of the machine (e.g. HardwareEnsemble)
+	 * @param in   input stream to read the snapshot from (not closed)
+	 * @throws IOException I/O error, unknown format or snapshot of a different
+	 *                     machine configuration
+	 */
+	public static void restore(Object root, InputStream in) throws IOException {
+		final DataInputStream header = new DataInputStream(in);
+		if (header.readInt() != MAGIC) {
+			throw new IOException("Not a machine state snapshot");
+		}
+		final int version = header.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported machine state snapshot version: " + version);
+		}
+		final Registry registry = new Registry(root);
+		final DataInputStream din = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in), 1 << 16));
+		if (din.readInt() != registry.objects.size() || din.readLong() != registry.signature.getValue()) {
+			throw new IOException("Machine state snapshot does not match the machine configuration");
+		}
+		// events of others keep their distance to the current time
+		final List<List<Event>> keptEvents = new ArrayList<>();
+		final long[] previousTimes = new long[registry.schedulers.size()];
+		for (int i = 0; i < previousTimes.length; i++) {
+			final EventScheduler scheduler = registry.schedulers.get(i);
+			final List<Event> kept = new ArrayList<>();
+			for (Event event : scheduler.getPendingEvents()) {
+				if (!registry.ids.containsKey(event)) {
+					kept.add(event);
+				}
+			}
+			keptEvents.add(kept);
+			previousTimes[i] = scheduler.currentTime;
+		}
+		for (int id = 0; id < registry.objects.size(); id++) {
+			if (registry.hasState(id)) {
+				readObject(registry, registry.objects.get(id), din);
+			}
+		}
+		for (int i = 0; i < previousTimes.length; i++) {
+			final EventScheduler scheduler = registry.schedulers.get(i);
+			final List<Event> events = new ArrayList<>();
+			for (int j = din.readInt(); j > 0; j--) {
+				final Event event = (Event) registry.objects.get(din.readInt());
+				event.triggerTime = din.readLong();
+				events.add(event);
+			}
+			for (Event event : keptEvents.get(i)) {
+				event.triggerTime += scheduler.currentTime - previousTimes[i];
+				events.add(event);
+			}
+			scheduler.setPendingEvents(events);
+		}
+	}
+
+	private static void writeObject(Registry registry, Object object, DataOutputStream out) throws IOException {
+		if (object instanceof byte[]) {
+			out.write((byte[]) object);
+		} else if (object instanceof boolean[]) {
+			for (boolean value : (boolean[]) object) {
+				out.writeBoolean(value);
+			}
+		} else if (object instanceof char[]) {
+			for (char value : (char[]) object) {
+				out.writeChar(value);
+			}
+		} else if (object instanceof short[]) {
+			for (short value : (short[]) object) {
+				out.writeShort(value);
+			}
+		} else if (object instanceof int[]) {
+			for (int value : (int[]) object) {
+				out.writeInt(value);
+			}
+		} else if (object instanceof long[]) {
+			for (long value : (long[]) object) {
+				out.writeLong(value);
+			}
+		} else if (object instanceof float[]) {
+			for (float value : (float[]) object) {
+				out.writeFloat(value);
+			}
+		} else if (object instanceof double[]) {
+			for (double value : (double[]) object) {
+				out.writeDouble(value);
+			}
+		} else if (object instanceof Object[]) {
+			for (Object value : (Object[]) object) {
+				writeReference(registry, value, out);
+			}
+		} else if (object instanceof ArrayList) {
+			final List<?> list = (List<?>) object;
+			out.writeInt(list.size());
+			for (Object value : list) {
+				writeReference(registry, value, out);
+			}
+		} else {
+			for (Field field : FIELDS.get(object.getClass())) {
+				if (Modifier.isFinal(field.getModifiers()) || isExcluded(field)) {
+					continue;
+				}
+				final Class<?> type = field.getType();
+				try {
+					if (type == boolean.class) {
+						out.writeBoolean(field.getBoolean(object));
+					} else if (type == byte.class) {
+						out.writeByte(field.getByte(object));
+					} else if (type == char.class) {
+						out.writeChar(field.getChar(object));
+					} else if (type == short.class) {
+						out.writeShort(field.getShort(object));
+					} else if (type == int.class) {
+						out.writeInt(field.getInt(object));
+					} else if (type == long.class) {
+						out.writeLong(field.getLong(object));
+					} else if (type == float.class) {
+						out.writeFloat(field.getFloat(object));
+					} else if (type == double.class) {
+						out.writeDouble(field.getDouble(object));
+					} else {
+						writeReference(registry, field.get(object), out);
+					}
+				} catch (IllegalAccessException e) {
+					throw new IOException(e);
+				}
+			}
+			if (object instanceof MachineStateHook) {
+				((MachineStateHook) object).saveState(out);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void readObject(Registry registry, Object object, DataInputStream in) throws IOException {
+		if (object instanceof byte[]) {
+			in.readFully((byte[]) object);
+		} else if (object instanceof boolean[]) {
+			final boolean[] array = (boolean[]) object;
+			for (int i = 0; i < array.length; i++) {
+				array[i] = in.readBoolean();
+			}
+		} else if (object instanceof char[]) {
+			final char[] array = (char[]) object;
+			for (int i = 0; i < array.length; i++) {
+				array[i] = in.readChar();
+			}
+		} else if (object instanceof short[]) {
+			final short[] array = (short[]) object;
+			for (int i = 0; i < array.length; i++) {
+				array[i] = in.readShort();
+			}
+		} else if (object instanceof int[]) {
+			final int[] array = (int[]) object;
+			for (int i = 0; i < array.length; i++) {
+				array[i] = in.readInt();
+			}
+		} else if (object instanceof long[]) {
+			final long[] array = (long[]) object;
+			for (int i = 0; i < array.length; i++) {
+				array[i] = in.readLong();
+			}
+		} else if (object instanceof float[]) {
+			final float[] array = (float[]) object;
+			for (int i = 0; i < array.length; i++) {
+				array[i] = in.readFloat();
+			}
+		} else if (object instanceof double[]) {
+			final double[] array = (double[]) object;
+			for (int i = 0; i < array.length; i++) {
+				array[i] = in.readDouble();
+			}
+		} else if (object instanceof Object[]) {
+			final Object[] array = (Object[]) object;
+			for (int i = 0; i < array.length; i++) {
+				final Object value = readReference(registry, in);
+				if (value != KEEP) {
+					array[i] = value;
+				}
+			}
+		} else if (object instanceof ArrayList) {
+			final List<Object> list = (List<Object>) object;
+			final List<Object> values = new ArrayList<>();
+			for (int i = in.readInt(); i > 0; i--) {
+				values.add(readReference(registry, in));
+			}
+			if (!values.contains(KEEP)) {
+				list.clear();
+				list.addAll(values);
+			}
+		} else {
+			for (Field field : FIELDS.get(object.getClass())) {
+				if (Modifier.isFinal(field.getModifiers()) || isExcluded(field)) {
+					continue;
+				}
+				final Class<?> type = field.getType();
+				try {
+					if (type == boolean.class) {
+						field.setBoolean(object, in.readBoolean());
+					} else if (type == byte.class) {
+						field.setByte(object, in.readByte());
+					} else if (type == char.class) {
+						field.setChar(object, in.readChar());
+					} else if (type == short.class) {
+						field.setShort(object, in.readShort());
+					} else if (type == int.class) {
+						field.setInt(object, in.readInt());
+					} else if (type == long.class) {
+						field.setLong(object, in.readLong());
+					} else if (type == float.class) {
+						field.setFloat(object, in.readFloat());
+					} else if (type == double.class) {
+						field.setDouble(object, in.readDouble());
+					} else {
+						final Object value = readReference(registry, in);
+						if (value != KEEP) {
+							field.set(object, value);
+						}
+					}
+				} catch (IllegalAccessException | IllegalArgumentException e) {
+					throw new IOException("Cannot restore " + field, e);
+				}
+			}
+			if (object instanceof MachineStateHook) {
+				((MachineStateHook) object).restoreState(in);
+			}
+		}
+	}
+
+	private static void writeReference(Registry registry, Object value, DataOutputStream out) throws IOException {
+		final Integer id = registry.ids.get(value);
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (id != null) {
+			out.writeByte(ID);
+			out.writeInt(id);
+		} else if (value instanceof Enum) {
+			out.writeByte(ENUM);
+			out.writeUTF(((Enum<?>) value).getDeclaringClass().getName());
+			out.writeInt(((Enum<?>) value).ordinal());
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			out.writeUTF((String) value);
+		} else {
+			out.writeByte(OPAQUE);
+		}
+	}
+
+	private static Object readReference(Registry registry, DataInputStream in) throws IOException {
+		final int tag = in.readByte();
+		switch (tag) {
+		case NULL:
+			return null;
+		case ID:
+			return registry.objects.get(in.readInt());
+		case ENUM:
+			final String enumClassName = in.readUTF();
+			final int ordinal = in.readInt();
+			try {
+				return Class.forName(enumClassName, false, MachineState.class.getClassLoader())
+						.getEnumConstants()[ordinal];
+			} catch (ClassNotFoundException e) {
+				throw new IOException(e);
+			}
+		case STRING:
+			return in.readUTF();
+		case OPAQUE:
+			return KEEP;
+		default:
+			throw new IOException("Corrupt machine state snapshot");
+		}
+	}
+
+	private static Object get(Field field, Object object) throws IOException {
+		try {
+			return field.get(object);
+		} catch (IllegalAccessException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static boolean isExcluded(Field field) {
+		return field.isAnnotationPresent(NoMachineState.class);
+	}
+
+	private static boolean isMachineObject(Object object) {
+		if (object == null || object instanceof Enum || object instanceof EventQueue
+				|| object instanceof ThreadSafeEventQueue) {
+			// pending events are saved separately
+			return false;
+		}
+		final Class<?> type = object.getClass();
+		if (type.isArray() || type == ArrayList.class) {
+			return true;
+		}
+		if (type.isSynthetic()) {
+			// lambda
+			return false;
+		}
+		for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+			if (isMachinePackage(clazz.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isMachinePackage(String className) {
+		for (String nonMachinePackage : NON_MACHINE_PACKAGES) {
+			if (className.startsWith(nonMachinePackage)) {
+				return false;
+			}
+		}
+		for (String machinePackage : MACHINE_PACKAGES) {
+			if (className.startsWith(machinePackage)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
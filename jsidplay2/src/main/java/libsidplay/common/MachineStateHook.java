@@ -0,0 +1,30 @@
+package libsidplay.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Machine component with state, that {@link MachineState} cannot save by
+ * reflection (e.g. collections or positions in external files). The component
+ * saves and restores it by itself, after its other fields.
+ */
+public interface MachineStateHook {
+
+	/**
+	 * Save the state of this component.
+	 *
+	 * @param out output to write the state to
+	 * @throws IOException I/O error
+	 */
+	void saveState(DataOutput out) throws IOException;
+
+	/**
+	 * Restore the state of this component saved by {@link #saveState}.
+	 *
+	 * @param in input to read the state from
+	 * @throws IOException I/O error or state does not fit the component (e.g.
+	 *                     another image is attached)
+	 */
+	void restoreState(DataInput in) throws IOException;
+}
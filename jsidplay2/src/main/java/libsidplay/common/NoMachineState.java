@@ -0,0 +1,19 @@
+package libsidplay.common;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Field of a machine component, that is not part of the machine state saved by
+ * {@link MachineState} (e.g. pre-calculated tables, audio or video output and
+ * runtime plumbing like event queues or worker threads). Objects of a final
+ * field belong to the structure of the machine without any state.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface NoMachineState {
+}
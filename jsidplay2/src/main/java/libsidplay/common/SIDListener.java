@@ -4,4 +4,16 @@ public interface SIDListener {
 
 	void write(int addr, byte data);
 
+	/**
+	 * SID register write, that is aware of the SID chip number (mirrored
+	 * addresses of the same SID chip can't be told apart, otherwise).
+	 *
+	 * @param sidNum SID chip number
+	 * @param addr   SID register address
+	 * @param data   SID register value
+	 */
+	default void write(int sidNum, int addr, byte data) {
+		write(addr, data);
+	}
+
 }
\ No newline at end of file
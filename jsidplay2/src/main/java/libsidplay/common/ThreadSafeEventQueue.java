@@ -0,0 +1,126 @@
+package libsidplay.common;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free multi producer single consumer queue to inject events into the
+ * emulation thread. Any thread can add events, only the emulation thread fires
+ * them.
+ *
+ * Queue depth and injection latency (time between adding and firing an event)
+ * are counted.
+ */
+public final class ThreadSafeEventQueue {
+
+	private static final class Injection {
+		private final Event event;
+		private final long injectionTime;
+
+		private Injection(Event event) {
+			this.event = event;
+			this.injectionTime = System.nanoTime();
+		}
+	}
+
+	private final Queue<Injection> queue = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * Statistics, written by the emulation thread only.
+	 */
+	private volatile long count, totalLatency, maxLatency;
+
+	/**
+	 * Add event (any thread).
+	 *
+	 * @param event event to fire by the emulation thread
+	 */
+	void add(final Event event) {
+		size.incrementAndGet();
+		queue.add(new Injection(event));
+	}
+
+	/**
+	 * Fire the next event (emulation thread only).
+	 *
+	 * @return false, if the queue was empty
+	 * @throws InterruptedException
+	 */
+	boolean fireNext() throws InterruptedException {
+		final Injection injection = queue.poll();
+		if (injection == null) {
+			return false;
+		}
+		size.decrementAndGet();
+		final long latency = System.nanoTime() - injection.injectionTime;
+		count = count + 1;
+		totalLatency = totalLatency + latency;
+		if (latency > maxLatency) {
+			maxLatency = latency;
+		}
+		injection.event.event();
+		return true;
+	}
+
+	/**
+	 * Fire all events in one batch, that have been added so far (emulation thread
+	 * only). Events added by fired events wait for the next batch.
+	 *
+	 * @throws InterruptedException
+	 */
+	void fireAll() throws InterruptedException {
+		int n = size.get();
+		while (n-- > 0) {
+			if (!fireNext()) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Remove all events, that have not been fired yet.
+	 */
+	void clear() {
+		while (queue.poll() != null) {
+			size.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return number of events waiting to be fired
+	 */
+	public int getSize() {
+		return Math.max(0, size.get());
+	}
+
+	/**
+	 * @return number of events fired so far
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return average injection latency in ms
+	 */
+	public double getAverageLatency() {
+		final long count = this.count;
+		return count == 0 ? 0 : totalLatency / (count * 1000000.);
+	}
+
+	/**
+	 * @return maximum injection latency in ms
+	 */
+	public double getMaxLatency() {
+		return maxLatency / 1000000.;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("size=%d, count=%d, latency avg=%.2fms max=%.2fms", getSize(), getCount(),
+				getAverageLatency(), getMaxLatency());
+	}
+}
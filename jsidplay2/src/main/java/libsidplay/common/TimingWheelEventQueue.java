@@ -0,0 +1,428 @@
+package libsidplay.common;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Consumer;
+
+/**
+ * Event queue for many pending events (C64, C1541, CIA timers, REU, multiple
+ * SIDs, video drivers).
+ *
+ * Events firing within the next {@link #WHEEL_SIZE} clocks (phi1 and phi2
+ * counted separately) are kept in a timing wheel, one slot per clock. Each slot
+ * is a doubly linked list of events with identical trigger time in the order
+ * they have been added. A two-level occupancy bitmap locates the next used slot
+ * with two bit scans. Events further in the future are kept in a heap and move
+ * into the wheel as soon as the wheel reaches them. Events scheduled before the
+ * current time of the wheel (only possible with absolute scheduling) are kept
+ * in a small sorted list and fire first, like with the linked list event queue.
+ *
+ * Insertion, cancellation and removal of near-term events are O(1), far-future
+ * events cost O(log n).
+ */
+final class TimingWheelEventQueue extends EventQueue {
+
+	/**
+	 * Number of slots of the timing wheel (must be 64 * 64 to fit the occupancy
+	 * summary bitmap into one long).
+	 */
+	private static final int WHEEL_SIZE = 1 << 12;
+
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+	/**
+	 * First and last event of each slot.
+	 */
+	private final Event[] heads = new Event[WHEEL_SIZE], tails = new Event[WHEEL_SIZE];
+
+	/**
+	 * Occupancy bitmap, one bit per slot.
+	 */
+	private final long[] occupied = new long[WHEEL_SIZE >> 6];
+
+	/**
+	 * Summary bitmap, one bit per non-empty word of the occupancy bitmap.
+	 */
+	private long summary;
+
+	/**
+	 * Lowest trigger time the timing wheel contains.
+	 */
+	private long wheelTime;
+
+	/**
+	 * Far-future events as binary min-heap ordered by trigger time and sequence.
+	 */
+	private Event[] heap = new Event[64];
+
+	private int heapSize;
+
+	/**
+	 * Lowest trigger time of the far-future heap or Long.MAX_VALUE if empty.
+	 */
+	private long heapMin = Long.MAX_VALUE;
+
+	/**
+	 * Sequence number to keep the order of far-future events with identical
+	 * trigger time.
+	 */
+	private long sequence;
+
+	/**
+	 * Events scheduled before the current time of the timing wheel, sorted by
+	 * trigger time.
+	 */
+	private Event overdue;
+
+	@Override
+	void add(final Event event) {
+		final long triggerTime = event.triggerTime;
+		event.pending = true;
+		if (triggerTime < wheelTime) {
+			addOverdue(event);
+		} else if (triggerTime - wheelTime < WHEEL_SIZE) {
+			addToWheel(event);
+		} else {
+			event.sequence = sequence++;
+			addToHeap(event);
+		}
+	}
+
+	@Override
+	void remove(final Event event) {
+		if (!event.pending) {
+			return;
+		}
+		event.pending = false;
+		if (event.heapIndex >= 0) {
+			removeFromHeap(event.heapIndex);
+		} else if (event.triggerTime < wheelTime) {
+			removeOverdue(event);
+		} else {
+			removeFromWheel(event);
+		}
+	}
+
+	@Override
+	Event poll() {
+		Event event = overdue;
+		if (event != null) {
+			overdue = event.next;
+			if (overdue != null) {
+				overdue.prev = null;
+			}
+			event.pending = false;
+			return event;
+		}
+		if (summary != 0) {
+			final int slot = firstOccupiedSlot();
+			event = heads[slot];
+			if (heapMin >= event.triggerTime) {
+				final Event next = event.next;
+				heads[slot] = next;
+				if (next == null) {
+					tails[slot] = null;
+					final int word = slot >> 6;
+					if ((occupied[word] &= ~(1L << slot)) == 0) {
+						summary &= ~(1L << word);
+					}
+				} else {
+					next.prev = null;
+				}
+				event.pending = false;
+				advance(event.triggerTime);
+				return event;
+			}
+		} else if (heapSize == 0) {
+			throw new RuntimeException("Event scheduler ran out of events to execute");
+		}
+		event = heap[0];
+		removeFromHeap(0);
+		event.pending = false;
+		advance(event.triggerTime);
+		return event;
+	}
+
+	@Override
+	boolean contains(final Event event) {
+		return event.pending;
+	}
+
+	@Override
+	void clear() {
+		for (Event event = overdue; event != null; event = event.next) {
+			event.pending = false;
+		}
+		overdue = null;
+		for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+			for (Event event = heads[slot]; event != null; event = event.next) {
+				event.pending = false;
+			}
+		}
+		Arrays.fill(heads, null);
+		Arrays.fill(tails, null);
+		Arrays.fill(occupied, 0);
+		summary = 0;
+		for (int i = 0; i < heapSize; i++) {
+			heap[i].pending = false;
+			heap[i].heapIndex = -1;
+			heap[i] = null;
+		}
+		heapSize = 0;
+		heapMin = Long.MAX_VALUE;
+		sequence = 0;
+		wheelTime = 0;
+	}
+
+	@Override
+	boolean isEmpty() {
+		return overdue == null && summary == 0 && heapSize == 0;
+	}
+
+	@Override
+	void forEach(final Consumer<Event> action) {
+		for (Event event = overdue; event != null; event = event.next) {
+			action.accept(event);
+		}
+		if (summary != 0) {
+			for (int slot = firstOccupiedSlot(); slot != -1; slot = nextOccupiedSlot(slot)) {
+				for (Event event = heads[slot]; event != null; event = event.next) {
+					action.accept(event);
+				}
+			}
+		}
+		final Event[] farFuture = Arrays.copyOf(heap, heapSize);
+		Arrays.sort(farFuture, Comparator.<Event>comparingLong(event -> event.triggerTime)
+				.thenComparingLong(event -> event.sequence));
+		for (Event event : farFuture) {
+			action.accept(event);
+		}
+	}
+
+	@Override
+	long nextTriggerTime(final Event[] idleEvents) {
+		for (Event event = overdue; event != null; event = event.next) {
+			if (!isIdle(event, idleEvents)) {
+				return event.triggerTime;
+			}
+		}
+		if (summary != 0) {
+			for (int slot = firstOccupiedSlot(); slot != -1; slot = nextOccupiedSlot(slot)) {
+				for (Event event = heads[slot]; event != null; event = event.next) {
+					if (!isIdle(event, idleEvents)) {
+						// far-future events fire after all events of the wheel
+						return event.triggerTime;
+					}
+				}
+			}
+		}
+		if (heapSize == 0 || !isIdle(heap[0], idleEvents)) {
+			return heapMin;
+		}
+		long triggerTime = Long.MAX_VALUE;
+		for (int i = 1; i < heapSize; i++) {
+			if (!isIdle(heap[i], idleEvents)) {
+				triggerTime = Math.min(triggerTime, heap[i].triggerTime);
+			}
+		}
+		return triggerTime;
+	}
+
+	/**
+	 * Advance the timing wheel to the specified time and move far-future events,
+	 * that are now in reach, from the heap into the wheel. Any event added later
+	 * with the same trigger time will be appended behind them.
+	 *
+	 * @param time current time
+	 */
+	private void advance(final long time) {
+		if (time <= wheelTime) {
+			return;
+		}
+		wheelTime = time;
+		while (heapMin - time < WHEEL_SIZE) {
+			final Event event = heap[0];
+			removeFromHeap(0);
+			addToWheel(event);
+		}
+	}
+
+	//
+	// Timing wheel
+	//
+
+	private void addToWheel(final Event event) {
+		final int slot = (int) event.triggerTime & WHEEL_MASK;
+		final Event tail = tails[slot];
+		event.next = null;
+		event.prev = tail;
+		if (tail == null) {
+			heads[slot] = event;
+			occupied[slot >> 6] |= 1L << slot;
+			summary |= 1L << (slot >> 6);
+		} else {
+			tail.next = event;
+		}
+		tails[slot] = event;
+	}
+
+	private void removeFromWheel(final Event event) {
+		final int slot = (int) event.triggerTime & WHEEL_MASK;
+		final Event prev = event.prev, next = event.next;
+		if (prev == null) {
+			heads[slot] = next;
+		} else {
+			prev.next = next;
+		}
+		if (next == null) {
+			tails[slot] = prev;
+		} else {
+			next.prev = prev;
+		}
+		if (heads[slot] == null) {
+			final int word = slot >> 6;
+			if ((occupied[word] &= ~(1L << slot)) == 0) {
+				summary &= ~(1L << word);
+			}
+		}
+	}
+
+	/**
+	 * @return occupied slot of the timing wheel with the lowest trigger time (the
+	 *         wheel must not be empty)
+	 */
+	private int firstOccupiedSlot() {
+		return occupiedSlotFrom((int) wheelTime & WHEEL_MASK);
+	}
+
+	/**
+	 * @param slot occupied slot of the timing wheel
+	 * @return next occupied slot of the timing wheel with a higher trigger time or
+	 *         -1
+	 */
+	private int nextOccupiedSlot(final int slot) {
+		final int from = (int) wheelTime & WHEEL_MASK;
+		final int next = occupiedSlotFrom(slot + 1 & WHEEL_MASK);
+		return (next - from & WHEEL_MASK) > (slot - from & WHEEL_MASK) ? next : -1;
+	}
+
+	/**
+	 * @param from first slot to check
+	 * @return first occupied slot of the timing wheel starting at the specified
+	 *         slot, wraps around (the wheel must not be empty)
+	 */
+	private int occupiedSlotFrom(final int from) {
+		int word = from >> 6;
+		final long bits = occupied[word] & -1L << from;
+		if (bits != 0) {
+			return word << 6 | Long.numberOfTrailingZeros(bits);
+		}
+		long words = summary & -2L << word;
+		if (words == 0) {
+			// wrap around
+			words = summary;
+		}
+		word = Long.numberOfTrailingZeros(words);
+		return word << 6 | Long.numberOfTrailingZeros(occupied[word]);
+	}
+
+	//
+	// Far-future heap
+	//
+
+	private void addToHeap(final Event event) {
+		if (heapSize == heap.length) {
+			heap = Arrays.copyOf(heap, heapSize << 1);
+		}
+		siftUp(heapSize++, event);
+		heapMin = heap[0].triggerTime;
+	}
+
+	private void removeFromHeap(final int index) {
+		final Event removed = heap[index];
+		removed.heapIndex = -1;
+		final Event last = heap[--heapSize];
+		heap[heapSize] = null;
+		if (index != heapSize) {
+			siftDown(index, last);
+			if (heap[index] == last) {
+				siftUp(index, last);
+			}
+		}
+		heapMin = heapSize > 0 ? heap[0].triggerTime : Long.MAX_VALUE;
+	}
+
+	private void siftUp(int index, final Event event) {
+		while (index > 0) {
+			final int parent = index - 1 >> 1;
+			final Event e = heap[parent];
+			if (!before(event, e)) {
+				break;
+			}
+			heap[index] = e;
+			e.heapIndex = index;
+			index = parent;
+		}
+		heap[index] = event;
+		event.heapIndex = index;
+	}
+
+	private void siftDown(int index, final Event event) {
+		final int half = heapSize >> 1;
+		while (index < half) {
+			int child = (index << 1) + 1;
+			Event c = heap[child];
+			final int right = child + 1;
+			if (right < heapSize && before(heap[right], c)) {
+				c = heap[child = right];
+			}
+			if (!before(c, event)) {
+				break;
+			}
+			heap[index] = c;
+			c.heapIndex = index;
+			index = child;
+		}
+		heap[index] = event;
+		event.heapIndex = index;
+	}
+
+	private static boolean before(final Event e1, final Event e2) {
+		return e1.triggerTime < e2.triggerTime || e1.triggerTime == e2.triggerTime && e1.sequence < e2.sequence;
+	}
+
+	//
+	// Overdue events
+	//
+
+	private void addOverdue(final Event event) {
+		Event prev = null, scan = overdue;
+		while (scan != null && scan.triggerTime <= event.triggerTime) {
+			prev = scan;
+			scan = scan.next;
+		}
+		event.prev = prev;
+		event.next = scan;
+		if (prev == null) {
+			overdue = event;
+		} else {
+			prev.next = event;
+		}
+		if (scan != null) {
+			scan.prev = event;
+		}
+	}
+
+	private void removeOverdue(final Event event) {
+		final Event prev = event.prev, next = event.next;
+		if (prev == null) {
+			overdue = next;
+		} else {
+			prev.next = next;
+		}
+		if (next != null) {
+			next.prev = prev;
+		}
+	}
+
+}
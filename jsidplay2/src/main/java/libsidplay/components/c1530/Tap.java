@@ -29,6 +29,8 @@
  */
 package libsidplay.components.c1530;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
@@ -37,13 +39,16 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 
+import libsidplay.common.MachineStateHook;
+import libsidplay.common.NoMachineState;
+
 /**
  * TAP filetype implementation.
  *
  * @author Ken Händel
  *
  */
-public class Tap {
+public class Tap implements MachineStateHook {
 	private static final Charset ISO88591 = Charset.forName("ISO-8859-1");
 
 	/**
@@ -68,8 +73,10 @@ public class Tap {
 	public static final int TAP_HDR_LEN = 16;
 
 	/**
-	 * TAP file descriptor.
+	 * TAP file descriptor (its position is saved by
+	 * {@link #saveState(DataOutput)}).
 	 */
+	@NoMachineState
 	RandomAccessFile fd;
 
 	/**
@@ -232,4 +239,20 @@ public class Tap {
 		fd.seek(offset);
 	}
 
+	@Override
+	public void saveState(DataOutput out) throws IOException {
+		out.writeLong(fd != null ? fd.getFilePointer() : -1);
+	}
+
+	@Override
+	public void restoreState(DataInput in) throws IOException {
+		final long position = in.readLong();
+		if (position == -1 != (fd == null)) {
+			throw new IOException("Machine state snapshot of another tape image");
+		}
+		if (fd != null) {
+			fd.seek(position);
+		}
+	}
+
 }
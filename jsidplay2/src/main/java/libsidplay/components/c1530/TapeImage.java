@@ -28,6 +28,8 @@ package libsidplay.components.c1530;
 import java.io.File;
 import java.io.IOException;
 
+import libsidplay.common.NoMachineState;
+
 /**
  * Tape image implementation.
  *
@@ -44,6 +46,7 @@ public class TapeImage {
 	/**
 	 * Tape image file.
 	 */
+	@NoMachineState
 	private File tapeFile;
 
 	/**
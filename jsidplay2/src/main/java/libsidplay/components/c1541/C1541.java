@@ -56,7 +56,7 @@ public final class C1541 {
 	/**
 	 * Size of the floppy RAM.
 	 */
-	private static final int RAM_SIZE = 0x800;
+	static final int RAM_SIZE = 0x800;
 	/**
 	 * Size of the floppy RAM expansion.
 	 */
@@ -126,6 +126,11 @@ public final class C1541 {
 	 */
 	private int irqCount;
 
+	/**
+	 * Idle loop detection to fast-forward the floppy.
+	 */
+	private final IdleLoop idleLoop = new IdleLoop(this);
+
 	private String diskName;
 
 	/**
@@ -189,6 +194,7 @@ public final class C1541 {
 			@Override
 			public void diskAttachedDetached(String imageName, boolean attached) {
 				setDiskName(attached ? imageName : null);
+				wakeUp();
 			}
 		};
 
@@ -201,6 +207,7 @@ public final class C1541 {
 			viaDc.rotateDisk();
 			return flagV;
 		});
+		cpu.setLoopHandler(idleLoop::jump);
 		cpu.setMemoryHandler(address -> {
 			/**
 			 * Read from address
@@ -226,9 +233,11 @@ public final class C1541 {
 					return getRAM()[address & 0x7ff];
 				}
 				if (chip == 0x1800) {
+					idleLoop.read(getBusController(), address & 0xf);
 					return getBusController().read(address & 0xf);
 				}
 				if (chip == 0x1c00) {
+					idleLoop.read(getDiskController(), address & 0xf);
 					return getDiskController().read(address & 0xf);
 				}
 				/* Unconnected bus. */
@@ -245,17 +254,21 @@ public final class C1541 {
 			final int ramExpSelect = address >> 13;
 			if (ramExpSelect > 0 && ramExpSelect <= EXP_RAM_BANKS && getRAMExpEnabled()[ramExpSelect - 1]) {
 				// 8KB Ram expansion selected
+				idleLoop.write(RAM_SIZE + ((ramExpSelect - 1) << 13 | address & 0x1fff));
 				getRAMExpand()[ramExpSelect - 1][address & 0x1fff] = data;
 			}
 			if (address < 0x8000) {
 				final int chip = address & 0x1c00;
 				if (chip < RAM_SIZE) {
+					idleLoop.write(address & 0x7ff);
 					getRAM()[address & 0x7ff] = data;
 				}
 				if (chip == 0x1800) {
+					idleLoop.write(getBusController(), address & 0xf, data);
 					getBusController().write(address & 0xf, data);
 				}
 				if (chip == 0x1c00) {
+					idleLoop.write(getDiskController(), address & 0xf, data);
 					getDiskController().write(address & 0xf, data);
 				}
 			}
@@ -411,12 +424,60 @@ public final class C1541 {
 		viaBc.reset();
 		viaDc.reset();
 		irqCount = 0;
+		idleLoop.reset();
 		Arrays.fill(ram, (byte) 0);
 		for (int i = 0; i < EXP_RAM_BANKS; i++) {
 			Arrays.fill(ramExpand[i], (byte) 0);
 		}
 	}
 
+	/**
+	 * Fast-forward the floppy, while the CPU executes an idle loop and nothing else
+	 * is going on (motor off, VIA timers not due). Instead of executing complete
+	 * iterations of the loop, the clock advances.
+	 *
+	 * @param cycles maximum number of cycles to fast-forward
+	 * @return cycles fast-forwarded
+	 */
+	public int fastForward(final int cycles) {
+		return idleLoop.fastForward(cycles);
+	}
+
+	/**
+	 * Get cycles per iteration of the idle loop, the floppy is executing.
+	 *
+	 * @return cycles per iteration of the idle loop (0 means not idle)
+	 */
+	public int getIdleLoopCycles() {
+		return idleLoop.getPeriod();
+	}
+
+	/**
+	 * Get cycles fast-forwarded so far (statistics).
+	 *
+	 * @return cycles fast-forwarded
+	 */
+	public long getFastForwardedCycles() {
+		return idleLoop.getFastForwardedCycles();
+	}
+
+	/**
+	 * Something changed the floppy can see (e.g. IEC bus), it is not idle anymore.
+	 */
+	public void wakeUp() {
+		idleLoop.wakeUp();
+	}
+
+	/**
+	 * Fast-forward the floppy, while it is idle.
+	 *
+	 * @param fastForward fast-forward idle floppy
+	 * @see #fastForward(int)
+	 */
+	public void setIdleFastForward(final boolean fastForward) {
+		idleLoop.setEnabled(fastForward);
+	}
+
 	/**
 	 * Set ROM according to the floppy type.
 	 */
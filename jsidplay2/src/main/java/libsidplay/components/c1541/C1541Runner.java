@@ -6,13 +6,20 @@ import libsidplay.common.EventScheduler;
 
 public abstract class C1541Runner extends Event {
 	protected final EventScheduler c64Context, c1541Context;
+	protected final C1541 c1541;
 	private int conversionFactor, accum;
 	private long c64LastTime;
 
-	public C1541Runner(final EventScheduler c64Context, final EventScheduler c1541Context) {
+	/**
+	 * C1541 cycles postponed, while the C1541 executes an idle loop.
+	 */
+	private int parkedTicks;
+
+	public C1541Runner(final EventScheduler c64Context, final C1541 c1541) {
 		super("C64 permits C1541 to continue");
 		this.c64Context = c64Context;
-		this.c1541Context = c1541Context;
+		this.c1541Context = c1541.getEventScheduler();
+		this.c1541 = c1541;
 		this.c64LastTime = c64Context.getTime(Phase.PHI2);
 	}
 
@@ -34,15 +41,39 @@ public abstract class C1541Runner extends Event {
 		return wholeClocks;
 	}
 
+	/**
+	 * Fast-forward the idle C1541 (see {@link C1541#fastForward(int)}). Less
+	 * cycles than an iteration of the idle loop are postponed, unless the C1541 is
+	 * synchronized with the C64.
+	 *
+	 * @param ticks number of clock ticks that 1541 should advance
+	 * @param park  postpone less cycles than an iteration of the idle loop
+	 * @return number of clock ticks that 1541 should advance now
+	 */
+	protected final int fastForward(int ticks, final boolean park) {
+		ticks += parkedTicks;
+		ticks -= c1541.fastForward(ticks);
+		parkedTicks = park && ticks < c1541.getIdleLoopCycles() ? ticks : 0;
+		return ticks - parkedTicks;
+	}
+
 	public void setClockDivider(final CPUClock clock) {
 		conversionFactor = (int) (1000000.0 / clock.getCpuFrequency() * 65536.0 + 0.5);
 	}
 
 	public void reset() {
 		c64LastTime = c64Context.getTime(Phase.PHI2);
+		parkedTicks = 0;
 	}
 
 	public abstract void cancel();
 
+	/**
+	 * Wait until the C1541 has been clocked as requested, e.g. to access the state
+	 * of the C1541 by the C64 thread.
+	 */
+	public void waitUntilIdle() {
+	}
+
 	public abstract void synchronize(long offset);
 }
\ No newline at end of file
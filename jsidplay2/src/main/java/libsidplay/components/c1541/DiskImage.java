@@ -25,19 +25,24 @@
  */
 package libsidplay.components.c1541;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 
+import libsidplay.common.MachineStateHook;
+import libsidplay.common.NoMachineState;
+
 /**
  * Support of disk images.
  *
  * @author Ken Händel
  *
  */
-public abstract class DiskImage {
+public abstract class DiskImage implements MachineStateHook {
 	/**
 	 * Track containing the directory.
 	 */
@@ -70,8 +75,10 @@ public abstract class DiskImage {
 	 */
 	protected int[] trackSize = new int[GCR.MAX_GCR_TRACKS];
 	/**
-	 * Recently attached file handle.
+	 * Recently attached file handle (its position is saved by
+	 * {@link #saveState(DataOutput)}).
 	 */
+	@NoMachineState
 	protected RandomAccessFile fd;
 	/**
 	 * Recently attached file name.
@@ -250,4 +257,20 @@ public abstract class DiskImage {
 		}
 	}
 
+	@Override
+	public void saveState(DataOutput out) throws IOException {
+		out.writeLong(fd != null ? fd.getFilePointer() : -1);
+	}
+
+	@Override
+	public void restoreState(DataInput in) throws IOException {
+		final long position = in.readLong();
+		if (position == -1 != (fd == null)) {
+			throw new IOException("Machine state snapshot of another disk image: " + fileName);
+		}
+		if (fd != null) {
+			fd.seek(position);
+		}
+	}
+
 }
\ No newline at end of file
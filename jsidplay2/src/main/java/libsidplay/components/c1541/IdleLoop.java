@@ -0,0 +1,316 @@
+package libsidplay.components.c1541;
+
+import static libsidplay.config.IEmulationSystemProperties.C1541_IDLE_FAST_FORWARD;
+
+import libsidplay.common.Event;
+import libsidplay.common.EventScheduler;
+import libsidplay.common.NoMachineState;
+
+/**
+ * Detection of an idle loop of the floppy CPU, e.g. the main loop of the DOS or
+ * a fast loader waiting for the C64, while the motor is off.
+ *
+ * An iteration of the loop lasts from one jump to the head of the loop to the
+ * next (JMP, JSR or branch taken backwards). If the floppy is in exactly the
+ * same state after an iteration (CPU registers, RAM, VIAs) and nothing else
+ * happened (no timer underflow, no signal, no change of the IEC bus), all
+ * following iterations are the same. The floppy is idle then and can be
+ * fast-forwarded by complete iterations up to the next pending event instead of
+ * executing them. The result is exactly the same.
+ */
+final class IdleLoop {
+
+	/**
+	 * No loop head.
+	 */
+	private static final int NONE = -1;
+
+	/**
+	 * Maximum cycles of an iteration.
+	 */
+	private static final int MAX_ITERATION_CYCLES = 4096;
+
+	/**
+	 * Maximum number of bytes written by an iteration.
+	 */
+	private static final int MAX_WRITES = 32;
+
+	private final C1541 c1541;
+
+	@NoMachineState
+	private boolean enabled = C1541_IDLE_FAST_FORWARD;
+
+	/**
+	 * Address of the loop head, the loop head to avoid (iteration has failed).
+	 */
+	private int head = NONE, avoid = NONE;
+
+	/**
+	 * State at the loop head.
+	 */
+	private long headTime, registerState;
+	private int ifrBc, ifrDc, interruptConditions;
+	@NoMachineState
+	private long threadSafeEvents;
+
+	/**
+	 * Bytes written by the current iteration (RAM index or RAM expansion bank and
+	 * offset) and their values at the loop head.
+	 */
+	private final int[] writes = new int[MAX_WRITES];
+	private final byte[] headValues = new byte[MAX_WRITES];
+	private int writeCount;
+
+	/**
+	 * Current iteration does something, that is not idle.
+	 */
+	private boolean busy;
+
+	/**
+	 * Something changed from outside during the current iteration.
+	 */
+	private boolean disturbed;
+
+	/**
+	 * Cycles per iteration of the idle loop (0 means not idle).
+	 */
+	private int period;
+
+	/**
+	 * Statistics: Cycles fast-forwarded.
+	 */
+	@NoMachineState
+	private long fastForwardedCycles;
+
+	IdleLoop(C1541 c1541) {
+		this.c1541 = c1541;
+	}
+
+	void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		reset();
+	}
+
+	void reset() {
+		head = avoid = NONE;
+		period = 0;
+	}
+
+	/**
+	 * The CPU jumps to the head of a loop (JMP, JSR or branch taken backwards).
+	 *
+	 * @param address loop head
+	 */
+	void jump(final int address) {
+		if (!enabled) {
+			return;
+		}
+		if (!c1541.getDiskController().isIdle()) {
+			reset();
+			return;
+		}
+		final long time = c1541.getEventScheduler().getTime(Event.Phase.PHI2);
+		if (address == head) {
+			if (isDisturbed()) {
+				// try again with the next iteration
+				period = 0;
+				startIteration(address, time);
+			} else if (isHeadState()) {
+				period = (int) (time - headTime);
+				startIteration(address, time);
+			} else {
+				period = 0;
+				head = NONE;
+				avoid = address;
+			}
+		} else if (head == NONE ? address != avoid : time - headTime > MAX_ITERATION_CYCLES) {
+			period = 0;
+			avoid = head;
+			startIteration(address, time);
+		}
+	}
+
+	/**
+	 * The CPU writes RAM (must be called before the write).
+	 *
+	 * @param index RAM index or 0x800 + RAM expansion bank and offset
+	 */
+	void write(final int index) {
+		if (head == NONE) {
+			return;
+		}
+		for (int i = 0; i < writeCount; i++) {
+			if (writes[i] == index) {
+				return;
+			}
+		}
+		if (writeCount == MAX_WRITES) {
+			setBusy();
+			return;
+		}
+		writes[writeCount] = index;
+		headValues[writeCount++] = peek(index);
+	}
+
+	/**
+	 * The CPU reads a VIA register. Timers change over time and port A of the bus
+	 * controller is connected to the parallel cable.
+	 *
+	 * @param via  VIA
+	 * @param addr register
+	 */
+	void read(final VIACore via, final int addr) {
+		switch (addr) {
+		case VIACore.VIA_T1CL:
+		case VIACore.VIA_T1CH:
+		case VIACore.VIA_T2CL:
+		case VIACore.VIA_T2CH:
+			setBusy();
+			break;
+		case VIACore.VIA_PRA:
+		case VIACore.VIA_PRA_NHS:
+			if (via == c1541.getBusController()) {
+				setBusy();
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * The CPU writes a VIA register (must be called before the write). Only ports
+	 * without handshake are written by an idle loop, values do not change.
+	 *
+	 * @param via  VIA
+	 * @param addr register
+	 * @param data value to write
+	 */
+	void write(final VIACore via, final int addr, final byte data) {
+		switch (addr) {
+		case VIACore.VIA_PRA:
+			if (via.isCa2Handshake()) {
+				setBusy();
+			}
+			// $FALL-THROUGH$
+		case VIACore.VIA_PRA_NHS:
+			if (via == c1541.getBusController() || via.via[VIACore.VIA_PRA] != data
+					|| via.via[VIACore.VIA_PRA_NHS] != data) {
+				setBusy();
+			}
+			break;
+		case VIACore.VIA_PRB:
+			if (via.isCb2Handshake()) {
+				setBusy();
+			}
+			// $FALL-THROUGH$
+		case VIACore.VIA_DDRB:
+		case VIACore.VIA_DDRA:
+			if (via.via[addr] != data) {
+				setBusy();
+			}
+			break;
+		default:
+			setBusy();
+			break;
+		}
+	}
+
+	/**
+	 * Something changed from outside (e.g. IEC bus), the floppy is not idle
+	 * anymore.
+	 */
+	void wakeUp() {
+		period = 0;
+		disturbed = true;
+	}
+
+	/**
+	 * @return cycles per iteration of the idle loop (0 means not idle)
+	 */
+	int getPeriod() {
+		return period;
+	}
+
+	/**
+	 * @return cycles fast-forwarded so far
+	 */
+	long getFastForwardedCycles() {
+		return fastForwardedCycles;
+	}
+
+	/**
+	 * Fast-forward the floppy by complete iterations of the idle loop, if nothing
+	 * happened since the last loop head.
+	 *
+	 * @param cycles maximum number of cycles
+	 * @return cycles fast-forwarded
+	 */
+	int fastForward(final int cycles) {
+		if (period == 0 || cycles < period || busy || isDisturbed() || !c1541.getDiskController().isIdle()) {
+			return 0;
+		}
+		final int skipped = (int) c1541.getCPU().fastForward(period, cycles);
+		headTime += skipped;
+		fastForwardedCycles += skipped;
+		return skipped;
+	}
+
+	private void setBusy() {
+		busy = true;
+		period = 0;
+	}
+
+	private void startIteration(final int address, final long time) {
+		head = address;
+		headTime = time;
+		registerState = c1541.getCPU().getRegisterState();
+		ifrBc = c1541.getBusController().ifr;
+		ifrDc = c1541.getDiskController().ifr;
+		interruptConditions = getInterruptConditions();
+		threadSafeEvents = getThreadSafeEvents();
+		writeCount = 0;
+		busy = disturbed = false;
+	}
+
+	/**
+	 * @return something changed from outside since the loop head
+	 */
+	private boolean isDisturbed() {
+		return disturbed || interruptConditions != getInterruptConditions()
+				|| threadSafeEvents != getThreadSafeEvents();
+	}
+
+	/**
+	 * @return the floppy is in the same state as at the loop head
+	 */
+	private boolean isHeadState() {
+		if (busy || registerState != c1541.getCPU().getRegisterState() || ifrBc != c1541.getBusController().ifr
+				|| ifrDc != c1541.getDiskController().ifr) {
+			return false;
+		}
+		for (int i = 0; i < writeCount; i++) {
+			if (peek(writes[i]) != headValues[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int getInterruptConditions() {
+		return c1541.getBusController().interruptConditions + c1541.getDiskController().interruptConditions;
+	}
+
+	private long getThreadSafeEvents() {
+		final EventScheduler context = c1541.getEventScheduler();
+		return context.getThreadSafeQueue().getCount() + context.getThreadSafeKeyQueue().getCount();
+	}
+
+	private byte peek(final int index) {
+		if (index < C1541.RAM_SIZE) {
+			return c1541.getRAM()[index];
+		}
+		final int expansionIndex = index - C1541.RAM_SIZE;
+		return c1541.getRAMExpand()[expansionIndex >> 13][expansionIndex & 0x1fff];
+	}
+}
@@ -13,12 +13,12 @@ public class SameThreadC1541Runner extends C1541Runner {
 		}
 	};
 
-	public SameThreadC1541Runner(final EventScheduler c64Context, final EventScheduler c1541Context) {
-		super(c64Context, c1541Context);
+	public SameThreadC1541Runner(final EventScheduler c64Context, final C1541 c1541) {
+		super(c64Context, c1541);
 	}
 
-	private void clockC1541Context(long offset) {
-		final int targetTime = updateSlaveTicks(offset);
+	private void clockC1541Context(long offset, boolean park) {
+		final int targetTime = fastForward(updateSlaveTicks(offset), park);
 		if (targetTime <= 0) {
 			return;
 		}
@@ -53,12 +53,12 @@ public class SameThreadC1541Runner extends C1541Runner {
 
 	@Override
 	public void synchronize(long offset) {
-		clockC1541Context(offset);
+		clockC1541Context(offset, false);
 	}
 
 	@Override
 	public void event() throws InterruptedException {
-		synchronize(0);
+		clockC1541Context(0, true);
 		c64Context.schedule(this, 2000);
 	}
 
@@ -0,0 +1,176 @@
+package libsidplay.components.c1541;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import libsidplay.common.Event;
+import libsidplay.common.EventScheduler;
+import libsidplay.common.NoMachineState;
+
+/**
+ * Clock the C1541 in a separate thread, while the C64 continues.
+ *
+ * The C1541 runs behind the C64. Regularly, the C1541 is clocked up to the
+ * current C64 time in the background, but it may fall behind the maximum lag,
+ * only (the C64 waits otherwise). On each access of the C64 to the IEC bus the
+ * C64 waits for the C1541 to finish and clocks the rest up to the current C64
+ * time itself, exactly like {@link SameThreadC1541Runner}. Therefore the
+ * emulation results are the same.
+ *
+ * <B>Note:</B> A parallel cable signals the CIA of the C64, the C1541 is
+ * clocked by the C64 thread then.
+ */
+public class ThreadedC1541Runner extends C1541Runner {
+
+	private static final class DriveExecutor {
+		private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "C1541");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private final int maxLag;
+
+	private boolean notTerminated;
+
+	private final Event terminationEvent = new Event("Pause C1541") {
+		@Override
+		public void event() {
+			notTerminated = false;
+		}
+	};
+
+	/**
+	 * C1541 cycles requested, but not yet clocked by the C1541 thread. The C1541
+	 * thread owns the C1541 until all requested cycles have been clocked.
+	 */
+	@NoMachineState
+	private final AtomicLong pendingTicks = new AtomicLong();
+
+	@NoMachineState
+	private final Runnable clockTask = this::clockPendingTicks;
+
+	@NoMachineState
+	private volatile RuntimeException clockError;
+
+	/**
+	 * C64 thread waiting for the C1541 thread (parked), woken up each time
+	 * requested cycles have been clocked.
+	 */
+	@NoMachineState
+	private volatile Thread waitingThread;
+
+	@NoMachineState
+	private volatile boolean threaded = true;
+
+	/**
+	 * @param c64Context event context of the C64
+	 * @param c1541      the C1541
+	 * @param maxLag     maximum number of cycles the C1541 may fall behind the C64
+	 */
+	public ThreadedC1541Runner(final EventScheduler c64Context, final C1541 c1541, final int maxLag) {
+		super(c64Context, c1541);
+		this.maxLag = maxLag;
+	}
+
+	/**
+	 * Clock the C1541 in a separate thread or by the C64 thread (e.g. parallel
+	 * cable connected).
+	 *
+	 * @param threaded clock the C1541 in a separate thread
+	 */
+	public void setThreaded(final boolean threaded) {
+		this.threaded = threaded;
+	}
+
+	private void clockC1541Context(final int ticks) throws InterruptedException {
+		if (ticks <= 0) {
+			return;
+		}
+		c1541Context.schedule(terminationEvent, ticks, Event.Phase.PHI2);
+		notTerminated = true;
+		while (notTerminated) {
+			c1541Context.clock();
+		}
+	}
+
+	private void clockPendingTicks() {
+		try {
+			long ticks = pendingTicks.get();
+			do {
+				clockC1541Context(fastForward((int) ticks, true));
+				ticks = pendingTicks.addAndGet(-ticks);
+				LockSupport.unpark(waitingThread);
+			} while (ticks != 0);
+		} catch (Throwable e) {
+			clockError = e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+			pendingTicks.set(0);
+			LockSupport.unpark(waitingThread);
+		}
+	}
+
+	/**
+	 * Wait for the C1541 thread, until all requested cycles have been clocked.
+	 */
+	private void waitForC1541Thread(final long maxPendingTicks) {
+		if (pendingTicks.get() > maxPendingTicks) {
+			waitingThread = Thread.currentThread();
+			while (pendingTicks.get() > maxPendingTicks) {
+				LockSupport.park(this);
+			}
+			waitingThread = null;
+		}
+		final RuntimeException error = clockError;
+		if (error != null) {
+			clockError = null;
+			throw error;
+		}
+	}
+
+	@Override
+	public void reset() {
+		cancel();
+		super.reset();
+		c64Context.schedule(this, 0, Event.Phase.PHI2);
+	}
+
+	@Override
+	public void cancel() {
+		c64Context.cancel(this);
+		waitForC1541Thread(0);
+	}
+
+	@Override
+	public void waitUntilIdle() {
+		waitForC1541Thread(0);
+	}
+
+	@Override
+	public void synchronize(final long offset) {
+		final int ticks = updateSlaveTicks(offset);
+		waitForC1541Thread(0);
+		try {
+			clockC1541Context(fastForward(ticks, false));
+		} catch (final InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void event() throws InterruptedException {
+		if (threaded) {
+			final int ticks = updateSlaveTicks(0);
+			if (ticks > 0 && pendingTicks.getAndAdd(ticks) == 0) {
+				DriveExecutor.EXECUTOR.execute(clockTask);
+			}
+			waitForC1541Thread(maxLag);
+		} else {
+			synchronize(0);
+		}
+		c64Context.schedule(this, 2000);
+	}
+
+}
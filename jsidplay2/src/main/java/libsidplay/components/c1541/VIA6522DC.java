@@ -329,6 +329,16 @@ public abstract class VIA6522DC extends VIACore {
 		return (byteReadyActive & 4) != 0;
 	}
 
+	/**
+	 * Is the disk controller idle (motor off and no disk change in progress)? The
+	 * ports do not change over time, then.
+	 *
+	 * @return disk controller idle
+	 */
+	final boolean isIdle() {
+		return !isMotorOn() && attachClk == 0 && detachClk == 0 && attachDetachClk == 0;
+	}
+
 	@Override
 	protected final void setCa2(final int state) {
 		rotateDisk();
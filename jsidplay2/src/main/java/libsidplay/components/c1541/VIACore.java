@@ -195,6 +195,12 @@ public abstract class VIACore {
 
 	protected boolean enabled;
 
+	/**
+	 * Number of timer underflows and control line signals (to detect, that
+	 * something happened while the CPU has been idle).
+	 */
+	protected int interruptConditions;
+
 	private final Event t1Alarm;
 	private final Event t2Alarm;
 
@@ -204,7 +210,7 @@ public abstract class VIACore {
 		return (via[VIA_PCR] & 0x0a) == 0x02;
 	}
 
-	private boolean isCa2Handshake() {
+	boolean isCa2Handshake() {
 		return (via[VIA_PCR] & 0x0c) == 0x08;
 	}
 
@@ -216,7 +222,7 @@ public abstract class VIACore {
 		return (via[VIA_PCR] & 0x0e) == 0x08;
 	}
 
-	private boolean isCb2Handshake() {
+	boolean isCb2Handshake() {
 		return (via[VIA_PCR] & 0xc0) == 0x80;
 	}
 
@@ -381,6 +387,7 @@ public abstract class VIACore {
 	}
 
 	public final void signal(final int line, final int edge) {
+		interruptConditions++;
 		switch (line) {
 		case VIA_SIG_CA1:
 			if ((edge != 0 ? 1 : 0) == (via[VIA_PCR] & 0x01)) {
@@ -739,6 +746,7 @@ public abstract class VIACore {
 					tai += tal + 2;
 					alarmSet(this, tai);
 				}
+				interruptConditions++;
 				ifr |= VIA_IM_T1;
 				checkInterrupts();
 			}
@@ -747,6 +755,7 @@ public abstract class VIACore {
 		t2Alarm = new Event(name + "T2") {
 			@Override
 			public void event() {
+				interruptConditions++;
 				ifr |= VIA_IM_T2;
 				checkInterrupts();
 			}
@@ -159,6 +159,7 @@ public class IECBus {
 	}
 
 	protected final void updatePorts() {
+		final byte oldDrvPort = drvPort;
 		cpuPort = cpuBus;
 		for (final SerialIECDevice serialDevice : serialDevices) {
 			cpuPort &= drvBus[serialDevice.getID()];
@@ -167,6 +168,11 @@ public class IECBus {
 			cpuPort &= drvBus[drive.getID()];
 		}
 		drvPort = (byte) ((cpuPort & 0xff) >> 4 & 0x4 | (cpuPort & 0xff) >> 7 | (cpuBus & 0xff) << 3 & 0x80);
+		if (drvPort != oldDrvPort) {
+			for (final C1541 drive : drives) {
+				drive.wakeUp();
+			}
+		}
 	}
 
 }
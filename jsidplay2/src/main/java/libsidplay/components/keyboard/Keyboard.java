@@ -6,9 +6,15 @@
  */
 package libsidplay.components.keyboard;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
+import libsidplay.common.MachineStateHook;
+import libsidplay.common.NoMachineState;
+
 /**
  * <pre>
  * Implements the C64's keyboard.<br>
@@ -22,7 +28,11 @@ import java.util.Set;
  *
  * @author Jörg Jahnke (joergjahnke@users.sourceforge.net)
  */
-public abstract class Keyboard {
+public abstract class Keyboard implements MachineStateHook {
+	/**
+	 * Pressed keys (saved by {@link #saveState(DataOutput)}).
+	 */
+	@NoMachineState
 	private final Set<KeyTableEntry> keysDown = new HashSet<>();
 
 	/**
@@ -110,4 +120,22 @@ public abstract class Keyboard {
 	 * Restore key pressed by user
 	 */
 	public abstract void restore();
+
+	@Override
+	public synchronized void saveState(DataOutput out) throws IOException {
+		out.writeInt(keysDown.size());
+		for (KeyTableEntry key : KeyTableEntry.values()) {
+			if (keysDown.contains(key)) {
+				out.writeInt(key.ordinal());
+			}
+		}
+	}
+
+	@Override
+	public synchronized void restoreState(DataInput in) throws IOException {
+		keysDown.clear();
+		for (int i = in.readInt(); i > 0; i--) {
+			keysDown.add(KeyTableEntry.values()[in.readInt()]);
+		}
+	}
 }
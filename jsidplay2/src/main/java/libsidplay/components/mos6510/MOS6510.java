@@ -20,6 +20,7 @@ import static libsidplay.components.mos6510.IOpCode.*;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 import libsidplay.common.Event;
 import libsidplay.common.Event.Phase;
@@ -114,6 +115,11 @@ public class MOS6510 {
 	protected Function<Boolean, Boolean> v = Function.identity();
 	protected Consumer<Integer> jmpJsr = Register_ProgramCounter -> {
 	};
+	/**
+	 * Observer of loops (JMP, JSR and branches taken backwards), null means no
+	 * observer.
+	 */
+	protected IntConsumer loopHandler;
 	protected Function<Integer, Byte> cpuRead;
 	protected BiConsumer<Integer, Byte> cpuWrite;
 
@@ -141,6 +147,16 @@ public class MOS6510 {
 		this.jmpJsr = jmpJsr;
 	}
 
+	/**
+	 * Observe loops, e.g. to detect an idle loop.
+	 *
+	 * @param loopHandler called with the target address of each JMP, JSR and
+	 *                    branch taken backwards (null means no observer)
+	 */
+	public void setLoopHandler(final IntConsumer loopHandler) {
+		this.loopHandler = loopHandler;
+	}
+
 	public void setVFlagHandler(final Function<Boolean, Boolean> v) {
 		this.v = v;
 	}
@@ -1206,6 +1222,9 @@ public class MOS6510 {
 							}
 						}
 						Register_ProgramCounter = Cycle_EffectiveAddress;
+						if (loopHandler != null && Cycle_Data < 0) {
+							loopHandler.accept(Register_ProgramCounter);
+						}
 					} else {
 						/*
 						 * branch not taken: skip the following spurious read insn and go to
@@ -1455,6 +1474,9 @@ public class MOS6510 {
 				instrTable[buildCycle++] = () -> {
 					Register_ProgramCounter = Cycle_EffectiveAddress;
 					jmpJsr.accept(Register_ProgramCounter);
+					if (loopHandler != null) {
+						loopHandler.accept(Register_ProgramCounter);
+					}
 					interruptsAndNextOpcode();
 				};
 				break;
@@ -2177,6 +2199,37 @@ public class MOS6510 {
 		return context;
 	}
 
+	/**
+	 * Get registers, flags and interrupt state (without program counter). Equal
+	 * values at the same program counter and cycle of an instruction mean, the CPU
+	 * is in the same state.
+	 *
+	 * @return registers, flags and interrupt state
+	 */
+	public final long getRegisterState() {
+		long state = (Register_Accumulator & 0xff) | (Register_X & 0xff) << 8 | (Register_Y & 0xff) << 16
+				| (long) (Register_StackPointer & 0xff) << 24;
+		state |= (long) ((flagN ? 0x80 : 0) | (flagV ? 0x40 : 0) | (flagU ? 0x20 : 0) | (flagB ? 0x10 : 0)
+				| (flagD ? 0x08 : 0) | (flagI ? 0x04 : 0) | (flagZ ? 0x02 : 0) | (flagC ? 0x01 : 0)) << 32;
+		state |= (long) ((irqAssertedOnPin ? 0x10 : 0) | (nmiFlag ? 0x08 : 0) | (rstFlag ? 0x04 : 0)
+				| (interruptCycle == MAX ? 0x02 : 0) | (rdy ? 0x01 : 0)) << 40;
+		return state;
+	}
+
+	/**
+	 * Fast-forward the CPU executing an idle loop. Instead of executing complete
+	 * iterations of the loop, the clock advances and the CPU continues at the same
+	 * position of the loop, later.
+	 *
+	 * @param period cycles per iteration of the idle loop
+	 * @param cycles maximum number of cycles to fast-forward
+	 * @return cycles fast-forwarded (a multiple of the period)
+	 * @see EventScheduler#fastForward(Event, long, long)
+	 */
+	public final long fastForward(final long period, final long cycles) {
+		return context.fastForward(rdy ? eventWithoutSteals : eventWithSteals, period, cycles);
+	}
+
 	public void setEODHack(boolean hack) {
 		EOD = hack;
 	}
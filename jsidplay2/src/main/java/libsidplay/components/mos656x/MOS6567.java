@@ -249,6 +249,7 @@ public class MOS6567 extends VIC {
 				palEmulation.determineCurrentPalette(rasterY, rasterY == FIRST_DISPLAY_LINE);
 				if (rasterY == FIRST_DISPLAY_LINE) {
 					graphicsRendering = true;
+					timingOnlyFrame = isTimingOnly();
 					((Buffer) pixels).clear();
 				}
 
@@ -273,6 +273,7 @@ public final class MOS6569 extends VIC {
 				palEmulation.determineCurrentPalette(rasterY, rasterY == FIRST_DISPLAY_LINE);
 				if (rasterY == FIRST_DISPLAY_LINE) {
 					graphicsRendering = true;
+					timingOnlyFrame = isTimingOnly();
 					((Buffer) pixels).clear();
 				}
 
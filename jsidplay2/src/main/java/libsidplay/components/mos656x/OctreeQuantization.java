@@ -2,7 +2,7 @@ package libsidplay.components.mos656x;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
@@ -36,12 +36,18 @@ class OctreeQuantization {
 	/** The start of quantization tree. */
 	final Node root = new Node(null);
 
-	/** List of current leaf nodes. leaf.parents are targets for reduction. */
-	protected final Set<Node> leaves = new HashSet<>();
+	/**
+	 * List of current leaf nodes. leaf.parents are targets for reduction. Iterated
+	 * in insertion order, palette indices must not differ between VIC instances.
+	 */
+	protected final Set<Node> leaves = new LinkedHashSet<>();
 
 	/** Size of palette to compute. */
 	private final int max;
 
+	/** Number of created nodes. */
+	private int nodes;
+
 	/**
 	 * Quantizer instance. Make a new quantizer for specific number of colors, add
 	 * colors, and finally ask for palette.
@@ -60,6 +66,9 @@ class OctreeQuantization {
 		protected int blue;
 		protected final Node parent;
 
+		/** Creation order to disambiguate equally used colors. */
+		private final int id = nodes++;
+
 		private final Node[] children = new Node[8];
 
 		protected Node(final Node parent) {
@@ -225,17 +234,7 @@ class OctreeQuantization {
 				return -1;
 			}
 
-			final int id1 = System.identityHashCode(o1);
-			final int id2 = System.identityHashCode(o2);
-
-			if (id1 > id2) {
-				return 1;
-			}
-			if (id1 < id2) {
-				return -1;
-			}
-
-			return 0;
+			return Integer.compare(o1.id, o2.id);
 		});
 
 		for (final Node leaf : leaves) {
@@ -1,7 +1,6 @@
 package libsidplay.components.mos656x;
 
-import java.util.function.Consumer;
-
+import libsidplay.common.NoMachineState;
 import libsidplay.common.VICChipModel;
 
 public class PALEmulation {
@@ -15,12 +14,16 @@ public class PALEmulation {
 	private final int[] vicPaletteNoPal = new int[] { 0x000000, 0xFFFFFF, 0x68372B, 0x70A4B2, 0x6F3D86, 0x588D43,
 			0x352879, 0xB8C76F, 0x6F4F25, 0x433900, 0x9A6759, 0x444444, 0x6C6C6C, 0x9AD284, 0x6C5EB5, 0x959595, };
 	/** Table for looking up color using a packed 2x8 value for even rasterlines */
+	@NoMachineState
 	private final int[] combinedLinesEven = new int[256 * 256];
 	/** Table for looking up color using a packed 2x8 value for odd rasterlines */
+	@NoMachineState
 	private final int[] combinedLinesOdd = new int[256 * 256];
 	/** VIC color palette for even rasterlines */
+	@NoMachineState
 	private final byte[] linePaletteEven = new byte[16 * 16 * 16 * 16];
 	/** VIC color palette for odd rasterlines */
+	@NoMachineState
 	private final byte[] linePaletteOdd = new byte[16 * 16 * 16 * 16];
 	/** Last line's color */
 	private final byte[] previousLineDecodedColor = new byte[65 * 8];
@@ -40,6 +43,7 @@ public class PALEmulation {
 	private boolean palEmulationEnable;
 
 	/** System's palette */
+	@NoMachineState
 	private final Palette palette = new Palette();
 
 	public PALEmulation(VICChipModel model) {
@@ -101,31 +105,46 @@ public class PALEmulation {
 	/**
 	 * Draw eight pixels at once. Pixels arrive in 0x12345678 order (MSB to LSB).
 	 *
+	 * <B>Note:</B> This method is called for every eight pixels, therefore the
+	 * ARGB pixels are written directly into the array instead of a consumer.
+	 *
 	 * @param graphicsDataBuffer eight pixels each of 4 bits (VIC color value range
 	 *                           0x0-0xF)
-	 * @param pixelConsumer      consumer of the corresponding RGBA pixels
+	 * @param pixels             ARGB pixels to write to
+	 * @param offset             index of the first of the eight pixels
 	 */
-	public void drawPixels(int graphicsDataBuffer, Consumer<Integer> pixelConsumer) {
-		/* Pixels arrive in 0x12345678 order. */
-		for (int j = 0; j < 2; j++) {
-			oldGraphicsData |= graphicsDataBuffer >>> 16;
-			for (int i = 0; i < 4; i++) {
-				oldGraphicsData <<= 4;
-				final int vicColor = oldGraphicsData >>> 16;
-				final byte lineColor = linePaletteCurrent[vicColor];
-				final byte previousLineColor = previousLineDecodedColor[previousLineIndex];
-				int rgbaColor;
-				if (palEmulationEnable) {
-					rgbaColor = ALPHA | combinedLinesCurrent[lineColor & 0xff | previousLineColor << 8 & 0xff00];
-				} else {
-					rgbaColor = ALPHA | vicPaletteNoPal[vicColor & 0x0f];
+	public void drawPixels(int graphicsDataBuffer, int[] pixels, int offset) {
+		final byte[] linePaletteCurrent = this.linePaletteCurrent;
+		final byte[] previousLineDecodedColor = this.previousLineDecodedColor;
+		int oldGraphicsData = this.oldGraphicsData;
+		int previousLineIndex = this.previousLineIndex;
+		if (palEmulationEnable) {
+			final int[] combinedLinesCurrent = this.combinedLinesCurrent;
+			for (int j = 0; j < 2; j++) {
+				oldGraphicsData |= graphicsDataBuffer >>> 16;
+				for (int i = 0; i < 4; i++) {
+					oldGraphicsData <<= 4;
+					final byte lineColor = linePaletteCurrent[oldGraphicsData >>> 16];
+					final byte previousLineColor = previousLineDecodedColor[previousLineIndex];
+					pixels[offset++] = ALPHA | combinedLinesCurrent[lineColor & 0xff | previousLineColor << 8 & 0xff00];
+					previousLineDecodedColor[previousLineIndex++] = lineColor;
 				}
-				pixelConsumer.accept(rgbaColor);
-				previousLineDecodedColor[previousLineIndex++] = lineColor;
+				graphicsDataBuffer <<= 16;
+			}
+		} else {
+			for (int j = 0; j < 2; j++) {
+				oldGraphicsData |= graphicsDataBuffer >>> 16;
+				for (int i = 0; i < 4; i++) {
+					oldGraphicsData <<= 4;
+					final int vicColor = oldGraphicsData >>> 16;
+					pixels[offset++] = ALPHA | vicPaletteNoPal[vicColor & 0x0f];
+					previousLineDecodedColor[previousLineIndex++] = linePaletteCurrent[vicColor];
+				}
+				graphicsDataBuffer <<= 16;
 			}
-			graphicsDataBuffer <<= 16;
 		}
-
+		this.oldGraphicsData = oldGraphicsData;
+		this.previousLineIndex = previousLineIndex;
 	}
 
 }
@@ -13,6 +13,7 @@ import java.util.Arrays;
 import libsidplay.common.Event;
 import libsidplay.common.Event.Phase;
 import libsidplay.common.EventScheduler;
+import libsidplay.common.NoMachineState;
 import libsidplay.components.pla.Bank;
 import libsidplay.components.pla.PLA;
 import sidplay.audio.VideoDriver;
@@ -191,12 +192,17 @@ public abstract class VIC extends Bank {
 	 * Output ARGB screen buffer as int32 array. MSB to LSB -&gt; alpha, red, green,
 	 * blue
 	 */
+	@NoMachineState
 	protected final IntBuffer pixels = IntBuffer.allocate(MAX_WIDTH * MAX_HEIGHT);
 
 	/** Current visible line */
 	protected int lineCycle;
 	/** Is display rendering enabled? */
 	protected boolean graphicsRendering;
+	/** Skip pixel output (no video consumer attached)? */
+	private volatile boolean timingOnly;
+	/** Pixel output skipped for the current frame? */
+	protected boolean timingOnlyFrame;
 	/** CPU's event context. */
 	protected final EventScheduler context;
 	/** Light pen coordinates */
@@ -250,6 +256,25 @@ public abstract class VIC extends Bank {
 		this.videoDriver = videoDriver;
 	}
 
+	/**
+	 * Timing-only mode skips the pixel output (border unit, PAL emulation and
+	 * screen buffer), if nobody consumes the video output. Bad lines, BA, IRQs,
+	 * sprite DMA and sprite collisions are still emulated cycle exact. Takes
+	 * effect with the next frame.
+	 *
+	 * @param timingOnly skip pixel output
+	 */
+	public void setTimingOnly(boolean timingOnly) {
+		this.timingOnly = timingOnly;
+	}
+
+	/**
+	 * @return is pixel output skipped?
+	 */
+	public boolean isTimingOnly() {
+		return timingOnly;
+	}
+
 	/**
 	 * Read the x-coordinate of a sprite
 	 *
@@ -556,6 +581,10 @@ public abstract class VIC extends Bank {
 			current = current.nextVisibleSprite;
 		}
 
+		if (timingOnlyFrame) {
+			return;
+		}
+
 		/* Border unit */
 		if ((renderCycle == 1 || renderCycle == 39) && !readCSEL()) {
 			if (showBorderMain) {
@@ -575,7 +604,9 @@ public abstract class VIC extends Bank {
 		}
 
 		/* Pixels arrive in 0x12345678 order. */
-		palEmulation.drawPixels(graphicsDataBuffer, pixels::put);
+		final int position = pixels.position();
+		palEmulation.drawPixels(graphicsDataBuffer, pixels.array(), position);
+		((Buffer) pixels).position(position + 8);
 	}
 
 	/**
@@ -1069,7 +1100,7 @@ public abstract class VIC extends Bank {
 
 		// clear the screen
 		((Buffer) pixels).clear();
-		((Buffer) pixels.put(new int[pixels.capacity()])).clear();
+		Arrays.fill(pixels.array(), 0);
 		graphicsRendering = false;
 
 		// reset all registers
@@ -175,10 +175,11 @@ public final class PLA {
 		 */
 		@Override
 		public void write(final int address, final byte value) {
-			final SIDEmu sid = sidemu[sidmapper[address >> 5 & MAPPER_SIZE - 1]];
+			final int sidNum = sidmapper[address >> 5 & MAPPER_SIZE - 1];
+			final SIDEmu sid = sidemu[sidNum];
 			if (sid != null) {
 				sid.write(address & REG_COUNT - 1, value);
-				listener.write(address, value);
+				listener.write(sidNum, address, value);
 			}
 		}
 
@@ -15,4 +15,29 @@ public interface IAudioSystemProperties {
 	 */
 	int MAX_TIME_GAP = Integer.valueOf(System.getProperty("jsidplay2.sleep_driver.max_time_gap", "10000"));
 
+	/**
+	 * Resampler: Maximum number of FIR tables kept in memory (shared by all
+	 * players).
+	 */
+	int FIR_CACHE_SIZE = Integer.valueOf(System.getProperty("jsidplay2.fir_cache.size", "16"));
+
+	/**
+	 * Resampler: Directory to persist FIR tables, so they are not computed again
+	 * after a restart (empty means do not persist).
+	 */
+	String FIR_CACHE_DIR = System.getProperty("jsidplay2.fir_cache.dir", "");
+
+	/**
+	 * SID mixer: Clock the SIDs of stereo and 3-SID tunes in parallel. Register
+	 * writes are recorded with their clock time and replayed by worker threads.
+	 */
+	boolean SID_MIXER_PARALLEL = Boolean.getBoolean("jsidplay2.sid_mixer.parallel");
+
+	/**
+	 * SID mixer: Number of worker threads clocking SIDs in parallel (shared by all
+	 * players).
+	 */
+	int SID_MIXER_THREADS = Integer.valueOf(System.getProperty("jsidplay2.sid_mixer.threads",
+			String.valueOf(Runtime.getRuntime().availableProcessors())));
+
 }
@@ -0,0 +1,50 @@
+package libsidplay.config;
+
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Integer.parseInt;
+import static java.lang.System.getProperty;
+
+/**
+ * Some system properties to fine tune the emulation core without touching the
+ * configuration.
+ */
+public interface IEmulationSystemProperties {
+
+	/**
+	 * Event scheduler: Use the timing wheel event queue instead of the linked list
+	 * event queue (scales better with many pending events, e.g. C64 + C1541 +
+	 * multiple SIDs).
+	 */
+	boolean EVENT_SCHEDULER_TIMING_WHEEL = parseBoolean(getProperty("jsidplay2.event_scheduler.timing_wheel", "false"));
+
+	/**
+	 * C1541: Clock the floppy in a separate thread, it is synchronized with the C64
+	 * at IEC bus accesses, only.
+	 */
+	boolean C1541_THREADED = parseBoolean(getProperty("jsidplay2.c1541.threaded", "false"));
+
+	/**
+	 * C1541: Maximum number of cycles the floppy clocked in a separate thread may
+	 * fall behind the C64.
+	 */
+	int C1541_MAX_LAG = parseInt(getProperty("jsidplay2.c1541.max_lag", "20000"));
+
+	/**
+	 * C1541: Fast-forward the floppy instead of clocking it, while it executes an
+	 * idle loop with the motor turned off (the result is exactly the same).
+	 */
+	boolean C1541_IDLE_FAST_FORWARD = parseBoolean(getProperty("jsidplay2.c1541.idle_fast_forward", "true"));
+
+	/**
+	 * Audio: Number of chunk buffers of the encoder thread of MP3, FLAC and AAC
+	 * recordings (0 means encode in the emulation thread).
+	 */
+	int AUDIO_ENCODER_CHUNKS = parseInt(getProperty("jsidplay2.audio.encoder_chunks", "8"));
+
+	/**
+	 * Video: Number of frame buffers of the encoder thread of MP4, AVI and FLV
+	 * recordings (0 means encode in the emulation thread).
+	 */
+	int VIDEO_ENCODER_FRAMES = parseInt(getProperty("jsidplay2.video.encoder_frames", "4"));
+
+}
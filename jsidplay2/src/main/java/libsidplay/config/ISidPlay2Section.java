@@ -282,6 +282,22 @@ public interface ISidPlay2Section {
 	 */
 	void setTurboTape(boolean turboTape);
 
+	/**
+	 * Getter of warp-load (auto-start loads programs from disk or tape as fast as
+	 * possible without audio and video output)
+	 *
+	 * @return warp-load auto-started programs
+	 */
+	boolean isWarpLoad();
+
+	/**
+	 * Setter of warp-load (auto-start loads programs from disk or tape as fast as
+	 * possible without audio and video output)
+	 *
+	 * @param warpLoad warp-load auto-started programs
+	 */
+	void setWarpLoad(boolean warpLoad);
+
 	/**
 	 * Fade-in start time in seconds, audio volume should be increased to the max.
 	 */
@@ -48,6 +48,16 @@ public class ZipFileUtils {
 		}
 	}
 
+	/**
+	 * @param file file or directory, the path may contain archives (e.g. ZIP)
+	 * @return file, that enters archives (if supported)
+	 */
+	public static File newFile(File file) {
+		File absoluteFile = file.getAbsoluteFile();
+		File parent = absoluteFile.getParentFile();
+		return parent != null ? newFile(newFile(parent), absoluteFile.getName()) : absoluteFile;
+	}
+
 	public static InputStream newFileInputStream(File file) throws FileNotFoundException {
 		try {
 			return INPUT_STREAM.newInstance(file);
@@ -3,51 +3,46 @@ package libsidutils.siddatabase;
 import static libsidplay.sidtune.SidTune.RESET;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-import libsidplay.sidtune.MD5Method;
 import libsidplay.sidtune.SidTune;
-import libsidutils.ZipFileUtils;
-import sidplay.ini.IniReader;
 
 /**
  * Utility class to determine song length for tunes based on HVSC file
- * "DOCUMENTS/Songlengths.txt".
+ * "DOCUMENTS/Songlengths.txt".<BR>
+ * The song length database is shared by all instances of the same HVSC, see
+ * {@link SongLengthIndex}, creating an instance is cheap.
  *
  * @author ken
  *
  */
 public class SidDatabase {
-	/**
-	 * Until version HVSC#67
-	 */
-	private static final String SONGLENGTHS_FILE_TXT = "DOCUMENTS/Songlengths.txt";
-	/**
-	 * Since version HVSC#68
-	 */
-	private static final String SONGLENGTHS_FILE_MD5 = "DOCUMENTS/Songlengths.md5";
 
-	private MD5Method version;
-	private final IniReader database;
+	private static final Logger SID_DATABASE = Logger.getLogger(SidDatabase.class.getName());
+
+	private final File hvscRoot;
+
+	private SongLengthIndex database;
 
 	public SidDatabase(final File hvscRoot) throws IOException {
-		try (InputStream is = getInputStreamAndSetVersion(hvscRoot)) {
-			database = new IniReader(is);
-		}
+		this.hvscRoot = hvscRoot;
+		this.database = SongLengthIndex.getInstance(hvscRoot);
 	}
 
-	private InputStream getInputStreamAndSetVersion(File hvscRoot) throws FileNotFoundException {
-		File file = ZipFileUtils.newFile(hvscRoot, SONGLENGTHS_FILE_TXT);
-		version = MD5Method.MD5_PSID_HEADER;
-		File songLengthFileMd5 = ZipFileUtils.newFile(hvscRoot, SONGLENGTHS_FILE_MD5);
-		if (songLengthFileMd5.exists() && songLengthFileMd5.canRead()) {
-			file = songLengthFileMd5;
-			version = MD5Method.MD5_CONTENTS;
+	/**
+	 * Get the current song length index (the index is replaced, if the song length
+	 * database changes).
+	 */
+	private SongLengthIndex getDatabase() {
+		try {
+			database = SongLengthIndex.getInstance(hvscRoot);
+		} catch (IOException e) {
+			SID_DATABASE.log(Level.WARNING, "Song length database can not be reloaded, keep current one", e);
 		}
-		return ZipFileUtils.newFileInputStream(file);
+		return database;
 	}
 
 	/**
@@ -57,10 +52,11 @@ public class SidDatabase {
 	 * @return tune length in seconds
 	 */
 	public double getTuneLength(final SidTune tune) {
+		final SongLengthIndex database = getDatabase();
 		double length = 0;
-		final String md5 = tune.getMD5Digest(version);
+		final String md5 = tune.getMD5Digest(database.getVersion());
 		for (int songNum = 1; songNum <= tune.getInfo().getSongs(); songNum++) {
-			length += getLength(md5, songNum);
+			length += database.getLength(md5, songNum);
 		}
 		return length;
 	}
@@ -75,9 +71,10 @@ public class SidDatabase {
 		if (tune == RESET) {
 			return 0;
 		}
+		final SongLengthIndex database = getDatabase();
 		final int songNum = tune.getInfo().getCurrentSong();
-		final String md5 = tune.getMD5Digest(version);
-		return songNum == 0 || md5 == null ? 0 : getLength(md5, songNum);
+		final String md5 = tune.getMD5Digest(database.getVersion());
+		return songNum == 0 || md5 == null ? 0 : database.getLength(md5, songNum);
 	}
 
 	/**
@@ -90,35 +87,26 @@ public class SidDatabase {
 	 * @return path of the tune
 	 */
 	public String getPath(final SidTune tune) {
-		final String md5 = tune.getMD5Digest(version);
-		final String comment = md5 != null ? database.getPropertyString("Database", "_" + md5, null) : null;
-		return comment != null ? comment.substring(1).trim() : "";
+		final SongLengthIndex database = getDatabase();
+		final String md5 = tune.getMD5Digest(database.getVersion());
+		final String path = md5 != null ? database.getPath(md5) : null;
+		return path != null ? path : "";
 	}
 
 	protected Random random = new Random();
 
-	public String getRandomPath() {
-		String[] sectionProperties = database.sectionProperties("Database");
-		int rndIndex = Math.abs(random.nextInt(Integer.MAX_VALUE)) % sectionProperties.length & Integer.MAX_VALUE - 1;
-		String md5Comment = sectionProperties[rndIndex];
-		final String comment = md5Comment != null ? database.getPropertyString("Database", "_" + md5Comment, null)
-				: null;
-		return comment != null ? comment.substring(1).trim() : null;
-	}
-
 	/**
-	 * Get song length of a specific song number contained in the song length line
-	 * identified by MD5 checksum.<BR>
-	 * e.g. "b67e3121c8d771f3f06020b47232fc80=0:24 0:28 <B>1:03</B> 0:22 1:22 0:22"
-	 * for song number 3.
+	 * Get path of a random tune contained in the song length database.
 	 *
-	 * @param md5     MD5 checksum to get the song length
-	 * @param songNum song number
-	 * @return song length of the song number
+	 * @return path of a random tune or null (empty song length database)
 	 */
-	private double getLength(final String md5, final int songNum) {
-		final String times = database.getPropertyString("Database", md5, null);
-		return times != null ? new TimeConverter().fromString(times.split(" ")[songNum - 1]) : 0;
+	public String getRandomPath() {
+		final SongLengthIndex database = getDatabase();
+		if (database.getTuneCount() == 0) {
+			return null;
+		}
+		final String path = database.getPath(random.nextInt(database.getTuneCount()));
+		return path.isEmpty() ? null : path;
 	}
 
 }
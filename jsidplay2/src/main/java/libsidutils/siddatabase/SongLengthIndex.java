@@ -0,0 +1,407 @@
+package libsidutils.siddatabase;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import libsidplay.sidtune.MD5Method;
+import libsidutils.ZipFileUtils;
+
+/**
+ * Immutable index of the song length database shared by all users of the same
+ * HVSC.<BR>
+ * The song length file is parsed once into a compact binary index (sorted MD5
+ * checksums with packed song lengths), which is saved in the temporary
+ * directory and memory mapped. Next time the index is mapped without parsing.
+ * If the song length file changes (new HVSC version) the index is rebuilt.
+ *
+ * <pre>
+ * Header:  magic, version, MD5 method, song length file last modified and size,
+ *          entry count, song length count
+ * Entries: MD5 checksum (2 longs), song length index, song count, path size,
+ *          path offset (sorted by MD5 checksum)
+ * Song lengths in milliseconds (ints)
+ * Paths (UTF-8)
+ * </pre>
+ */
+public final class SongLengthIndex {
+
+	private static final Logger SONG_LENGTH_INDEX = Logger.getLogger(SongLengthIndex.class.getName());
+
+	/**
+	 * Until version HVSC#67
+	 */
+	private static final String SONGLENGTHS_FILE_TXT = "DOCUMENTS/Songlengths.txt";
+	/**
+	 * Since version HVSC#68
+	 */
+	private static final String SONGLENGTHS_FILE_MD5 = "DOCUMENTS/Songlengths.md5";
+
+	private static final int MAGIC = 0x534c4458, VERSION = 1;
+
+	private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8 + 4 + 4, ENTRY_SIZE = 8 + 8 + 4 + 2 + 2 + 4;
+
+	/**
+	 * Time in ms before the song length file is checked for changes again.
+	 */
+	private static final long RELOAD_CHECK_INTERVAL = 10_000;
+
+	/**
+	 * Shared index per HVSC root directory.
+	 */
+	private static final Map<File, SongLengthIndex> INDEXES = new ConcurrentHashMap<>();
+
+	/**
+	 * Song length database entry during parsing.
+	 */
+	private static final class Entry {
+		private final long md5Hi, md5Lo;
+		private final int[] lengths;
+		private final byte[] path;
+
+		private Entry(long md5Hi, long md5Lo, int[] lengths, byte[] path) {
+			this.md5Hi = md5Hi;
+			this.md5Lo = md5Lo;
+			this.lengths = lengths;
+			this.path = path;
+		}
+	}
+
+	private final File hvscRoot, songLengthFile;
+
+	private final MD5Method version;
+
+	private final long lastModified, size;
+
+	private final ByteBuffer index;
+
+	private final int entryCount, lengthsStart, pathsStart;
+
+	private volatile long checkTime;
+
+	private SongLengthIndex(File hvscRoot, File songLengthFile, MD5Method version, ByteBuffer index) {
+		this.hvscRoot = hvscRoot;
+		this.songLengthFile = songLengthFile;
+		this.version = version;
+		this.index = index;
+		this.lastModified = index.getLong(12);
+		this.size = index.getLong(20);
+		this.entryCount = index.getInt(28);
+		this.lengthsStart = HEADER_SIZE + entryCount * ENTRY_SIZE;
+		this.pathsStart = lengthsStart + index.getInt(32) * Integer.BYTES;
+		this.checkTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Get the shared index of the song length database of HVSC. The index is
+	 * rebuilt, if the song length file has been changed.
+	 *
+	 * @param hvscRoot HVSC root directory (or archive)
+	 * @return shared song length index
+	 * @throws IOException song length database cannot be read
+	 */
+	public static SongLengthIndex getInstance(File hvscRoot) throws IOException {
+		final SongLengthIndex index = INDEXES.get(hvscRoot);
+		if (index != null && !index.isOutdated()) {
+			return index;
+		}
+		synchronized (INDEXES) {
+			SongLengthIndex current = INDEXES.get(hvscRoot);
+			if (current == index) {
+				// not yet reloaded by another thread
+				current = load(hvscRoot);
+				INDEXES.put(hvscRoot, current);
+			}
+			return current;
+		}
+	}
+
+	/**
+	 * Check (seldom) if the song length file has been changed.
+	 */
+	private boolean isOutdated() {
+		long now = System.currentTimeMillis();
+		if (now - checkTime < RELOAD_CHECK_INTERVAL) {
+			return false;
+		}
+		checkTime = now;
+		File file = getSongLengthFile(hvscRoot);
+		return !file.equals(songLengthFile) || file.lastModified() != lastModified || file.length() != size;
+	}
+
+	private static File getSongLengthFile(File hvscRoot) {
+		File songLengthFileMd5 = ZipFileUtils.newFile(hvscRoot, SONGLENGTHS_FILE_MD5);
+		if (songLengthFileMd5.exists() && songLengthFileMd5.canRead()) {
+			return songLengthFileMd5;
+		}
+		return ZipFileUtils.newFile(hvscRoot, SONGLENGTHS_FILE_TXT);
+	}
+
+	private static SongLengthIndex load(File hvscRoot) throws IOException {
+		File file = getSongLengthFile(hvscRoot);
+		if (!file.exists()) {
+			throw new FileNotFoundException(file.getAbsolutePath());
+		}
+		MD5Method version = file.getName().endsWith(".md5") ? MD5Method.MD5_CONTENTS : MD5Method.MD5_PSID_HEADER;
+		long lastModified = file.lastModified(), size = file.length();
+
+		File indexFile = getIndexFile(file);
+		if (indexFile.exists()) {
+			try {
+				ByteBuffer index = map(indexFile);
+				if (index.getInt(0) == MAGIC && index.getInt(4) == VERSION && index.getInt(8) == version.ordinal()
+						&& index.getLong(12) == lastModified && index.getLong(20) == size) {
+					return new SongLengthIndex(hvscRoot, file, version, index);
+				}
+			} catch (IOException e) {
+				SONG_LENGTH_INDEX.log(Level.WARNING, "Song length index cannot be mapped: " + indexFile, e);
+			}
+		}
+		long startTime = System.nanoTime();
+		ByteBuffer index = build(file, version, lastModified, size);
+		SONG_LENGTH_INDEX.fine(() -> String.format("Song length index built in %dms: %s",
+				(System.nanoTime() - startTime) / 1_000_000, file));
+		try {
+			Path tmpFile = Files.createTempFile(indexFile.getParentFile().toPath(), indexFile.getName(), ".tmp");
+			Files.write(tmpFile, index.array());
+			Files.move(tmpFile, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return new SongLengthIndex(hvscRoot, file, version, map(indexFile));
+		} catch (IOException e) {
+			// not mapped, but still usable
+			SONG_LENGTH_INDEX.log(Level.WARNING, "Song length index cannot be saved: " + indexFile, e);
+			return new SongLengthIndex(hvscRoot, file, version, index);
+		}
+	}
+
+	private static File getIndexFile(File songLengthFile) {
+		try {
+			MessageDigest md5 = MessageDigest.getInstance("MD5");
+			byte[] digest = md5.digest(songLengthFile.getAbsolutePath().getBytes(UTF_8));
+			StringBuilder name = new StringBuilder("jsidplay2-songlengths-");
+			for (int i = 0; i < 8; i++) {
+				name.append(String.format("%02x", digest[i] & 0xff));
+			}
+			return new File(System.getProperty("java.io.tmpdir"), name.append(".idx").toString());
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e.getMessage(), e);
+		}
+	}
+
+	private static ByteBuffer map(File indexFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+			return channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Parse the song length file.<BR>
+	 * e.g. "; /DEMOS/0-9/2_Hours_NOT_Enough.sid" followed by
+	 * "539be0485ad1fb958770fb9f069ae8c8=0:59"
+	 */
+	private static ByteBuffer build(File file, MD5Method version, long lastModified, long size)
+			throws IOException {
+		final TimeConverter timeConverter = new TimeConverter();
+		final List<Entry> entries = new ArrayList<>();
+		int lengthCount = 0, pathsSize = 0;
+		try (InputStream is = ZipFileUtils.newFileInputStream(file);
+				BufferedReader reader = new BufferedReader(new InputStreamReader(is, ISO_8859_1))) {
+			String comment = "", line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.startsWith(";")) {
+					comment = line.substring(1).trim();
+					continue;
+				}
+				int equals = line.indexOf('=');
+				if (equals != 32) {
+					// section heading, empty or malformed line
+					comment = "";
+					continue;
+				}
+				String[] times = line.substring(equals + 1).trim().split(" ");
+				int[] lengths = new int[times.length];
+				for (int songNum = 0; songNum < times.length; songNum++) {
+					lengths[songNum] = (int) Math.round(timeConverter.fromString(times[songNum]) * 1000);
+				}
+				try {
+					byte[] path = comment.getBytes(UTF_8);
+					entries.add(new Entry(Long.parseUnsignedLong(line.substring(0, 16), 16),
+							Long.parseUnsignedLong(line.substring(16, 32), 16), lengths, path));
+					lengthCount += lengths.length;
+					pathsSize += path.length;
+				} catch (NumberFormatException e) {
+					// not an MD5 checksum
+				}
+				comment = "";
+			}
+		}
+		entries.sort(Comparator.<Entry>comparingLong(entry -> entry.md5Hi ^ Long.MIN_VALUE)
+				.thenComparingLong(entry -> entry.md5Lo ^ Long.MIN_VALUE));
+		// duplicate MD5 checksum? The last one wins
+		for (int i = entries.size() - 1; i > 0; i--) {
+			Entry entry = entries.get(i), previous = entries.get(i - 1);
+			if (entry.md5Hi == previous.md5Hi && entry.md5Lo == previous.md5Lo) {
+				lengthCount -= previous.lengths.length;
+				pathsSize -= previous.path.length;
+				entries.remove(i - 1);
+			}
+		}
+
+		ByteBuffer index = ByteBuffer
+				.allocate(HEADER_SIZE + entries.size() * ENTRY_SIZE + lengthCount * Integer.BYTES + pathsSize);
+		index.putInt(MAGIC).putInt(VERSION).putInt(version.ordinal()).putLong(lastModified).putLong(size)
+				.putInt(entries.size()).putInt(lengthCount);
+		int lengthIdx = 0, pathOffset = 0;
+		for (Entry entry : entries) {
+			index.putLong(entry.md5Hi).putLong(entry.md5Lo).putInt(lengthIdx).putShort((short) entry.lengths.length)
+					.putShort((short) entry.path.length).putInt(pathOffset);
+			lengthIdx += entry.lengths.length;
+			pathOffset += entry.path.length;
+		}
+		for (Entry entry : entries) {
+			for (int length : entry.lengths) {
+				index.putInt(length);
+			}
+		}
+		for (Entry entry : entries) {
+			index.put(entry.path);
+		}
+		return index;
+	}
+
+	/**
+	 * @return MD5 checksum calculation method of the song length database
+	 */
+	public MD5Method getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return number of tunes contained in the song length database
+	 */
+	public int getTuneCount() {
+		return entryCount;
+	}
+
+	/**
+	 * Get song lengths of all songs of a tune.
+	 *
+	 * @param md5 MD5 checksum of the tune
+	 * @return song lengths in seconds (empty, if the tune is unknown)
+	 */
+	public double[] getLengths(String md5) {
+		int entry = find(md5);
+		if (entry < 0) {
+			return new double[0];
+		}
+		int pos = HEADER_SIZE + entry * ENTRY_SIZE;
+		double[] lengths = new double[index.getShort(pos + 20)];
+		for (int songNum = 0; songNum < lengths.length; songNum++) {
+			lengths[songNum] = index.getInt(lengthsStart + (index.getInt(pos + 16) + songNum) * Integer.BYTES)
+					/ 1000.;
+		}
+		return lengths;
+	}
+
+	/**
+	 * Get song length of a song of a tune.
+	 *
+	 * @param md5     MD5 checksum of the tune
+	 * @param songNum song number (1..songs)
+	 * @return song length in seconds or 0 (unknown)
+	 */
+	public double getLength(String md5, int songNum) {
+		int entry = find(md5);
+		if (entry < 0) {
+			return 0;
+		}
+		int pos = HEADER_SIZE + entry * ENTRY_SIZE;
+		if (songNum < 1 || songNum > index.getShort(pos + 20)) {
+			return 0;
+		}
+		return index.getInt(lengthsStart + (index.getInt(pos + 16) + songNum - 1) * Integer.BYTES) / 1000.;
+	}
+
+	/**
+	 * Get tune path contained in the commented line above the song length line.
+	 *
+	 * @param md5 MD5 checksum of the tune
+	 * @return path of the tune or null (unknown)
+	 */
+	public String getPath(String md5) {
+		int entry = find(md5);
+		return entry < 0 ? null : getPath(entry);
+	}
+
+	/**
+	 * Get tune path of an entry.
+	 *
+	 * @param entry entry number (0..tunes-1)
+	 * @return path of the tune
+	 */
+	public String getPath(int entry) {
+		int pos = HEADER_SIZE + entry * ENTRY_SIZE;
+		byte[] path = new byte[index.getShort(pos + 22)];
+		ByteBuffer paths = index.duplicate();
+		paths.position(pathsStart + index.getInt(pos + 24));
+		paths.get(path);
+		return new String(path, UTF_8);
+	}
+
+	/**
+	 * Binary search for the entry of an MD5 checksum.
+	 */
+	private int find(String md5) {
+		if (md5 == null || md5.length() != 32) {
+			return -1;
+		}
+		long md5Hi, md5Lo;
+		try {
+			md5Hi = Long.parseUnsignedLong(md5.substring(0, 16), 16);
+			md5Lo = Long.parseUnsignedLong(md5.substring(16, 32), 16);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+		int low = 0, high = entryCount - 1;
+		while (low <= high) {
+			int mid = low + high >>> 1;
+			int pos = HEADER_SIZE + mid * ENTRY_SIZE;
+			int cmp = Long.compareUnsigned(index.getLong(pos), md5Hi);
+			if (cmp == 0) {
+				cmp = Long.compareUnsigned(index.getLong(pos + 8), md5Lo);
+			}
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -3,6 +3,7 @@ package server.restful;
 import static jakarta.servlet.http.HttpServletRequest.BASIC_AUTH;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.catalina.startup.Tomcat.addServlet;
 import static server.restful.common.IServletSystemProperties.CONNECTION_TIMEOUT;
 
@@ -16,7 +17,7 @@ import java.net.URL;
 import java.security.KeyStore;
 import java.util.List;
 import java.util.Properties;
-import java.util.Timer;
+import java.util.concurrent.Executors;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -269,7 +270,11 @@ public class JSIDPlay2Server {
 		addSecurityConstraints(context);
 		addServlets(context);
 
-		new Timer().schedule(new CleanupPlayerTimerTask(context.getParent().getLogger()), 0, 1000L);
+		Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "CleanupPlayer");
+			thread.setDaemon(true);
+			return thread;
+		}).scheduleWithFixedDelay(new CleanupPlayerTimerTask(context.getParent().getLogger()), 0, 1, SECONDS);
 
 		return tomcat;
 	}
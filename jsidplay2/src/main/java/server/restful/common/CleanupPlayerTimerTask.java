@@ -5,13 +5,11 @@ import static server.restful.common.IServletSystemProperties.RTMP_CLEANUP_PLAYER
 
 import java.io.File;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.ResourceBundle;
-import java.util.TimerTask;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -19,9 +17,9 @@ import org.apache.juli.logging.Log;
 
 import sidplay.Player;
 
-public final class CleanupPlayerTimerTask extends TimerTask {
+public final class CleanupPlayerTimerTask implements Runnable {
 
-	private static final Map<UUID, RTMPPlayerWithStatus> PLAYER_MAP = Collections.synchronizedMap(new HashMap<>());
+	private static final Map<UUID, RTMPPlayerWithStatus> PLAYER_MAP = new ConcurrentHashMap<>();
 
 	private final Log logger;
 
@@ -59,8 +57,8 @@ public final class CleanupPlayerTimerTask extends TimerTask {
 	}
 
 	private void printPlayer(Entry<UUID, RTMPPlayerWithStatus> entry) {
-		logger.info(String.format("CleanupPlayerTimerTask: RTMP stream left: %s (valid until %s)", entry.getKey(),
-				entry.getValue().getValidUntil()));
+		logger.info(String.format("CleanupPlayerTimerTask: RTMP stream left: %s (valid until %s, %s)", entry.getKey(),
+				entry.getValue().getValidUntil(), entry.getValue().getThreadSafeQueueStatistics()));
 	}
 
 }
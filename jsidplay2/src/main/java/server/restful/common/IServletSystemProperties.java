@@ -14,6 +14,21 @@ public interface IServletSystemProperties {
 	 */
 	int CONNECTION_TIMEOUT = valueOf(getProperty("jsidplay2.whatssid.connection.timeout", "120"));
 
+	//
+	// LimitRequestServletFilter
+	//
+
+	/**
+	 * Maximum number of requests waiting to be processed per servlet, if the
+	 * maximum number of requests in parallel is reached.
+	 */
+	int MAX_QUEUED_REQUESTS = valueOf(getProperty("jsidplay2.request.max.queued", "14"));
+
+	/**
+	 * Maximum time in s a request waits to be processed, before it gets rejected.
+	 */
+	int REQUEST_QUEUE_TIMEOUT = valueOf(getProperty("jsidplay2.request.queue.timeout", "10"));
+
 	//
 	// ConvertServlet
 	//
@@ -23,11 +38,53 @@ public interface IServletSystemProperties {
 	 */
 	int MAX_CONVERT_IN_PARALLEL = valueOf(getProperty("jsidplay2.convert.max.parallel", "7"));
 
+	/**
+	 * Convert: Maximum number of requests per minute of a client (0 means no
+	 * limit).
+	 */
+	int CONVERT_REQUESTS_PER_MINUTE = valueOf(getProperty("jsidplay2.convert.requests_per_minute", "0"));
+
+	/**
+	 * Convert: Maximum number of requests of a client in a burst.
+	 */
+	int CONVERT_REQUEST_BURST = valueOf(getProperty("jsidplay2.convert.request_burst", "10"));
+
+	/**
+	 * Convert: Maximum number of idle players kept for the next requests (0 means
+	 * create a new player for each request, that boots the C64 itself). Otherwise,
+	 * the booted C64 is shared by all players of the same hardware configuration.
+	 */
+	int CONVERT_PLAYER_POOL_SIZE = valueOf(getProperty("jsidplay2.convert.player_pool.size", "0"));
+
+	/**
+	 * Convert: Directory of the cache of converted tunes.
+	 */
+	String CONVERT_CACHE_DIRECTORY = getProperty("jsidplay2.convert.cache.directory",
+			getProperty("java.io.tmpdir") + "/jsidplay2-convert-cache");
+
+	/**
+	 * Convert: Maximum size of the cache of converted tunes in MB (0 means no
+	 * cache, which is the default).
+	 */
+	int CONVERT_CACHE_SIZE = valueOf(getProperty("jsidplay2.convert.cache.size", "0"));
+
 	/**
 	 * WhatsSID? Maximum number of RTMP threads in parallel.
 	 */
 	int MAX_RTMP_IN_PARALLEL = valueOf(getProperty("jsidplay2.rtmp.max.parallel", "7"));
 
+	/**
+	 * Video streaming: Maximum number of RTMP sessions waiting to be started, if
+	 * the maximum number of RTMP sessions in parallel is reached.
+	 */
+	int RTMP_QUEUE_SIZE = valueOf(getProperty("jsidplay2.rtmp.queue.size", "7"));
+
+	/**
+	 * Video streaming: Maximum time in s an RTMP session waits to be started,
+	 * before it gets rejected.
+	 */
+	int RTMP_ADMISSION_TIMEOUT = valueOf(getProperty("jsidplay2.rtmp.admission.timeout", "10"));
+
 	/**
 	 * Video streaming: Interval between simulated key presses of the space key in s
 	 * (required to watch some demos).
@@ -90,6 +147,17 @@ public interface IServletSystemProperties {
 	 */
 	int MAX_WHATSIDS_IN_PARALLEL = valueOf(getProperty("jsidplay2.whatssid.max.parallel", "7"));
 
+	/**
+	 * WhatsSID? Maximum number of requests per minute of a client (0 means no
+	 * limit).
+	 */
+	int WHATSSID_REQUESTS_PER_MINUTE = valueOf(getProperty("jsidplay2.whatssid.requests_per_minute", "0"));
+
+	/**
+	 * WhatsSID? Maximum number of requests of a client in a burst.
+	 */
+	int WHATSSID_REQUEST_BURST = valueOf(getProperty("jsidplay2.whatssid.request_burst", "10"));
+
 	/**
 	 * WhatsSID? Maximum duration used to recognize a tune for file upload.
 	 */
@@ -100,4 +168,23 @@ public interface IServletSystemProperties {
 	 */
 	int CACHE_SIZE = valueOf(getProperty("jsidplay2.whatssid.cache.size", "60000"));
 
-}
\ No newline at end of file
+	//
+	// DirectoryServlet
+	//
+
+	/**
+	 * Directory: Cache size. Directory listings are cached for performance
+	 * reasons.
+	 */
+	int DIRECTORY_CACHE_SIZE = valueOf(getProperty("jsidplay2.directory.cache.size", "1000"));
+
+	//
+	// PhotoServlet
+	//
+
+	/**
+	 * Photo: Cache size. Photos of tunes are cached for performance reasons.
+	 */
+	int PHOTO_CACHE_SIZE = valueOf(getProperty("jsidplay2.photo.cache.size", "1000"));
+
+}
@@ -0,0 +1,63 @@
+package server.restful.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in milliseconds (buckets of powers of two), e.g. time
+ * to first byte of a response.
+ */
+public final class LatencyHistogram {
+
+	private static final int BUCKETS = 20;
+
+	private final String name;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	public LatencyHistogram(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Add a latency.
+	 *
+	 * @param nanos latency in ns
+	 */
+	public void add(long nanos) {
+		final long millis = Math.max(nanos / 1_000_000, 1);
+		counts.incrementAndGet(Math.min(63 - Long.numberOfLeadingZeros(millis), BUCKETS - 1));
+	}
+
+	/**
+	 * Get upper bound of the bucket containing the percentile.
+	 *
+	 * @param percentile percentile (0..100)
+	 * @return latency in ms the percentile is below of (0 means no latencies)
+	 */
+	public long getPercentile(double percentile) {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += counts.get(i);
+		}
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			count += counts.get(i);
+			if (count > 0 && count >= total * percentile / 100) {
+				return 2L << i;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder result = new StringBuilder(name).append(":");
+		for (int i = 0; i < BUCKETS; i++) {
+			if (counts.get(i) != 0) {
+				result.append(String.format(" <%dms=%d", 2L << i, counts.get(i)));
+			}
+		}
+		return result.append(String.format(" (p50<%dms, p90<%dms, p99<%dms)", getPercentile(50), getPercentile(90),
+				getPercentile(99))).toString();
+	}
+}
@@ -0,0 +1,136 @@
+package server.restful.common;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import libsidplay.common.CPUClock;
+import libsidplay.config.IC1541Section;
+import libsidplay.config.IConfig;
+import sidplay.Player;
+import sidplay.player.State;
+
+/**
+ * Pool of warm players for the conversion of tunes. Players are created once
+ * and reused with the configuration of the next request. The C64 of each
+ * hardware configuration (CPU clock, floppy, printer, etc.) is booted only
+ * once, players restore the booted C64 instead of running the KERNAL boot
+ * again.
+ *
+ * SID chips are not part of the pooled hardware, they are created by the player
+ * for each tune with the SID configuration of the request.
+ *
+ * Each tune starts with the C64 restored to the booted state, no matter if the
+ * player is new or reused. Without idle players (maximum of 0) nothing is
+ * shared, each request gets a new player, that boots the C64 as usual.
+ */
+public final class PlayerPool {
+
+	private static final class Machines {
+
+		private final Deque<Player> idlePlayers = new ArrayDeque<>();
+
+		private byte[] bootState;
+	}
+
+	private final Map<String, Machines> machinesMap = new HashMap<>();
+
+	private final int maxIdlePlayers;
+
+	private int idlePlayers;
+
+	/**
+	 * @param maxIdlePlayers maximum number of idle players kept in the pool
+	 */
+	public PlayerPool(int maxIdlePlayers) {
+		this.maxIdlePlayers = maxIdlePlayers;
+	}
+
+	/**
+	 * Check out a player with a booted C64 (create one, if no idle player is
+	 * available). The first check out of a hardware configuration boots the C64.
+	 * Without idle players (maximum of 0) a new player is returned, that boots
+	 * the C64 itself.
+	 *
+	 * @param config   configuration of the request
+	 * @param cpuClock CPU clock of the tune to play
+	 * @return player to play the tune, return it using {@link #checkin(Player)}
+	 * @throws IOException          machine state of the booted C64 cannot be
+	 *                              created
+	 * @throws InterruptedException boot interrupted
+	 */
+	public Player checkout(IConfig config, CPUClock cpuClock) throws IOException, InterruptedException {
+		if (maxIdlePlayers == 0) {
+			return new Player(config);
+		}
+		final Machines machines;
+		final Player player;
+		synchronized (this) {
+			machines = machinesMap.computeIfAbsent(getKey(config, cpuClock), key -> new Machines());
+			player = machines.idlePlayers.poll();
+			if (player != null) {
+				idlePlayers--;
+			}
+		}
+		final Player result;
+		if (player != null) {
+			player.setConfig(config);
+			result = player;
+		} else {
+			result = new Player(config);
+		}
+		// parallel requests of a new hardware configuration wait for the first boot
+		synchronized (machines) {
+			if (machines.bootState == null) {
+				machines.bootState = result.boot(cpuClock);
+			}
+		}
+		result.setBootState(machines.bootState);
+		return result;
+	}
+
+	/**
+	 * Return a player after use. Players that failed are dropped, the pool
+	 * creates new ones instead.
+	 *
+	 * @param player player returned by {@link #checkout(IConfig, CPUClock)}
+	 */
+	public void checkin(Player player) {
+		if (player.stateProperty().get() != State.END) {
+			return;
+		}
+		synchronized (this) {
+			if (idlePlayers < maxIdlePlayers) {
+				final String key = getKey(player.getConfig(), player.getC64().getClock());
+				machinesMap.computeIfAbsent(key, k -> new Machines()).idlePlayers.push(player);
+				idlePlayers++;
+			}
+		}
+	}
+
+	/**
+	 * Players and the booted C64 are shared by all requests with the same hardware
+	 * configuration (all settings used to reset the hardware).
+	 */
+	private String getKey(IConfig config, CPUClock cpuClock) {
+		final IC1541Section c1541Section = config.getC1541Section();
+		final StringBuilder key = new StringBuilder();
+		key.append(cpuClock).append(',').append(config.getEmulationSection().getUltimate64Mode());
+		key.append(',').append(config.getSidplay2Section().isPalEmulation());
+		key.append(',').append(config.getPrinterSection().isPrinterOn());
+		key.append(',').append(c1541Section.isDriveOn()).append(',').append(c1541Section.getFloppyType());
+		key.append(',').append(c1541Section.isJiffyDosInstalled()).append(',')
+				.append(c1541Section.isParallelCable());
+		for (int i = 0; i < 5; i++) {
+			key.append(',').append(c1541Section.isRamExpansion(i));
+		}
+		return key.toString();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%d idle players, %d hardware configurations", idlePlayers, machinesMap.size());
+	}
+}
@@ -14,6 +14,7 @@ import java.util.ResourceBundle;
 import libsidplay.common.ChipModel;
 import libsidplay.common.Emulation;
 import libsidplay.common.Event;
+import libsidplay.common.EventScheduler;
 import libsidplay.components.keyboard.KeyTableEntry;
 import libsidutils.status.Status;
 import net.java.truevfs.access.TArchiveDetector;
@@ -69,6 +70,12 @@ public final class RTMPPlayerWithStatus {
 		return validUntil;
 	}
 
+	public String getThreadSafeQueueStatistics() {
+		EventScheduler context = player.getC64().getEventScheduler();
+		return String.format("events: %s, key events: %s", context.getThreadSafeQueue(),
+				context.getThreadSafeKeyQueue());
+	}
+
 	public void quitPlayer() {
 		player.quit();
 	}
@@ -0,0 +1,137 @@
+package server.restful.common;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded executor of RTMP live video sessions. A fixed number of sessions run
+ * in parallel, further sessions wait in a bounded admission queue. Sessions,
+ * that do not start within the admission timeout or do not fit into the queue,
+ * are rejected.
+ */
+public final class RTMPSessionExecutor {
+
+	/**
+	 * RTMP live video session.
+	 */
+	@FunctionalInterface
+	public interface Session {
+		/**
+		 * Run the session until it ends.
+		 *
+		 * @param started call-back to signal, that the stream is available for the
+		 *                client
+		 * @throws Exception session error
+		 */
+		void run(Runnable started) throws Exception;
+	}
+
+	private final ThreadPoolExecutor executor;
+
+	private final int admissionTimeout;
+
+	private final Consumer<String> logger;
+
+	private final AtomicInteger active = new AtomicInteger(), threadNumber = new AtomicInteger();
+
+	private final AtomicLong completed = new AtomicLong(), failed = new AtomicLong(), rejected = new AtomicLong(),
+			timedOut = new AtomicLong();
+
+	/**
+	 * @param maxSessions      maximum number of sessions running in parallel
+	 * @param queueSize        maximum number of sessions waiting to be started
+	 * @param admissionTimeout maximum time in s a session waits to be started
+	 * @param logger           logger of session start, end and statistics
+	 */
+	public RTMPSessionExecutor(int maxSessions, int queueSize, int admissionTimeout, Consumer<String> logger) {
+		this.executor = new ThreadPoolExecutor(maxSessions, maxSessions, 0L, MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueSize)), runnable -> {
+					Thread thread = new Thread(runnable, "RTMP-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.admissionTimeout = admissionTimeout;
+		this.logger = logger;
+	}
+
+	/**
+	 * Submit a session and wait until its stream is available (or the session
+	 * ended before).
+	 *
+	 * @param uuid    session ID
+	 * @param session session to run
+	 * @return stream is available (false means rejected, try again later, or the
+	 *         session ended before its stream was available)
+	 * @throws InterruptedException interrupted while waiting for the session
+	 */
+	public boolean start(UUID uuid, Session session) throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(1);
+		final AtomicBoolean available = new AtomicBoolean();
+		final long submitTime = System.nanoTime();
+		final Future<?> future;
+		try {
+			future = executor.submit(() -> {
+				long startTime = System.nanoTime();
+				active.incrementAndGet();
+				logger.accept(String.format("START RTMP stream of: %s (queued %dms)", uuid,
+						MILLISECONDS.convert(startTime - submitTime, NANOSECONDS)));
+				try {
+					session.run(() -> {
+						available.set(true);
+						started.countDown();
+					});
+					completed.incrementAndGet();
+				} catch (Exception e) {
+					failed.incrementAndGet();
+					logger.accept("ERROR RTMP stream of: " + uuid + ": " + e.getMessage());
+				} finally {
+					started.countDown();
+					active.decrementAndGet();
+					logger.accept(String.format("END RTMP stream of: %s (ran %ds), %s", uuid,
+							SECONDS.convert(System.nanoTime() - startTime, NANOSECONDS), this));
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+			return false;
+		}
+		if (!started.await(admissionTimeout, SECONDS)) {
+			if (future.cancel(false)) {
+				// still waiting in the admission queue
+				executor.remove((Runnable) future);
+				timedOut.incrementAndGet();
+				return false;
+			}
+			// running, wait until the stream is available or the session failed
+			started.await();
+		}
+		return available.get();
+	}
+
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	public int getQueuedCount() {
+		return executor.getQueue().size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("RTMP sessions: %d active, %d queued, %d completed, %d failed, %d rejected, %d timed out",
+				active.get(), executor.getQueue().size(), completed.get(), failed.get(), rejected.get(),
+				timedOut.get());
+	}
+}
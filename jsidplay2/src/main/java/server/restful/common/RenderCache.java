@@ -0,0 +1,398 @@
+package server.restful.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import libsidplay.config.IAudioSection;
+import libsidplay.config.IC1541Section;
+import libsidplay.config.IConfig;
+import libsidplay.config.IEmulationSection;
+import libsidplay.config.IFilterSection;
+import libsidplay.config.ISidPlay2Section;
+import libsidplay.sidtune.MD5Method;
+import libsidplay.sidtune.SidTune;
+import libsidplay.sidtune.SidTuneError;
+
+/**
+ * Disk based cache of rendered audio (e.g. tunes converted to MP3). Entries are
+ * content addressed by the tune, the song and every setting of the
+ * configuration, that has an effect on the output.
+ *
+ * <UL>
+ * <LI>Cache hits are streamed from disk without emulation.
+ * <LI>Concurrent requests of the same entry share one emulation: the first
+ * request renders into the cache and streams to its client, the others follow
+ * the growing cache file.
+ * <LI>The least recently used entries are evicted, if the maximum size is
+ * exceeded.
+ * </UL>
+ */
+public final class RenderCache {
+
+	private static final String SUFFIX = ".cache", TMP_SUFFIX = ".tmp";
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Render audio into an output stream.
+	 */
+	@FunctionalInterface
+	public interface Renderer {
+		void render(OutputStream out) throws IOException, SidTuneError, InterruptedException;
+	}
+
+	/**
+	 * Cache entry currently rendered by the first request.
+	 */
+	private static final class Rendering {
+
+		private File file;
+
+		private long written;
+
+		private boolean done;
+
+		private Throwable error;
+	}
+
+	/**
+	 * Write into the cache file and to the client of the first request. If the
+	 * client goes away, rendering continues for the cache and the other clients.
+	 */
+	private static final class TeeOutputStream extends FilterOutputStream {
+
+		private final Rendering rendering;
+
+		private OutputStream client;
+
+		private TeeOutputStream(OutputStream file, OutputStream client, Rendering rendering) {
+			super(file);
+			this.client = client;
+			this.rendering = rendering;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			synchronized (rendering) {
+				rendering.written += len;
+				rendering.notifyAll();
+			}
+			if (client != null) {
+				try {
+					client.write(b, off, len);
+				} catch (IOException e) {
+					client = null;
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (client != null) {
+				try {
+					client.flush();
+				} catch (IOException e) {
+					client = null;
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	private final File directory;
+
+	private final long maxSize;
+
+	/**
+	 * Cached entries and their size in the order of their last access.
+	 */
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size;
+
+	private final Map<String, Rendering> renderings = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), coalesced = new AtomicLong();
+
+	/**
+	 * @param directory cache directory (entries of a previous run are reused)
+	 * @param maxSize   maximum size of all entries in bytes
+	 */
+	public RenderCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		directory.mkdirs();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+			for (File file : files) {
+				if (file.getName().endsWith(SUFFIX)) {
+					String key = file.getName().substring(0, file.getName().length() - SUFFIX.length());
+					entries.put(key, file.length());
+					size += file.length();
+				} else if (file.getName().endsWith(TMP_SUFFIX)) {
+					// interrupted rendering
+					file.delete();
+				}
+			}
+		}
+		evict();
+	}
+
+	/**
+	 * Get the cache key of a rendered tune.
+	 *
+	 * @param tune       tune to render (the current song is part of the key)
+	 * @param config     configuration used to render the tune
+	 * @param parameters further parameters, that have an effect on the output
+	 *                   (e.g. song length)
+	 * @return cache key or null (tune cannot be identified)
+	 */
+	public static String getKey(SidTune tune, IConfig config, Object... parameters) {
+		final String md5 = tune.getMD5Digest(MD5Method.MD5_CONTENTS);
+		if (md5 == null) {
+			return null;
+		}
+		final StringBuilder key = new StringBuilder(md5).append(',').append(tune.getInfo().getCurrentSong());
+		appendProperties(key, ISidPlay2Section.class, config.getSidplay2Section());
+		appendProperties(key, IAudioSection.class, config.getAudioSection());
+		appendProperties(key, IEmulationSection.class, config.getEmulationSection());
+		appendProperties(key, IC1541Section.class, config.getC1541Section());
+		// filter definitions referenced by name in the emulation section
+		List<IFilterSection> filters = new ArrayList<>(config.getFilterSection());
+		filters.sort(Comparator.comparing(IFilterSection::getName));
+		for (IFilterSection filter : filters) {
+			appendProperties(key, IFilterSection.class, filter);
+		}
+		for (Object parameter : parameters) {
+			key.append(',').append(parameter);
+		}
+		try {
+			StringBuilder digest = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(UTF_8))) {
+				digest.append(String.format("%02x", b & 0xff));
+			}
+			return digest.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Append all value properties of a configuration section sorted by name
+	 * (canonical form of the effective configuration).
+	 */
+	private static <T> void appendProperties(StringBuilder key, Class<T> sectionClass, T section) {
+		Method[] methods = sectionClass.getMethods();
+		Arrays.sort(methods, Comparator.comparing(Method::getName));
+		for (Method method : methods) {
+			String name = method.getName();
+			Class<?> type = method.getReturnType();
+			if (method.getParameterCount() == 0 && (name.startsWith("get") || name.startsWith("is"))
+					&& (type.isPrimitive() && type != void.class || type.isEnum() || type == String.class
+							|| type == File.class)) {
+				try {
+					key.append(',').append(name).append('=').append(method.invoke(section));
+				} catch (IllegalAccessException | InvocationTargetException e) {
+					throw new RuntimeException(e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stream a cache entry. If it is not cached, it gets rendered (or the
+	 * rendering of a concurrent request is shared).
+	 *
+	 * @param key      cache key, see {@link #getKey(SidTune, IConfig, Object...)}
+	 * @param out      output stream of the client
+	 * @param renderer renderer to create the cache entry
+	 * @throws IOException          I/O error or rendering failed
+	 * @throws SidTuneError         invalid tune
+	 * @throws InterruptedException rendering interrupted
+	 */
+	public void get(String key, OutputStream out, Renderer renderer)
+			throws IOException, SidTuneError, InterruptedException {
+		InputStream cached = open(key);
+		if (cached != null) {
+			hits.incrementAndGet();
+			try (InputStream in = cached) {
+				copy(in, out, Long.MAX_VALUE);
+			}
+			return;
+		}
+		final Rendering rendering = new Rendering();
+		final Rendering concurrentRendering = renderings.putIfAbsent(key, rendering);
+		if (concurrentRendering != null) {
+			coalesced.incrementAndGet();
+			follow(concurrentRendering, out);
+			return;
+		}
+		misses.incrementAndGet();
+		try {
+			render(key, rendering, out, renderer);
+		} finally {
+			renderings.remove(key);
+		}
+	}
+
+	private void render(String key, Rendering rendering, OutputStream out, Renderer renderer)
+			throws IOException, SidTuneError, InterruptedException {
+		final File tmpFile;
+		try {
+			tmpFile = File.createTempFile(key + "-", TMP_SUFFIX, directory);
+		} catch (IOException e) {
+			synchronized (rendering) {
+				rendering.error = e;
+				rendering.notifyAll();
+			}
+			throw e;
+		}
+		synchronized (rendering) {
+			rendering.file = tmpFile;
+			rendering.notifyAll();
+		}
+		try {
+			try (TeeOutputStream tee = new TeeOutputStream(new FileOutputStream(tmpFile), out, rendering)) {
+				renderer.render(tee);
+			}
+			final File file = new File(directory, key + SUFFIX);
+			synchronized (rendering) {
+				Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+				rendering.file = file;
+				rendering.done = true;
+				rendering.notifyAll();
+			}
+			synchronized (entries) {
+				Long oldSize = entries.put(key, file.length());
+				size += file.length() - (oldSize != null ? oldSize : 0);
+			}
+			evict();
+		} catch (IOException | SidTuneError | InterruptedException | RuntimeException e) {
+			synchronized (rendering) {
+				rendering.error = e;
+				rendering.notifyAll();
+			}
+			tmpFile.delete();
+			throw e;
+		}
+	}
+
+	/**
+	 * Stream the growing cache file of a concurrent rendering.
+	 */
+	private void follow(Rendering rendering, OutputStream out) throws IOException, InterruptedException {
+		final InputStream file;
+		synchronized (rendering) {
+			while (rendering.file == null && rendering.error == null) {
+				rendering.wait();
+			}
+			if (rendering.error != null) {
+				throw new IOException("Rendering of a concurrent request failed", rendering.error);
+			}
+			file = new FileInputStream(rendering.file);
+		}
+		try (InputStream in = file) {
+			long position = 0;
+			while (true) {
+				final long available;
+				final boolean done;
+				synchronized (rendering) {
+					while (!rendering.done && rendering.error == null && rendering.written == position) {
+						rendering.wait();
+					}
+					if (rendering.error != null) {
+						throw new IOException("Rendering of a concurrent request failed", rendering.error);
+					}
+					available = rendering.written - position;
+					done = rendering.done;
+				}
+				if (done && available == 0) {
+					break;
+				}
+				position += copy(in, out, available);
+			}
+		}
+	}
+
+	private InputStream open(String key) throws IOException {
+		synchronized (entries) {
+			if (entries.get(key) == null) {
+				return null;
+			}
+			File file = new File(directory, key + SUFFIX);
+			if (!file.exists()) {
+				size -= entries.remove(key);
+				return null;
+			}
+			return new FileInputStream(file);
+		}
+	}
+
+	/**
+	 * Remove least recently used entries until the maximum size is reached.
+	 */
+	private void evict() {
+		synchronized (entries) {
+			for (Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator(); size > maxSize
+					&& it.hasNext();) {
+				Map.Entry<String, Long> entry = it.next();
+				new File(directory, entry.getKey() + SUFFIX).delete();
+				size -= entry.getValue();
+				it.remove();
+			}
+		}
+	}
+
+	private static long copy(InputStream in, OutputStream out, long length) throws IOException {
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		long copied = 0;
+		int len;
+		while (copied < length && (len = in.read(buffer, 0, (int) Math.min(buffer.length, length - copied))) >= 0) {
+			out.write(buffer, 0, len);
+			copied += len;
+		}
+		return copied;
+	}
+
+	@Override
+	public String toString() {
+		synchronized (entries) {
+			return String.format("Render cache: %d hits, %d misses, %d coalesced, %d entries, %dMB", hits.get(),
+					misses.get(), coalesced.get(), entries.size(), size >> 20);
+		}
+	}
+}
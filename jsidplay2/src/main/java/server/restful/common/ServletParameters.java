@@ -18,8 +18,6 @@ public class ServletParameters {
 	@ParametersDelegate
 	private IniConfig config = new IniConfig();
 
-	private volatile boolean started;
-
 	public Integer getSong() {
 		return song;
 	}
@@ -31,12 +29,4 @@ public class ServletParameters {
 	public IniConfig getConfig() {
 		return config;
 	}
-
-	public boolean isStarted() {
-		return started;
-	}
-
-	public void setStarted(boolean started) {
-		this.started = started;
-	}
 }
@@ -0,0 +1,253 @@
+package server.restful.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import libsidutils.ZipFileUtils;
+
+/**
+ * Static content (files or bytes in memory) served with support of conditional
+ * GET (ETag, If-None-Match, If-Modified-Since) and byte ranges (Range,
+ * If-Range) to seek in large downloads.
+ *
+ * Plain files are sent without copying them through the heap: by sendfile of
+ * the Tomcat connector, if supported, else by {@link FileChannel#transferTo}.
+ * Files inside of archives are streamed.
+ */
+public final class StaticContent {
+
+	/**
+	 * Request attributes of Tomcat to send a file by the connector.
+	 */
+	private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support",
+			SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename",
+			SENDFILE_FILE_START_ATTR = "org.apache.tomcat.sendfile.start",
+			SENDFILE_FILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+	private static final String ETAG = "ETag", LAST_MODIFIED = "Last-Modified", ACCEPT_RANGES = "Accept-Ranges",
+			CONTENT_RANGE = "Content-Range", IF_NONE_MATCH = "If-None-Match", IF_MODIFIED_SINCE = "If-Modified-Since",
+			RANGE = "Range", IF_RANGE = "If-Range", BYTES = "bytes";
+
+	private final File file;
+
+	private final byte[] content;
+
+	private final long length, lastModified;
+
+	private final String eTag;
+
+	/**
+	 * Static content of a file, the ETag is derived from the file metadata.
+	 *
+	 * @param file file to serve (plain file or file inside of an archive)
+	 */
+	public StaticContent(File file) {
+		this.file = file;
+		this.content = null;
+		this.length = file.length();
+		this.lastModified = file.lastModified();
+		this.eTag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+	}
+
+	/**
+	 * Static content in memory, the ETag is derived from the content hash.
+	 *
+	 * @param content content to serve
+	 */
+	public StaticContent(byte[] content) {
+		this.file = null;
+		this.content = content;
+		this.length = content.length;
+		this.lastModified = -1;
+		try {
+			StringBuilder hash = new StringBuilder("\"");
+			for (byte b : MessageDigest.getInstance("MD5").digest(content)) {
+				hash.append(String.format("%02x", b & 0xff));
+			}
+			this.eTag = hash.append('"').toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e.getMessage(), e);
+		}
+	}
+
+	public String getETag() {
+		return eTag;
+	}
+
+	/**
+	 * Send the content (status 200), a part of it (status 206) or nothing, if the
+	 * client's copy is still valid (status 304). The content type must be set by
+	 * the caller.
+	 *
+	 * @param request  servlet request
+	 * @param response servlet response
+	 * @throws IOException I/O error
+	 */
+	public void send(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setHeader(ETAG, eTag);
+		if (lastModified > 0) {
+			response.setDateHeader(LAST_MODIFIED, lastModified);
+		}
+		response.setHeader(ACCEPT_RANGES, BYTES);
+
+		if (isNotModified(request)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		long start = 0, end = length;
+		String range = request.getHeader(RANGE);
+		if (range != null && isRangeValid(request)) {
+			long[] byteRange = parseRange(range);
+			if (byteRange != null) {
+				if (byteRange[0] >= length) {
+					response.setHeader(CONTENT_RANGE, BYTES + " */" + length);
+					response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+					return;
+				}
+				start = byteRange[0];
+				end = Math.min(byteRange[1], length);
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader(CONTENT_RANGE, BYTES + " " + start + "-" + (end - 1) + "/" + length);
+			}
+		}
+		response.setContentLengthLong(end - start);
+
+		if (content != null) {
+			response.getOutputStream().write(content, (int) start, (int) (end - start));
+		} else if (new File(file.getPath()).isFile()) {
+			sendFile(request, response, new File(file.getPath()), start, end);
+		} else {
+			// file inside of an archive
+			try (InputStream in = ZipFileUtils.newFileInputStream(file)) {
+				skip(in, start);
+				copy(in, response.getOutputStream(), end - start);
+			}
+		}
+	}
+
+	private boolean isNotModified(HttpServletRequest request) {
+		String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+		if (ifNoneMatch != null) {
+			for (String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(eTag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		long ifModifiedSince = getDateHeader(request, IF_MODIFIED_SINCE);
+		return lastModified > 0 && ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+	}
+
+	/**
+	 * @return the range request is valid for the current content (If-Range)
+	 */
+	private boolean isRangeValid(HttpServletRequest request) {
+		String ifRange = request.getHeader(IF_RANGE);
+		if (ifRange == null) {
+			return true;
+		} else if (ifRange.trim().startsWith("\"")) {
+			return ifRange.trim().equals(eTag);
+		}
+		long date = getDateHeader(request, IF_RANGE);
+		return lastModified > 0 && date != -1 && lastModified / 1000 <= date / 1000;
+	}
+
+	/**
+	 * Parse a single byte range (multiple ranges are not supported, the whole
+	 * content is sent instead).
+	 *
+	 * @return start (inclusive) and end (exclusive) or null (no valid single
+	 *         range)
+	 */
+	private long[] parseRange(String range) {
+		range = range.trim();
+		if (!range.startsWith(BYTES + "=") || range.indexOf(',') != -1) {
+			return null;
+		}
+		String spec = range.substring(BYTES.length() + 1).trim();
+		int dash = spec.indexOf('-');
+		if (dash == -1) {
+			return null;
+		}
+		try {
+			String first = spec.substring(0, dash).trim(), last = spec.substring(dash + 1).trim();
+			if (first.isEmpty()) {
+				// suffix range: last bytes
+				long suffix = Long.parseLong(last);
+				return suffix > 0 ? new long[] { Math.max(0, length - suffix), length } : null;
+			}
+			long start = Long.parseLong(first);
+			long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last) + 1;
+			return start >= 0 && end > start ? new long[] { start, end } : null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private long getDateHeader(HttpServletRequest request, String name) {
+		try {
+			return request.getDateHeader(name);
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+	private void sendFile(HttpServletRequest request, HttpServletResponse response, File plainFile, long start,
+			long end) throws IOException {
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+			// zero copy: the connector sends the file after the servlet returns
+			request.setAttribute(SENDFILE_FILENAME_ATTR, plainFile.getCanonicalPath());
+			request.setAttribute(SENDFILE_FILE_START_ATTR, start);
+			request.setAttribute(SENDFILE_FILE_END_ATTR, end);
+			return;
+		}
+		OutputStream out = response.getOutputStream();
+		WritableByteChannel outputChannel = Channels.newChannel(out);
+		try (FileChannel inputChannel = FileChannel.open(plainFile.toPath(), StandardOpenOption.READ)) {
+			long position = start;
+			while (position < end) {
+				long transferred = inputChannel.transferTo(position, end - position, outputChannel);
+				if (transferred <= 0) {
+					break;
+				}
+				position += transferred;
+			}
+		}
+		out.flush();
+	}
+
+	private static void skip(InputStream in, long count) throws IOException {
+		while (count > 0) {
+			long skipped = in.skip(count);
+			if (skipped <= 0) {
+				if (in.read() == -1) {
+					return;
+				}
+				skipped = 1;
+			}
+			count -= skipped;
+		}
+	}
+
+	private static void copy(InputStream in, OutputStream out, long count) throws IOException {
+		byte[] buffer = new byte[1 << 16];
+		int len;
+		while (count > 0 && (len = in.read(buffer, 0, (int) Math.min(buffer.length, count))) != -1) {
+			out.write(buffer, 0, len);
+			count -= len;
+		}
+	}
+
+}
@@ -3,40 +3,294 @@ package server.restful.filters;
 import static server.restful.common.ContentTypeAndFileExtensions.MIME_TYPE_TEXT;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import server.restful.common.LatencyHistogram;
 
+/**
+ * Admission of requests to a servlet.
+ *
+ * <UL>
+ * <LI>Each client (authenticated user or remote address) has a token bucket
+ * limiting its request rate (optional).
+ * <LI>A maximum number of requests is processed in parallel, further requests
+ * wait in a bounded queue. Waiting clients are served round robin, a client
+ * sending many requests cannot starve the others.
+ * <LI>Rejected requests get status code 429 (Too Many Requests) and a
+ * Retry-After hint.
+ * </UL>
+ */
 public final class LimitRequestServletFilter implements Filter {
 
-	private final AtomicInteger atomicServletRequestCounter = new AtomicInteger();
+	private static final String RETRY_AFTER = "Retry-After";
 
-	private final int maxRequestServletCount;
+	private static final int MAX_TOKEN_BUCKETS = 10000;
 
-	public LimitRequestServletFilter(int maxRequestServletCount) {
+	private static final int STATISTICS_INTERVAL = 100;
+
+	/**
+	 * Minimum time in ns between two evictions of idle clients.
+	 */
+	private static final long EVICTION_INTERVAL = 60_000_000_000L;
+
+	/**
+	 * Request rate limit of a client.
+	 */
+	private static final class TokenBucket {
+
+		private double tokens;
+
+		private long lastRefill = System.nanoTime();
+
+		private TokenBucket(double tokens) {
+			this.tokens = tokens;
+		}
+	}
+
+	/**
+	 * Request waiting in the queue.
+	 */
+	private static final class Waiter {
+
+		private boolean admitted;
+	}
+
+	private final int maxRequestServletCount, maxQueuedRequests;
+
+	private final long queueTimeoutMillis;
+
+	private final double tokensPerSecond, burst;
+
+	private final Map<String, TokenBucket> tokenBuckets = new ConcurrentHashMap<>();
+
+	/**
+	 * Waiting requests per client, in the order the clients are served next.
+	 */
+	private final LinkedHashMap<String, Deque<Waiter>> queues = new LinkedHashMap<>();
+
+	private int runningRequests, queuedRequests;
+
+	private final LatencyHistogram queueWait = new LatencyHistogram("Queue wait");
+
+	private final AtomicLong admitted = new AtomicLong(), rejected = new AtomicLong(), timedOut = new AtomicLong(),
+			rateLimited = new AtomicLong(), tooManyRequests = new AtomicLong();
+
+	private final AtomicLong lastEviction = new AtomicLong(System.nanoTime());
+
+	private ServletContext servletContext;
+
+	/**
+	 * @param maxRequestServletCount maximum number of requests in parallel
+	 * @param maxQueuedRequests      maximum number of requests waiting to be
+	 *                               processed
+	 * @param queueTimeout           maximum time in s a request waits to be
+	 *                               processed
+	 * @param requestsPerMinute      request rate per client (0 means no limit)
+	 * @param burst                  maximum number of requests per client in a
+	 *                               burst
+	 */
+	public LimitRequestServletFilter(int maxRequestServletCount, int maxQueuedRequests, int queueTimeout,
+			int requestsPerMinute, int burst) {
 		this.maxRequestServletCount = maxRequestServletCount;
+		this.maxQueuedRequests = maxQueuedRequests;
+		this.queueTimeoutMillis = queueTimeout * 1000L;
+		this.tokensPerSecond = requestsPerMinute / 60.;
+		this.burst = Math.max(1, burst);
+	}
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+		servletContext = filterConfig.getServletContext();
 	}
 
 	@Override
 	public void doFilter(final ServletRequest servletRequest, final ServletResponse servletResponse,
 			final FilterChain chain) throws IOException, ServletException {
+		final HttpServletResponse response = (HttpServletResponse) servletResponse;
+		final String client = getClient((HttpServletRequest) servletRequest);
+
+		long retryAfter = consumeToken(client);
+		if (retryAfter > 0) {
+			rateLimited.incrementAndGet();
+			tooManyRequests(response, retryAfter);
+			return;
+		}
+		final long queueTime = System.nanoTime();
+		final Boolean acquired;
+		try {
+			acquired = acquire(client);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ServletException(e);
+		}
+		if (acquired == null) {
+			rejected.incrementAndGet();
+			tooManyRequests(response, Math.max(1, queueTimeoutMillis / 1000));
+			return;
+		} else if (!acquired) {
+			timedOut.incrementAndGet();
+			tooManyRequests(response, Math.max(1, queueTimeoutMillis / 1000));
+			return;
+		}
+		queueWait.add(System.nanoTime() - queueTime);
+		if (admitted.incrementAndGet() % STATISTICS_INTERVAL == 0) {
+			log(toString());
+		}
 		try {
-			if (atomicServletRequestCounter.getAndIncrement() < maxRequestServletCount) {
-				// let the request through and process as usual
-				chain.doFilter(servletRequest, servletResponse);
-			} else {
-				// handle limit case, e.g. return status code 429 (Too Many Requests)
-				HttpServletResponse response = (HttpServletResponse) servletResponse;
-				response.setContentType(MIME_TYPE_TEXT.toString());
-				response.sendError(429, "Too Many Requests");
+			// let the request through and process as usual
+			chain.doFilter(servletRequest, servletResponse);
+		} finally {
+			release();
+		}
+	}
+
+	private String getClient(HttpServletRequest request) {
+		return request.getRemoteUser() != null ? "user:" + request.getRemoteUser()
+				: "address:" + request.getRemoteAddr();
+	}
+
+	/**
+	 * Consume a token of the client's bucket.
+	 *
+	 * @return 0 (token consumed) or time in s until the next token is available
+	 */
+	private long consumeToken(String client) {
+		if (tokensPerSecond <= 0) {
+			return 0;
+		}
+		final long now = System.nanoTime(), last = lastEviction.get();
+		if (tokenBuckets.size() > MAX_TOKEN_BUCKETS && now - last >= EVICTION_INTERVAL
+				&& lastEviction.compareAndSet(last, now)) {
+			// forget idle clients (once per interval by a single thread)
+			tokenBuckets.values().removeIf(bucket -> {
+				synchronized (bucket) {
+					refill(bucket);
+					return bucket.tokens >= burst;
+				}
+			});
+		}
+		TokenBucket bucket = tokenBuckets.computeIfAbsent(client, key -> new TokenBucket(burst));
+		synchronized (bucket) {
+			refill(bucket);
+			if (bucket.tokens >= 1) {
+				bucket.tokens--;
+				return 0;
+			}
+			return (long) Math.ceil((1 - bucket.tokens) / tokensPerSecond);
+		}
+	}
+
+	private void refill(TokenBucket bucket) {
+		long now = System.nanoTime();
+		bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.lastRefill) / 1_000_000_000. * tokensPerSecond);
+		bucket.lastRefill = now;
+	}
+
+	/**
+	 * Acquire a permit to process a request, wait in the queue if necessary.
+	 *
+	 * @return permit acquired (false means queue timeout, null means queue full)
+	 */
+	private synchronized Boolean acquire(String client) throws InterruptedException {
+		if (runningRequests < maxRequestServletCount && queuedRequests == 0) {
+			runningRequests++;
+			return true;
+		}
+		if (queuedRequests >= maxQueuedRequests) {
+			return null;
+		}
+		final Waiter waiter = new Waiter();
+		queues.computeIfAbsent(client, key -> new ArrayDeque<>()).add(waiter);
+		queuedRequests++;
+		final long deadline = System.currentTimeMillis() + queueTimeoutMillis;
+		try {
+			while (!waiter.admitted) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					break;
+				}
+				wait(remaining);
+			}
+		} catch (InterruptedException e) {
+			if (waiter.admitted) {
+				// keep the permit, it is released after the request
+				Thread.currentThread().interrupt();
+				return true;
 			}
+			throw e;
 		} finally {
-			atomicServletRequestCounter.getAndDecrement();
+			if (!waiter.admitted) {
+				Deque<Waiter> queue = queues.get(client);
+				queue.remove(waiter);
+				if (queue.isEmpty()) {
+					queues.remove(client);
+				}
+				queuedRequests--;
+			}
+		}
+		return waiter.admitted;
+	}
+
+	/**
+	 * Release the permit of a processed request, pass it to the next waiting
+	 * client (round robin).
+	 */
+	private synchronized void release() {
+		Iterator<Map.Entry<String, Deque<Waiter>>> it = queues.entrySet().iterator();
+		if (it.hasNext()) {
+			Map.Entry<String, Deque<Waiter>> next = it.next();
+			it.remove();
+			next.getValue().poll().admitted = true;
+			queuedRequests--;
+			if (!next.getValue().isEmpty()) {
+				// the client is served again after all other waiting clients
+				queues.put(next.getKey(), next.getValue());
+			}
+			notifyAll();
+		} else {
+			runningRequests--;
+		}
+	}
+
+	private void tooManyRequests(HttpServletResponse response, long retryAfter) throws IOException {
+		if (tooManyRequests.incrementAndGet() % STATISTICS_INTERVAL == 1) {
+			log(toString());
+		}
+		response.setContentType(MIME_TYPE_TEXT.toString());
+		response.setHeader(RETRY_AFTER, String.valueOf(retryAfter));
+		response.sendError(429, "Too Many Requests");
+	}
+
+	private void log(String msg) {
+		if (servletContext != null) {
+			servletContext.log(Thread.currentThread().getName() + ": " + msg);
+		}
+	}
+
+	@Override
+	public String toString() {
+		final int running, queued;
+		synchronized (this) {
+			running = runningRequests;
+			queued = queuedRequests;
 		}
+		return String.format("Requests: %d running, %d queued, %d admitted, %d rejected, %d timed out, "
+				+ "%d rate limited, %s", running, queued, admitted.get(), rejected.get(), timedOut.get(),
+				rateLimited.get(), queueWait);
 	}
 }
@@ -1,6 +1,5 @@
 package server.restful.servlets;
 
-import static java.lang.Thread.getAllStackTraces;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static libsidplay.components.keyboard.KeyTableEntry.SPACE;
 import static libsidutils.PathUtils.getFilenameSuffix;
@@ -15,13 +14,22 @@ import static server.restful.common.CleanupPlayerTimerTask.create;
 import static server.restful.common.ContentTypeAndFileExtensions.MIME_TYPE_HTML;
 import static server.restful.common.ContentTypeAndFileExtensions.MIME_TYPE_TEXT;
 import static server.restful.common.ContentTypeAndFileExtensions.getMimeType;
+import static server.restful.common.IServletSystemProperties.CONVERT_CACHE_DIRECTORY;
+import static server.restful.common.IServletSystemProperties.CONVERT_CACHE_SIZE;
+import static server.restful.common.IServletSystemProperties.CONVERT_PLAYER_POOL_SIZE;
+import static server.restful.common.IServletSystemProperties.CONVERT_REQUESTS_PER_MINUTE;
+import static server.restful.common.IServletSystemProperties.CONVERT_REQUEST_BURST;
 import static server.restful.common.IServletSystemProperties.MAX_CONVERT_IN_PARALLEL;
 import static server.restful.common.IServletSystemProperties.MAX_LENGTH;
+import static server.restful.common.IServletSystemProperties.MAX_QUEUED_REQUESTS;
 import static server.restful.common.IServletSystemProperties.MAX_RTMP_IN_PARALLEL;
 import static server.restful.common.IServletSystemProperties.PRESS_SPACE_INTERVALL;
+import static server.restful.common.IServletSystemProperties.REQUEST_QUEUE_TIMEOUT;
+import static server.restful.common.IServletSystemProperties.RTMP_ADMISSION_TIMEOUT;
 import static server.restful.common.IServletSystemProperties.RTMP_EXTERNAL_DOWNLOAD_URL;
 import static server.restful.common.IServletSystemProperties.RTMP_INTERNAL_DOWNLOAD_URL;
 import static server.restful.common.IServletSystemProperties.RTMP_NOT_YET_PLAYED_TIMEOUT;
+import static server.restful.common.IServletSystemProperties.RTMP_QUEUE_SIZE;
 import static server.restful.common.IServletSystemProperties.RTMP_UPLOAD_URL;
 import static server.restful.common.IServletSystemProperties.WAIT_FOR_RTMP;
 import static sidplay.audio.Audio.AAC;
@@ -32,9 +40,11 @@ import static sidplay.audio.Audio.MP3;
 import static sidplay.audio.Audio.MP4;
 import static sidplay.audio.Audio.SID_DUMP;
 import static sidplay.audio.Audio.SID_REG;
+import static sidplay.audio.Audio.SID_REG_CAPTURE;
 import static sidplay.audio.Audio.WAV;
 
 import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -47,6 +57,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.http.HttpHeaders;
 
@@ -56,6 +68,7 @@ import jakarta.servlet.Filter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import libsidplay.common.CPUClock;
 import libsidplay.common.Event;
 import libsidplay.config.IConfig;
 import libsidplay.config.ISidPlay2Section;
@@ -64,6 +77,10 @@ import libsidplay.sidtune.SidTuneError;
 import libsidutils.PathUtils;
 import libsidutils.siddatabase.SidDatabase;
 import server.restful.common.JSIDPlay2Servlet;
+import server.restful.common.LatencyHistogram;
+import server.restful.common.PlayerPool;
+import server.restful.common.RTMPSessionExecutor;
+import server.restful.common.RenderCache;
 import server.restful.common.ServletParameters;
 import server.restful.filters.LimitRequestServletFilter;
 import sidplay.Player;
@@ -78,6 +95,7 @@ import sidplay.audio.MP3Driver.MP3StreamDriver;
 import sidplay.audio.MP4Driver.MP4FileDriver;
 import sidplay.audio.ProxyDriver;
 import sidplay.audio.SIDDumpDriver.SIDDumpStreamDriver;
+import sidplay.audio.SIDRegCaptureDriver.SIDRegCaptureStreamDriver;
 import sidplay.audio.SIDRegDriver.SIDRegStreamDriver;
 import sidplay.audio.SleepDriver;
 import sidplay.audio.WAVDriver.WAVStreamDriver;
@@ -102,6 +120,21 @@ public class ConvertServlet extends JSIDPlay2Servlet {
 	private static final TapeFileFilter tapeFileFilter = new TapeFileFilter();
 	private static final CartFileFilter cartFileFilter = new CartFileFilter();
 
+	private static final int STATISTICS_INTERVAL = 100;
+
+	private final PlayerPool playerPool = new PlayerPool(CONVERT_PLAYER_POOL_SIZE);
+
+	private final RenderCache renderCache = CONVERT_CACHE_SIZE > 0
+			? new RenderCache(new File(CONVERT_CACHE_DIRECTORY), CONVERT_CACHE_SIZE * 1024L * 1024L)
+			: null;
+
+	private final RTMPSessionExecutor rtmpSessionExecutor = new RTMPSessionExecutor(MAX_RTMP_IN_PARALLEL,
+			RTMP_QUEUE_SIZE, RTMP_ADMISSION_TIMEOUT, this::info);
+
+	private final LatencyHistogram timeToFirstByte = new LatencyHistogram("Time to first byte");
+
+	private final AtomicLong audioConversions = new AtomicLong();
+
 	public ConvertServlet(Configuration configuration, Properties directoryProperties) {
 		super(configuration, directoryProperties);
 	}
@@ -113,7 +146,8 @@ public class ConvertServlet extends JSIDPlay2Servlet {
 
 	@Override
 	public Filter createServletFilter() {
-		return new LimitRequestServletFilter(MAX_CONVERT_IN_PARALLEL);
+		return new LimitRequestServletFilter(MAX_CONVERT_IN_PARALLEL, MAX_QUEUED_REQUESTS, REQUEST_QUEUE_TIMEOUT,
+				CONVERT_REQUESTS_PER_MINUTE, CONVERT_REQUEST_BURST);
 	}
 
 	/**
@@ -133,6 +167,7 @@ public class ConvertServlet extends JSIDPlay2Servlet {
 	protected void doGet(HttpServletRequest request, HttpServletResponse response)
 			throws ServletException, IOException {
 		super.doGet(request);
+		final long requestTime = System.nanoTime();
 		try {
 			String filePath = request.getPathInfo();
 			File file = getAbsoluteFile(filePath, request.isUserInRole(ROLE_ADMIN));
@@ -147,14 +182,20 @@ public class ConvertServlet extends JSIDPlay2Servlet {
 						.parse(args);
 
 				Audio audio = getAudioFormat(config);
-				AudioDriver driver = getAudioDriverOfAudioFormat(audio, response.getOutputStream());
+				OutputStream outputStream = measureFirstByte(response.getOutputStream(), requestTime,
+						timeToFirstByte);
+				AudioDriver driver = getAudioDriverOfAudioFormat(audio, outputStream);
 
 				response.setContentType(getMimeType(driver.getExtension()).toString());
 				if (Boolean.TRUE.equals(servletParameters.getDownload())) {
 					response.addHeader(CONTENT_DISPOSITION, ATTACHMENT + "; filename="
 							+ getFilenameWithoutSuffix(file.getName()) + driver.getExtension());
 				}
-				convert2audio(config, file, driver, servletParameters);
+				convert2audio(config, file, audio, outputStream, servletParameters);
+				if (audioConversions.incrementAndGet() % STATISTICS_INTERVAL == 0) {
+					info(timeToFirstByte.toString() + ", " + playerPool
+							+ (renderCache != null ? ", " + renderCache : ""));
+				}
 			} else if (videoTuneFileFilter.accept(file) || cartFileFilter.accept(file) || diskFileFilter.accept(file)
 					|| tapeFileFilter.accept(file)) {
 
@@ -172,23 +213,16 @@ public class ConvertServlet extends JSIDPlay2Servlet {
 				AudioDriver driver = getAudioDriverOfVideoFormat(audio, uuid, servletParameters.getDownload());
 
 				if (Boolean.FALSE.equals(servletParameters.getDownload()) && audio == FLV) {
-					if (getAllStackTraces().keySet().stream().map(Thread::getName).filter("RTMP"::equals)
-							.count() < MAX_RTMP_IN_PARALLEL) {
-						new Thread(() -> {
-							try {
-								Player player = new Player(config);
-								info("START RTMP stream of: " + uuid);
-								convert2liveVideo(uuid, player, file, driver, servletParameters);
-								info("END RTMP stream of: " + uuid);
-							} catch (IOException | SidTuneError e) {
-								log("ERROR RTMP stream of: " + uuid + ":", e);
-							} finally {
-								servletParameters.setStarted(true);
-							}
-						}, "RTMP").start();
-						while (!servletParameters.isStarted()) {
-							Thread.yield();
+					AtomicReference<Exception> failure = new AtomicReference<>();
+					if (rtmpSessionExecutor.start(uuid, started -> {
+						try {
+							convert2liveVideo(uuid, new Player(config), file, driver, started);
+						} catch (Exception e) {
+							failure.set(e);
+							throw e;
 						}
+					})) {
+						info(rtmpSessionExecutor.toString());
 						response.setHeader(HttpHeaders.PRAGMA, "no-cache");
 						response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-store, no-cache, must-revalidate");
 
@@ -204,8 +238,15 @@ public class ConvertServlet extends JSIDPlay2Servlet {
 								.getResourceAsStream("/server/restful/webapp/convert.html")) {
 							response.getWriter().println(convertStreamToString(is, UTF_8.name(), replacements));
 						}
+					} else if (failure.get() != null) {
+						// session failed before the stream was available
+						response.setContentType(MIME_TYPE_TEXT.toString());
+						response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, failure.get().getMessage());
+						return;
 					} else {
+						info(rtmpSessionExecutor.toString());
 						response.setContentType(MIME_TYPE_TEXT.toString());
+						response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RTMP_ADMISSION_TIMEOUT));
 						response.sendError(429, "Too Many Requests");
 						return;
 					}
@@ -254,6 +295,8 @@ public class ConvertServlet extends JSIDPlay2Servlet {
 			return SID_DUMP;
 		case SID_REG:
 			return SID_REG;
+		case SID_REG_CAPTURE:
+			return SID_REG_CAPTURE;
 		}
 	}
 
@@ -272,25 +315,70 @@ public class ConvertServlet extends JSIDPlay2Servlet {
 			return new SIDDumpStreamDriver(outputstream);
 		case SID_REG:
 			return new SIDRegStreamDriver(outputstream);
+		case SID_REG_CAPTURE:
+			return new SIDRegCaptureStreamDriver(outputstream);
 		}
 	}
 
-	private void convert2audio(IConfig config, File file, AudioDriver driver, ServletParameters servletParameters)
-			throws IOException, SidTuneError {
-		Player player = new Player(config);
+	private OutputStream measureFirstByte(OutputStream outputStream, long requestTime, LatencyHistogram histogram) {
+		return new FilterOutputStream(outputStream) {
+
+			private boolean written;
+
+			@Override
+			public void write(int b) throws IOException {
+				firstByte();
+				out.write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				firstByte();
+				out.write(b, off, len);
+			}
+
+			private void firstByte() {
+				if (!written) {
+					written = true;
+					histogram.add(System.nanoTime() - requestTime);
+				}
+			}
+		};
+	}
+
+	private void convert2audio(IConfig config, File file, Audio audio, OutputStream outputStream,
+			ServletParameters servletParameters) throws IOException, SidTuneError, InterruptedException {
+		SidTune tune = SidTune.load(file);
+		tune.getInfo().setSelectedSong(servletParameters.getSong());
+
 		File root = configuration.getSidplay2Section().getHvsc();
-		if (root != null) {
-			player.setSidDatabase(new SidDatabase(root));
+		SidDatabase sidDatabase = root != null ? new SidDatabase(root) : null;
+
+		String key = renderCache != null
+				? RenderCache.getKey(tune, config, audio, Boolean.TRUE.equals(servletParameters.getDownload()),
+						sidDatabase != null ? sidDatabase.getSongLength(tune) : 0)
+				: null;
+		if (key != null) {
+			renderCache.get(key, outputStream, cacheOutputStream -> convert2audio(config, tune, sidDatabase,
+					getAudioDriverOfAudioFormat(audio, cacheOutputStream), servletParameters));
+		} else {
+			convert2audio(config, tune, sidDatabase, getAudioDriverOfAudioFormat(audio, outputStream),
+					servletParameters);
 		}
+	}
+
+	private void convert2audio(IConfig config, SidTune tune, SidDatabase sidDatabase, AudioDriver driver,
+			ServletParameters servletParameters) throws IOException, SidTuneError, InterruptedException {
+		Player player = playerPool.checkout(config, CPUClock.getCPUClock(config.getEmulationSection(), tune));
+		player.setSidDatabase(sidDatabase);
 		player.setAudioDriver(driver);
 		player.setDefaultLengthInRecordMode(true);
 		player.setCheckLoopOffInRecordMode(Boolean.TRUE.equals(servletParameters.getDownload()));
 		player.setForceCheckSongLength(true);
 
-		SidTune tune = SidTune.load(file);
-		tune.getInfo().setSelectedSong(servletParameters.getSong());
 		player.play(tune);
 		player.stopC64(false);
+		playerPool.checkin(player);
 	}
 
 	private Audio getVideoFormat(IConfig config) {
@@ -321,8 +409,8 @@ public class ConvertServlet extends JSIDPlay2Servlet {
 		}
 	}
 
-	private void convert2liveVideo(UUID uuid, Player player, File file, AudioDriver driver,
-			ServletParameters servletParameters) throws IOException, SidTuneError {
+	private void convert2liveVideo(UUID uuid, Player player, File file, AudioDriver driver, Runnable started)
+			throws IOException, SidTuneError {
 		File root = configuration.getSidplay2Section().getHvsc();
 		if (root != null) {
 			player.getConfig().getSidplay2Section().setHvsc(root);
@@ -337,7 +425,7 @@ public class ConvertServlet extends JSIDPlay2Servlet {
 		Convenience convenience = new Convenience(player);
 		convenience.autostart(file, Convenience.LEXICALLY_FIRST_MEDIA, null);
 		create(uuid, player, file, resourceBundle);
-		servletParameters.setStarted(true);
+		started.run();
 		player.stopC64(false);
 	}
 
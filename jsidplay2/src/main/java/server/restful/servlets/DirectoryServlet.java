@@ -1,21 +1,27 @@
 package server.restful.servlets;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static server.restful.JSIDPlay2Server.CONTEXT_ROOT_SERVLET;
 import static server.restful.JSIDPlay2Server.ROLE_ADMIN;
 import static server.restful.common.ContentTypeAndFileExtensions.MIME_TYPE_JSON;
 import static server.restful.common.ContentTypeAndFileExtensions.MIME_TYPE_TEXT;
+import static server.restful.common.IServletSystemProperties.DIRECTORY_CACHE_SIZE;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.regex.Pattern;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -25,6 +31,8 @@ import libsidutils.ZipFileUtils;
 import net.java.truevfs.access.TFile;
 import server.restful.common.CollectionFileComparator;
 import server.restful.common.JSIDPlay2Servlet;
+import server.restful.common.LRUCache;
+import server.restful.common.StaticContent;
 import ui.entities.config.Configuration;
 
 @SuppressWarnings("serial")
@@ -32,6 +40,35 @@ public class DirectoryServlet extends JSIDPlay2Servlet {
 
 	public static final String DIRECTORY_PATH = "/directory";
 
+	/**
+	 * Cached directory listing, valid until the directory gets modified.
+	 */
+	private static final class DirectoryListing {
+
+		private final long lastModified;
+
+		private final StaticContent content;
+
+		private DirectoryListing(long lastModified, StaticContent content) {
+			this.lastModified = lastModified;
+			this.content = content;
+		}
+	}
+
+	/**
+	 * Directories modified recently are not cached (coarse file system time
+	 * resolution).
+	 */
+	private static final long MIN_AGE = 2000;
+
+	private static final ObjectWriter OBJECT_WRITER = new ObjectMapper().writer();
+
+	private static final Map<String, DirectoryListing> DIRECTORY_MAP = Collections
+			.synchronizedMap(new LRUCache<String, DirectoryListing>(DIRECTORY_CACHE_SIZE));
+
+	private static final Map<String, Pattern> PATTERN_MAP = Collections
+			.synchronizedMap(new LRUCache<String, Pattern>(DIRECTORY_CACHE_SIZE));
+
 	public DirectoryServlet(Configuration configuration, Properties directoryProperties) {
 		super(configuration, directoryProperties);
 	}
@@ -42,7 +79,8 @@ public class DirectoryServlet extends JSIDPlay2Servlet {
 	}
 
 	/**
-	 * Get directory contents containing music collections.
+	 * Get directory contents containing music collections (supports conditional
+	 * GET).
 	 *
 	 * E.g.
 	 * http://haendel.ddns.net:8080/jsidplay2service/JSIDPlay2REST/directory/C64Music/MUSICIANS?filter=.*%5C.(sid%7Cdat%7Cmus%7Cstr%7Cmp3%7Cmp4%7Cjpg%7Cprg%7Cd64)$
@@ -55,21 +93,26 @@ public class DirectoryServlet extends JSIDPlay2Servlet {
 			String filePath = request.getPathInfo();
 			String filter = request.getParameter("filter");
 
-			List<String> files = getDirectory(filePath, filter, request.isUserInRole(ROLE_ADMIN));
+			StaticContent files = getDirectory(filePath, filter, request.isUserInRole(ROLE_ADMIN));
 
 			response.setContentType(MIME_TYPE_JSON.toString());
-			response.getWriter().println(new ObjectMapper().writer().writeValueAsString(files));
+			files.send(request, response);
 		} catch (Throwable t) {
 			error(t);
-			response.setContentType(MIME_TYPE_TEXT.toString());
-			t.printStackTrace(new PrintWriter(response.getWriter()));
+			// the listing is sent as bytes, the writer must not be used
+			if (!response.isCommitted()) {
+				response.reset();
+				response.setContentType(MIME_TYPE_TEXT.toString());
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(response.getOutputStream(), UTF_8));
+				t.printStackTrace(out);
+				out.flush();
+			}
 		}
-		response.setStatus(HttpServletResponse.SC_OK);
 	}
 
-	private List<String> getDirectory(String path, String filter, boolean adminRole) {
+	private StaticContent getDirectory(String path, String filter, boolean adminRole) throws IOException {
 		if (path == null || path.equals("/")) {
-			return getRoot(adminRole);
+			return toJson(getRoot(adminRole));
 		} else if (path.startsWith(C64_MUSIC)) {
 			File root = configuration.getSidplay2Section().getHvsc();
 			return getCollectionFiles(root, path, filter, C64_MUSIC, adminRole);
@@ -86,31 +129,49 @@ public class DirectoryServlet extends JSIDPlay2Servlet {
 				return getCollectionFiles(root, path, filter, directoryLogicalName, adminRole);
 			}
 		}
-		return getRoot(adminRole);
+		return toJson(getRoot(adminRole));
+	}
+
+	private StaticContent getCollectionFiles(File rootFile, String path, String filter, String virtualCollectionRoot,
+			boolean adminRole) throws IOException {
+		if (rootFile == null) {
+			return toJson(getRoot(adminRole));
+		}
+		if (path.endsWith("/")) {
+			path = path.substring(0, path.length() - 1);
+		}
+		File file = ZipFileUtils.newFile(rootFile, path.substring(virtualCollectionRoot.length()));
+
+		String key = rootFile.getPath() + "|" + path + "|" + filter + "|" + adminRole;
+		long lastModified = file.lastModified();
+		DirectoryListing directoryListing = DIRECTORY_MAP.get(key);
+		if (directoryListing != null && directoryListing.lastModified == lastModified) {
+			return directoryListing.content;
+		}
+		StaticContent content = toJson(getCollectionFiles(rootFile, file, filter, virtualCollectionRoot, adminRole));
+		if (lastModified != 0 && System.currentTimeMillis() - lastModified > MIN_AGE) {
+			DIRECTORY_MAP.put(key, new DirectoryListing(lastModified, content));
+		}
+		return content;
 	}
 
-	private List<String> getCollectionFiles(File rootFile, String path, String filter, String virtualCollectionRoot,
+	private List<String> getCollectionFiles(File rootFile, File file, String filter, String virtualCollectionRoot,
 			boolean adminRole) {
 		ArrayList<String> result = new ArrayList<>();
-		if (rootFile != null) {
-			if (path.endsWith("/")) {
-				path = path.substring(0, path.length() - 1);
+		Pattern pattern = filter != null ? PATTERN_MAP.computeIfAbsent(filter, Pattern::compile) : null;
+		File[] listFiles = file.listFiles(pathname -> {
+			if (pathname.isDirectory() && pathname.getName().endsWith(".tmp")) {
+				return false;
 			}
-			File file = ZipFileUtils.newFile(rootFile, path.substring(virtualCollectionRoot.length()));
-			File[] listFiles = file.listFiles(pathname -> {
-				if (pathname.isDirectory() && pathname.getName().endsWith(".tmp")) {
-					return false;
-				}
-				return pathname.isDirectory() || filter == null
-						|| pathname.getName().toLowerCase(Locale.US).matches(filter);
-			});
-			if (listFiles != null) {
-				List<File> asList = Arrays.asList(listFiles);
-				Collections.sort(asList, new CollectionFileComparator());
-				addPath(result, virtualCollectionRoot + PathUtils.getCollectionName(rootFile, file) + "/../", null);
-				for (File f : asList) {
-					addPath(result, virtualCollectionRoot + PathUtils.getCollectionName(rootFile, f), f);
-				}
+			return pathname.isDirectory() || pattern == null
+					|| pattern.matcher(pathname.getName().toLowerCase(Locale.US)).matches();
+		});
+		if (listFiles != null) {
+			List<File> asList = Arrays.asList(listFiles);
+			Collections.sort(asList, new CollectionFileComparator());
+			addPath(result, virtualCollectionRoot + PathUtils.getCollectionName(rootFile, file) + "/../", null);
+			for (File f : asList) {
+				addPath(result, virtualCollectionRoot + PathUtils.getCollectionName(rootFile, f), f);
 			}
 		}
 		if (result.isEmpty()) {
@@ -119,6 +180,10 @@ public class DirectoryServlet extends JSIDPlay2Servlet {
 		return result;
 	}
 
+	private StaticContent toJson(List<String> files) throws IOException {
+		return new StaticContent(OBJECT_WRITER.writeValueAsBytes(files));
+	}
+
 	private void addPath(ArrayList<String> result, String path, File f) {
 		result.add(path + (f != null && f.isDirectory() ? "/" : ""));
 	}
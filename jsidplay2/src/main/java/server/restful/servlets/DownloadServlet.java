@@ -1,7 +1,7 @@
 package server.restful.servlets;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static libsidutils.PathUtils.getFilenameSuffix;
-import static libsidutils.ZipFileUtils.copy;
 import static org.apache.tomcat.util.http.fileupload.FileUploadBase.ATTACHMENT;
 import static org.apache.tomcat.util.http.fileupload.FileUploadBase.CONTENT_DISPOSITION;
 import static server.restful.JSIDPlay2Server.CONTEXT_ROOT_SERVLET;
@@ -11,6 +11,7 @@ import static server.restful.common.ContentTypeAndFileExtensions.getMimeType;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.Properties;
 
@@ -18,6 +19,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import server.restful.common.JSIDPlay2Servlet;
+import server.restful.common.StaticContent;
 import ui.entities.config.Configuration;
 
 @SuppressWarnings("serial")
@@ -35,7 +37,7 @@ public class DownloadServlet extends JSIDPlay2Servlet {
 	}
 
 	/**
-	 * Download SID.
+	 * Download SID (supports Range requests and conditional GET).
 	 *
 	 * E.g.
 	 * http://haendel.ddns.net:8080/jsidplay2service/JSIDPlay2REST/download/C64Music/DEMOS/0-9/1_45_Tune.sid
@@ -48,13 +50,18 @@ public class DownloadServlet extends JSIDPlay2Servlet {
 			String filePath = request.getPathInfo();
 			response.setContentType(getMimeType(getFilenameSuffix(filePath)).toString());
 			response.addHeader(CONTENT_DISPOSITION, ATTACHMENT + "; filename=" + new File(filePath).getName());
-			copy(getAbsoluteFile(filePath, request.isUserInRole(ROLE_ADMIN)), response.getOutputStream());
+			new StaticContent(getAbsoluteFile(filePath, request.isUserInRole(ROLE_ADMIN))).send(request, response);
 		} catch (Throwable t) {
 			error(t);
-			response.setContentType(MIME_TYPE_TEXT.toString());
-			t.printStackTrace(new PrintWriter(response.getWriter()));
+			// the content is sent as bytes, the writer must not be used
+			if (!response.isCommitted()) {
+				response.reset();
+				response.setContentType(MIME_TYPE_TEXT.toString());
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(response.getOutputStream(), UTF_8));
+				t.printStackTrace(out);
+				out.flush();
+			}
 		}
-		response.setStatus(HttpServletResponse.SC_OK);
 	}
 
 }
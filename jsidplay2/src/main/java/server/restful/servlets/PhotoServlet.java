@@ -1,15 +1,20 @@
 package server.restful.servlets;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static server.restful.JSIDPlay2Server.CONTEXT_ROOT_SERVLET;
 import static server.restful.JSIDPlay2Server.ROLE_ADMIN;
 import static server.restful.common.ContentTypeAndFileExtensions.MIME_TYPE_JPG;
 import static server.restful.common.ContentTypeAndFileExtensions.MIME_TYPE_TEXT;
+import static server.restful.common.IServletSystemProperties.PHOTO_CACHE_SIZE;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Properties;
 
 import jakarta.servlet.ServletException;
@@ -21,6 +26,8 @@ import libsidplay.sidtune.SidTuneError;
 import libsidplay.sidtune.SidTuneInfo;
 import libsidutils.PathUtils;
 import server.restful.common.JSIDPlay2Servlet;
+import server.restful.common.LRUCache;
+import server.restful.common.StaticContent;
 import ui.entities.config.Configuration;
 
 @SuppressWarnings("serial")
@@ -28,6 +35,9 @@ public class PhotoServlet extends JSIDPlay2Servlet {
 
 	public static final String PHOTO_PATH = "/photo";
 
+	private static final Map<String, StaticContent> PHOTO_MAP = Collections
+			.synchronizedMap(new LRUCache<String, StaticContent>(PHOTO_CACHE_SIZE));
+
 	public PhotoServlet(Configuration configuration, Properties directoryProperties) {
 		super(configuration, directoryProperties);
 	}
@@ -38,7 +48,7 @@ public class PhotoServlet extends JSIDPlay2Servlet {
 	}
 
 	/**
-	 * Get photo of composer.
+	 * Get photo of composer (supports conditional GET).
 	 *
 	 * E.g.
 	 * http://haendel.ddns.net:8080/jsidplay2service/JSIDPlay2REST/photo/C64Music/MUSICIANS/D/DRAX/Acid.sid
@@ -51,18 +61,27 @@ public class PhotoServlet extends JSIDPlay2Servlet {
 			String filePath = request.getPathInfo();
 			response.setContentType(MIME_TYPE_JPG.toString());
 			File absoluteFile = getAbsoluteFile(filePath, request.isUserInRole(ROLE_ADMIN));
-			byte[] photo = getPhoto(configuration.getSidplay2Section().getHvsc(), absoluteFile);
+			StaticContent photo = PHOTO_MAP.get(absoluteFile.getPath());
 			if (photo == null) {
-				throw new FileNotFoundException(filePath + " (No such file or directory)");
+				byte[] photoBytes = getPhoto(configuration.getSidplay2Section().getHvsc(), absoluteFile);
+				if (photoBytes == null) {
+					throw new FileNotFoundException(filePath + " (No such file or directory)");
+				}
+				photo = new StaticContent(photoBytes);
+				PHOTO_MAP.put(absoluteFile.getPath(), photo);
 			}
-			response.getOutputStream().write(photo);
-			response.setContentLength(photo.length);
+			photo.send(request, response);
 		} catch (Throwable t) {
 			error(t);
-			response.setContentType(MIME_TYPE_TEXT.toString());
-			t.printStackTrace(new PrintWriter(response.getWriter()));
+			// the content is sent as bytes, the writer must not be used
+			if (!response.isCommitted()) {
+				response.reset();
+				response.setContentType(MIME_TYPE_TEXT.toString());
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(response.getOutputStream(), UTF_8));
+				t.printStackTrace(out);
+				out.flush();
+			}
 		}
-		response.setStatus(HttpServletResponse.SC_OK);
 	}
 
 	private byte[] getPhoto(File hvscRoot, File tuneFile) throws IOException, SidTuneError {
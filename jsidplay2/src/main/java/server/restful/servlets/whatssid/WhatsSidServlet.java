@@ -6,7 +6,11 @@ import static server.restful.JSIDPlay2Server.closeEntityManager;
 import static server.restful.JSIDPlay2Server.getEntityManager;
 import static server.restful.common.ContentTypeAndFileExtensions.MIME_TYPE_TEXT;
 import static server.restful.common.IServletSystemProperties.CACHE_SIZE;
+import static server.restful.common.IServletSystemProperties.MAX_QUEUED_REQUESTS;
 import static server.restful.common.IServletSystemProperties.MAX_WHATSIDS_IN_PARALLEL;
+import static server.restful.common.IServletSystemProperties.REQUEST_QUEUE_TIMEOUT;
+import static server.restful.common.IServletSystemProperties.WHATSSID_REQUESTS_PER_MINUTE;
+import static server.restful.common.IServletSystemProperties.WHATSSID_REQUEST_BURST;
 
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -47,7 +51,8 @@ public class WhatsSidServlet extends JSIDPlay2Servlet {
 
 	@Override
 	public Filter createServletFilter() {
-		return new LimitRequestServletFilter(MAX_WHATSIDS_IN_PARALLEL);
+		return new LimitRequestServletFilter(MAX_WHATSIDS_IN_PARALLEL, MAX_QUEUED_REQUESTS, REQUEST_QUEUE_TIMEOUT,
+				WHATSSID_REQUESTS_PER_MINUTE, WHATSSID_REQUEST_BURST);
 	}
 
 	/**
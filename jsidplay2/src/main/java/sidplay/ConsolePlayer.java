@@ -23,7 +23,9 @@ import libsidplay.sidtune.SidTuneError;
 import libsidutils.PathUtils;
 import libsidutils.debug.MOS6510Debug;
 import libsidutils.siddatabase.SidDatabase;
+import sidplay.audio.Audio;
 import sidplay.audio.JavaSound;
+import sidplay.consoleplayer.BatchConverter;
 import sidplay.consoleplayer.ConsoleIO;
 import sidplay.consoleplayer.VerboseValidator;
 import sidplay.fingerprinting.FingerprintJsonClient;
@@ -57,12 +59,21 @@ final public class ConsolePlayer {
 	@Parameter(names = { "--quiet", "-q" }, descriptionKey = "QUIET", order = 10005)
 	private Boolean quiet = Boolean.FALSE;
 
+	@Parameter(names = { "--batch", "-b" }, descriptionKey = "BATCH", order = 10006)
+	private Boolean batch = Boolean.FALSE;
+
+	@Parameter(names = "--batchThreads", descriptionKey = "BATCH_THREADS", order = 10007)
+	private Integer batchThreads = Runtime.getRuntime().availableProcessors();
+
 	@Parameter(description = "filename")
 	private List<String> filenames = new ArrayList<>();
 
 	@ParametersDelegate
 	private IniConfig config = new IniConfig(true);
 
+	private ConsolePlayer() {
+	}
+
 	private ConsolePlayer(final String[] args) {
 		try {
 			JCommander commander = JCommander.newBuilder().addObject(this).programName(getClass().getName()).build();
@@ -81,6 +92,10 @@ final public class ConsolePlayer {
 			String password = whatsSidSection.getPassword();
 			int connectionTimeout = whatsSidSection.getConnectionTimeout();
 
+			if (batch) {
+				convert(args, new File(filename.get()));
+				return;
+			}
 			final SidTune tune = SidTune.load(new File(filename.get()));
 			tune.getInfo().setSelectedSong(song);
 			final Player player = new Player(config, cpuDebug ? MOS6510Debug.class : MOS6510.class);
@@ -110,6 +125,38 @@ final public class ConsolePlayer {
 		}
 	}
 
+	private void convert(final String[] args, final File root) throws IOException {
+		Audio audio = config.getAudioSection().getAudio();
+		if (Audio.getLiveAudio().contains(audio)) {
+			throw new IOException("Batch conversion requires a recording audio driver: " + audio);
+		}
+		// each worker thread gets a configuration of its own
+		BatchConverter batchConverter = new BatchConverter(() -> createConfig(args), batchThreads,
+				new File(recordingFilename), quiet);
+		if (config.getSidplay2Section().isEnableDatabase()) {
+			File hvscRoot = config.getSidplay2Section().getHvsc();
+			if (hvscRoot != null) {
+				try {
+					batchConverter.setSidDatabase(new SidDatabase(hvscRoot));
+				} catch (IOException e) {
+					System.err.println("WARNING: song length database can not be read: " + e.getMessage());
+				}
+			}
+		}
+		try {
+			batchConverter.convert(root, audio);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static IniConfig createConfig(final String[] args) {
+		ConsolePlayer consolePlayer = new ConsolePlayer();
+		JCommander.newBuilder().addObject(consolePlayer).build().parse(args);
+		consolePlayer.config.getWhatsSidSection().setEnable(false);
+		return consolePlayer.config;
+	}
+
 	private void setSIDDatabase(final Player player) {
 		File hvscRoot = player.getConfig().getSidplay2Section().getHvsc();
 		if (hvscRoot != null) {
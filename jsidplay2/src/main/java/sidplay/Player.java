@@ -22,6 +22,8 @@ import static sidplay.player.State.RESTART;
 import static sidplay.player.State.START;
 
 import java.beans.PropertyChangeListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
@@ -60,6 +62,7 @@ import libsidplay.common.SIDEmu;
 import libsidplay.common.SIDListener;
 import libsidplay.common.Ultimate64Mode;
 import libsidplay.components.c1530.Datasette.Control;
+import libsidplay.components.c1541.C1541;
 import libsidplay.components.mos6510.IMOS6510Extension;
 import libsidplay.components.mos6510.MOS6510;
 import libsidplay.components.mos6526.MOS6526;
@@ -140,6 +143,10 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 	 * Auto-start commands.
 	 */
 	private static final String RUN = "RUN\r", SYS = "SYS%d\r", LOAD = "LOAD\r";
+	/**
+	 * Maximum emulated time (in seconds) of a warp-load.
+	 */
+	private static final int MAX_WARP_LOAD_TIME = 600;
 
 	/**
 	 * Music player state.
@@ -228,6 +235,10 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 	 * Create a base name of a filename to be used for recording.
 	 */
 	private Function<SidTune, String> recordingFilenameProvider;
+	/**
+	 * Machine state of the booted C64 to skip the KERNAL boot of tunes.
+	 */
+	private byte[] bootState;
 	/**
 	 * Insert required SIDs. use SID builder to create/destroy SIDs.
 	 */
@@ -284,6 +295,16 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 	 */
 	private int fastForwardVICFrames;
 
+	/**
+	 * Warp-load: The auto-started program is being loaded from disk or tape.
+	 */
+	private volatile boolean warpLoad;
+
+	/**
+	 * Warp-load: The CPU jumped into RAM (the loaded program started).
+	 */
+	private boolean warpLoadProgramStarted;
+
 	/**
 	 * Emulation buffer size.
 	 */
@@ -356,9 +377,9 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 			@Override
 			public void end() {
 				if (tune != RESET || forceCheckSongLength) {
-					if (!config.getSidplay2Section().isSingle() && playList.hasNext()) {
+					if (!getConfig().getSidplay2Section().isSingle() && playList.hasNext()) {
 						nextSong();
-					} else if (config.getSidplay2Section().isLoop()) {
+					} else if (getConfig().getSidplay2Section().isLoop()) {
 						stateProperty.set(RESTART);
 					} else {
 						stateProperty.set(END);
@@ -397,7 +418,7 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 		checkDefaultLengthInRecordMode = true;
 		checkLoopOffInRecordMode = true;
 		forceCheckSongLength = false;
-		recordingFilenameProvider = tune -> new File(config.getSidplay2Section().getTmpDir(), "jsidplay2")
+		recordingFilenameProvider = tune -> new File(getConfig().getSidplay2Section().getTmpDir(), "jsidplay2")
 				.getAbsolutePath();
 	}
 
@@ -505,7 +526,24 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 	@Override
 	protected final void reset() {
 		super.reset();
-		timer.reset();
+		psid64Detected = false;
+		long initDelay = SidTune.getInitDelay(tune);
+		if (bootState != null && tune != RESET && initDelay == SidTune.getInitDelay(RESET)) {
+			try {
+				// continue with the booted C64
+				c64.getEventScheduler().clockThreadSafeEvents();
+				restoreState(new ByteArrayInputStream(bootState));
+				initDelay = 0;
+			} catch (IOException | InterruptedException e) {
+				throw new RuntimeException(e.getMessage(), e);
+			}
+		}
+		warpLoad = isWarpLoad();
+		if (warpLoad) {
+			startWarpLoad(initDelay);
+		} else {
+			timer.reset();
+		}
 		if (config.getEmulationSection().getUltimate64Mode() != Ultimate64Mode.OFF && tune == RESET) {
 			sendReset(config, tune);
 		}
@@ -561,7 +599,127 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 					}
 				}, (long) (c64.getClock().getCpuFrequency()));
 			}
-		}, SidTune.getInitDelay(tune));
+		}, initDelay);
+	}
+
+	/**
+	 * Warp-load, if the auto-start command loads a program from disk or tape.
+	 *
+	 * @return warp-load the program to auto-start
+	 */
+	private boolean isWarpLoad() {
+		return tune == RESET && command != null && command.startsWith("LOAD")
+				&& config.getSidplay2Section().isWarpLoad()
+				&& config.getEmulationSection().getUltimate64Mode() == Ultimate64Mode.OFF;
+	}
+
+	/**
+	 * Start warp-load: Load the auto-started program as fast as possible. The tune
+	 * start (SID chips, audio and video output) is delayed until the program has
+	 * been loaded and started. There is nothing to throttle the emulation until
+	 * then.
+	 *
+	 * @param initDelay cycles until the auto-start command is typed-in
+	 */
+	private void startWarpLoad(final long initDelay) {
+		warpLoadProgramStarted = false;
+		c64.getCPU().setJmpJsrHandler(Register_ProgramCounter -> {
+			// JMP/JSR into RAM, except of zero-page (CHRGET)
+			warpLoadProgramStarted |= Register_ProgramCounter >= 0x100 && Register_ProgramCounter < 0xa000
+					|| (Register_ProgramCounter & 0xf000) == 0xc000;
+		});
+		updateTimingOnlyVICs();
+
+		final long checkInterval = (long) (c64.getClock().getCpuFrequency() / 10);
+		c64.getEventScheduler().schedule(new Event("Warp-Load") {
+			@Override
+			public void event() throws InterruptedException {
+				if (isLoading() && time() < MAX_WARP_LOAD_TIME) {
+					c64.getEventScheduler().schedule(this, checkInterval);
+				} else {
+					endWarpLoad();
+				}
+			}
+		}, initDelay + checkInterval);
+	}
+
+	/**
+	 * Loading is in progress, as long as the datasette or a floppy motor is on or
+	 * the auto-start command has not been executed completely, yet (e.g. RUN),
+	 * unless the loaded program already started.
+	 *
+	 * @return loading is in progress
+	 */
+	private boolean isLoading() {
+		if (config.getC1541Section().isDriveOn()) {
+			c1541Runner.synchronize(0);
+		}
+		if (datasette.getMotor()) {
+			return true;
+		}
+		for (final C1541 floppy : floppies) {
+			if (floppy.getDiskController().isMotorOn()) {
+				return true;
+			}
+		}
+		return c64.getRAM()[RAM_COMMAND_LEN] != 0 && !warpLoadProgramStarted;
+	}
+
+	/**
+	 * End warp-load: The tune starts now, play time and song length are relative
+	 * to this point in time.
+	 */
+	private void endWarpLoad() {
+		warpLoad = false;
+		c64.getCPU().setJmpJsrHandler(Register_ProgramCounter -> {
+		});
+		updateTimingOnlyVICs();
+		timer.setStart(time() + config.getSidplay2Section().getStartTime());
+		timer.reset();
+	}
+
+	/**
+	 * Power-on C64 system and boot it (the KERNAL boot takes the init delay of a
+	 * normal reset). Must be called, while the player is stopped.
+	 *
+	 * @param cpuClock CPU clock (PAL/NTSC)
+	 * @return machine state of the booted C64, see {@link #setBootState(byte[])}
+	 * @throws IOException          machine state cannot be saved
+	 * @throws InterruptedException boot interrupted
+	 */
+	public final byte[] boot(final CPUClock cpuClock) throws IOException, InterruptedException {
+		setClock(cpuClock);
+		super.reset();
+		final EventScheduler context = c64.getEventScheduler();
+		final boolean[] booted = new boolean[1];
+		context.schedule(new Event("Booted") {
+			@Override
+			public void event() {
+				booted[0] = true;
+			}
+		}, SidTune.getInitDelay(RESET));
+		while (!booted[0]) {
+			context.clock();
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		saveState(out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Set the machine state of the booted C64 to skip the KERNAL boot of tunes,
+	 * that require it (e.g. RSIDs or programs). The play time still includes the
+	 * boot, the tune starts at the same time, but the silence of the boot is not
+	 * played.
+	 *
+	 * <B>Note:</B> The machine state must have been created by {@link #boot}
+	 * using the same CPU clock and hardware configuration (e.g. floppy, printer)!
+	 *
+	 * @param bootState machine state of the booted C64 (null means boot
+	 *                  normally)
+	 */
+	public final void setBootState(final byte[] bootState) {
+		this.bootState = bootState;
 	}
 
 	/**
@@ -777,6 +935,7 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 
 		configureMixer(mixer -> mixer.setAudioDriver(getAudioDriver()));
 		configureVICs(vic -> vic.setVideoDriver(this));
+		updateTimingOnlyVICs();
 		c64.setSIDListener(this);
 		c64.setPlayRoutineObserver(this);
 
@@ -1151,6 +1310,7 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 	 */
 	public void addVideoDriver(VideoDriver consumer) {
 		videoDrivers.add(consumer);
+		updateTimingOnlyVICs();
 	}
 
 	/**
@@ -1160,6 +1320,15 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 	 */
 	public void removeVideoDriver(VideoDriver consumer) {
 		videoDrivers.remove(consumer);
+		updateTimingOnlyVICs();
+	}
+
+	/**
+	 * Skip pixel output of the VICs, as long as nobody consumes the video output
+	 * (or during warp-load).
+	 */
+	private void updateTimingOnlyVICs() {
+		c64.configureVICs(vic -> vic.setTimingOnly(warpLoad || videoDrivers.isEmpty()));
 	}
 
 	/**
@@ -1200,10 +1369,13 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 
 	/**
 	 * Fast forward skips frames and produces output for each Xth frame (X = 1x, 2x,
-	 * 4x, ... , 32x).
+	 * 4x, ... , 32x). Warp-load produces no output at all.
 	 */
 	@Override
 	public void accept(VIC vic) {
+		if (warpLoad) {
+			return;
+		}
 		// skip frame(s) on fast forward
 		int fastForwardBitMask = getMixerInfo(m -> m.getFastForwardBitMask(), 0);
 		if ((fastForwardVICFrames++ & fastForwardBitMask) == fastForwardBitMask) {
@@ -1216,12 +1388,26 @@ public class Player extends HardwareEnsemble implements VideoDriver, SIDListener
 
 	@Override
 	public void write(int addr, byte data) {
+		if (warpLoad) {
+			return;
+		}
 		Iterator<SIDListener> iterator = sidListeners.iterator();
 		while (iterator.hasNext()) {
 			iterator.next().write(addr, data);
 		}
 	}
 
+	@Override
+	public void write(int sidNum, int addr, byte data) {
+		if (warpLoad) {
+			return;
+		}
+		Iterator<SIDListener> iterator = sidListeners.iterator();
+		while (iterator.hasNext()) {
+			iterator.next().write(sidNum, addr, data);
+		}
+	}
+
 	@Override
 	public void jmpJsr() {
 		Iterator<IMOS6510Extension> iterator = mos6510Extension.iterator();
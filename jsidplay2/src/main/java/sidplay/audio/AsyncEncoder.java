@@ -0,0 +1,245 @@
+package sidplay.audio;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Encode audio chunks in a dedicated encoder thread, while the emulation
+ * continues to produce the next chunks.
+ *
+ * <OL>
+ * <LI>The mixer submits a chunk of samples, it is copied into a free buffer of
+ * a bounded ring of reusable chunk buffers.
+ * <LI>The encoder thread encodes the chunks in the order of submission and
+ * hands the chunk buffers back to the ring.
+ * <LI>If the encoder falls behind and all chunk buffers are pending, submission
+ * waits for the encoder (backpressure).
+ * <LI>On close all pending chunks are encoded before the encoder thread ends.
+ * </OL>
+ * An encoder error is reported at the next submission or on close.<BR>
+ * Without chunk buffers, chunks are encoded synchronously while submitted.
+ */
+public class AsyncEncoder {
+
+	private static final Logger ASYNC_ENCODER = Logger.getLogger(AsyncEncoder.class.getName());
+
+	/**
+	 * Encoder of audio chunks, it is called by the encoder thread.
+	 */
+	@FunctionalInterface
+	public interface ChunkEncoder {
+		/**
+		 * Encode a chunk of samples.
+		 *
+		 * @param chunk     samples to encode (position zero, limit is the end of
+		 *                  the chunk)
+		 * @param timeStamp time stamp of the chunk at submission
+		 * @throws IOException encoder error
+		 */
+		void encode(ByteBuffer chunk, long timeStamp) throws IOException;
+	}
+
+	private static final class Chunk {
+		private final ByteBuffer buffer;
+		private long timeStamp;
+		private long submitNanos;
+
+		private Chunk(int capacity) {
+			buffer = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	/**
+	 * End of stream marker.
+	 */
+	private static final Chunk END = new Chunk(0);
+
+	private final BlockingQueue<Chunk> free, pending;
+
+	private final ChunkEncoder encoder;
+
+	private final Thread thread;
+
+	/**
+	 * Chunk buffer of synchronous encoding.
+	 */
+	private final Chunk syncChunk;
+
+	private volatile Throwable error;
+
+	private volatile int maxQueueDepth;
+
+	private volatile long encoderLag, maxEncoderLag, backpressureNanos;
+
+	private boolean closed;
+
+	/**
+	 * Start the encoder thread.
+	 *
+	 * @param name      name of the encoder thread
+	 * @param chunkSize maximum size of a chunk in bytes
+	 * @param chunks    number of reusable chunk buffers (0 means encode
+	 *                  synchronously)
+	 * @param encoder   encoder of the chunks
+	 */
+	public AsyncEncoder(String name, int chunkSize, int chunks, ChunkEncoder encoder) {
+		this.encoder = encoder;
+		if (chunks <= 0) {
+			free = pending = null;
+			thread = null;
+			syncChunk = new Chunk(chunkSize);
+			return;
+		}
+		syncChunk = null;
+		free = new ArrayBlockingQueue<>(chunks);
+		pending = new ArrayBlockingQueue<>(chunks + 1);
+		for (int i = 0; i < chunks; i++) {
+			free.add(new Chunk(chunkSize));
+		}
+		thread = new Thread(this::encodeChunks, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Submit the samples of the buffer from the beginning up to its position. The
+	 * samples are copied, the buffer can be reused immediately.
+	 *
+	 * @param sampleBuffer samples to encode
+	 * @param timeStamp    time stamp of the samples
+	 * @throws InterruptedException player has been stopped
+	 */
+	public void submit(ByteBuffer sampleBuffer, long timeStamp) throws InterruptedException {
+		checkError();
+		if (thread == null) {
+			copy(sampleBuffer, timeStamp, syncChunk);
+			try {
+				encoder.encode(syncChunk.buffer, timeStamp);
+			} catch (IOException e) {
+				throw new RuntimeException("Error encoding audio stream", e);
+			}
+			return;
+		}
+		Chunk chunk = free.poll();
+		if (chunk == null) {
+			long waitStart = System.nanoTime();
+			chunk = free.take();
+			backpressureNanos += System.nanoTime() - waitStart;
+			checkError();
+		}
+		copy(sampleBuffer, timeStamp, chunk);
+		pending.put(chunk);
+
+		int queueDepth = pending.size();
+		if (queueDepth > maxQueueDepth) {
+			maxQueueDepth = queueDepth;
+		}
+	}
+
+	/**
+	 * Encode all pending chunks and stop the encoder thread.
+	 *
+	 * @throws InterruptedException player has been stopped
+	 */
+	public void close() throws InterruptedException {
+		if (closed || thread == null) {
+			return;
+		}
+		closed = true;
+		pending.put(END);
+		thread.join();
+		if (ASYNC_ENCODER.isLoggable(Level.FINE)) {
+			ASYNC_ENCODER.fine(String.format("%s: max. queue depth=%d, max. encoder lag=%dms, backpressure=%dms",
+					thread.getName(), maxQueueDepth, maxEncoderLag / 1000000, backpressureNanos / 1000000));
+		}
+		checkError();
+	}
+
+	/**
+	 * @return number of chunks waiting to be encoded
+	 */
+	public int getQueueDepth() {
+		return pending != null ? pending.size() : 0;
+	}
+
+	/**
+	 * @return maximum number of chunks, that have been waiting to be encoded
+	 */
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	/**
+	 * @return nanoseconds between submission and end of encoding of the last
+	 *         encoded chunk
+	 */
+	public long getEncoderLag() {
+		return encoderLag;
+	}
+
+	/**
+	 * @return maximum nanoseconds between submission and end of encoding of a
+	 *         chunk
+	 */
+	public long getMaxEncoderLag() {
+		return maxEncoderLag;
+	}
+
+	/**
+	 * @return nanoseconds the emulation has been waiting for a free chunk buffer
+	 */
+	public long getBackpressureNanos() {
+		return backpressureNanos;
+	}
+
+	private void copy(ByteBuffer sampleBuffer, long timeStamp, Chunk chunk) {
+		((Buffer) chunk.buffer).clear();
+		chunk.buffer.put(sampleBuffer.array(), sampleBuffer.arrayOffset(), sampleBuffer.position());
+		((Buffer) chunk.buffer).flip();
+		chunk.timeStamp = timeStamp;
+		chunk.submitNanos = System.nanoTime();
+	}
+
+	private void encodeChunks() {
+		while (true) {
+			final Chunk chunk;
+			try {
+				chunk = pending.take();
+			} catch (InterruptedException e) {
+				// keep on draining, submission and close must never block
+				error = e;
+				continue;
+			}
+			if (chunk == END) {
+				return;
+			}
+			if (error == null) {
+				try {
+					encoder.encode(chunk.buffer, chunk.timeStamp);
+				} catch (Throwable e) {
+					error = e;
+				}
+			}
+			long lag = System.nanoTime() - chunk.submitNanos;
+			encoderLag = lag;
+			if (lag > maxEncoderLag) {
+				maxEncoderLag = lag;
+			}
+			// on error, chunks are dropped to never block the emulation
+			free.add(chunk);
+		}
+	}
+
+	private void checkError() {
+		if (error != null) {
+			throw new RuntimeException("Error encoding audio stream", error);
+		}
+	}
+
+}
@@ -20,6 +20,7 @@ import sidplay.audio.FLVDriver.FLVStreamDriver;
 import sidplay.audio.MP3Driver.MP3FileDriver;
 import sidplay.audio.MP4Driver.MP4FileDriver;
 import sidplay.audio.SIDDumpDriver.SIDDumpFileDriver;
+import sidplay.audio.SIDRegCaptureDriver.SIDRegCaptureFileDriver;
 import sidplay.audio.SIDRegDriver.SIDRegFileDriver;
 import sidplay.audio.WAVDriver.WAVFileDriver;
 
@@ -50,6 +51,8 @@ public enum Audio {
 	SID_REG(SIDRegFileDriver.class),
 	/** SID DUMP file write. */
 	SID_DUMP(SIDDumpFileDriver.class),
+	/** SID register writes binary capture file write. */
+	SID_REG_CAPTURE(SIDRegCaptureFileDriver.class),
 	/** Java Sound API plus WAV file write. */
 	LIVE_WAV(ProxyDriver.class, JavaSound.class, WAVFileDriver.class),
 	/** Java Sound API plus FLAC file write. */
@@ -115,6 +118,27 @@ public enum Audio {
 		}
 	}
 
+	/**
+	 * Create a new audio driver, that is not shared (e.g. to record several tunes
+	 * in parallel).
+	 *
+	 * @return new audio driver
+	 */
+	public final AudioDriver newAudioDriver() {
+		try {
+			Class<?> parameterTypes[] = Stream.<Class<?>>generate(() -> AudioDriver.class)
+					.limit(parameterClasses.length).toArray(Class<?>[]::new);
+			Collection<Object> initArgs = new ArrayList<>();
+			for (Class<? extends AudioDriver> parameterClass : parameterClasses) {
+				initArgs.add(parameterClass.getConstructor().newInstance());
+			}
+			return audioDriverClass.getConstructor(parameterTypes).newInstance(initArgs.toArray());
+		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException
+				| NoSuchMethodException | SecurityException e) {
+			throw new RuntimeException("Audiodriver cannot be instanciated: " + audioDriverClass.getName(), e);
+		}
+	}
+
 	/**
 	 * Get audio driver for tune.<BR>
 	 * <B>Note:</B>Use MP3 comparison driver for MP3 play-back.
@@ -85,6 +85,14 @@ public abstract class FLVDriver extends XuggleVideoDriver {
 			}
 		}
 
+		/**
+		 * A live stream must not fall behind, frames are dropped instead.
+		 */
+		@Override
+		protected boolean isDropFrames() {
+			return true;
+		}
+
 	}
 
 	@Override
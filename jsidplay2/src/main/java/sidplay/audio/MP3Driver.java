@@ -1,5 +1,7 @@
 package sidplay.audio;
 
+import static libsidplay.config.IEmulationSystemProperties.AUDIO_ENCODER_CHUNKS;
+
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -81,6 +83,14 @@ public abstract class MP3Driver implements AudioDriver {
 	 * Jump3r encoder.
 	 */
 	private LameEncoder jump3r;
+	/**
+	 * Encoder thread.
+	 */
+	private AsyncEncoder encoder;
+	/**
+	 * Encoded MP3 of a chunk (reused).
+	 */
+	private byte[] encoded;
 	/**
 	 * Output stream to write the encoded MP3 to.
 	 */
@@ -103,23 +113,28 @@ public abstract class MP3Driver implements AudioDriver {
 
 		sampleBuffer = ByteBuffer.allocate(cfg.getChunkFrames() * Short.BYTES * cfg.getChannels())
 				.order(ByteOrder.LITTLE_ENDIAN);
+		encoded = new byte[jump3r.getMP3BufferSize()];
+		encoder = new AsyncEncoder("MP3 Encoder", sampleBuffer.capacity(), AUDIO_ENCODER_CHUNKS, this::encode);
 	}
 
 	@Override
 	public void write() throws InterruptedException {
-		try {
-			byte[] encoded = new byte[jump3r.getMP3BufferSize()];
-			int bytesWritten = jump3r.encodeBuffer(sampleBuffer.array(), 0, sampleBuffer.position(), encoded);
-			out.write(encoded, 0, bytesWritten);
-		} catch (ArrayIndexOutOfBoundsException | IOException e) {
-			throw new RuntimeException("Error writing MP3 audio stream", e);
-		}
+		encoder.submit(sampleBuffer, 0);
 	}
 
 	@Override
 	public void close() {
-		if (jump3r != null) {
-			jump3r.close();
+		try {
+			if (encoder != null) {
+				encoder.close();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			encoder = null;
+			if (jump3r != null) {
+				jump3r.close();
+			}
 		}
 	}
 
@@ -139,4 +154,13 @@ public abstract class MP3Driver implements AudioDriver {
 	}
 
 	protected abstract OutputStream getOut(String recordingFilename) throws IOException;
+
+	private void encode(ByteBuffer chunk, long timeStamp) {
+		try {
+			int bytesWritten = jump3r.encodeBuffer(chunk.array(), 0, chunk.limit(), encoded);
+			out.write(encoded, 0, bytesWritten);
+		} catch (ArrayIndexOutOfBoundsException | IOException e) {
+			throw new RuntimeException("Error writing MP3 audio stream", e);
+		}
+	}
 }
@@ -83,6 +83,16 @@ public class ProxyDriver implements AudioDriver, VideoDriver, SIDListener, IMOS6
 		}
 	}
 
+	@Override
+	public void write(int sidNum, int addr, byte data) {
+		if (driverOne instanceof SIDListener) {
+			((SIDListener) driverOne).write(sidNum, addr, data);
+		}
+		if (driverTwo instanceof SIDListener) {
+			((SIDListener) driverTwo).write(sidNum, addr, data);
+		}
+	}
+
 	@Override
 	public void jmpJsr() {
 		if (driverOne instanceof IMOS6510Extension) {
@@ -0,0 +1,143 @@
+package sidplay.audio;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.sound.sampled.LineUnavailableException;
+
+import libsidplay.common.CPUClock;
+import libsidplay.common.Event;
+import libsidplay.common.EventScheduler;
+import libsidplay.common.SIDListener;
+import libsidplay.config.IAudioSection;
+import sidplay.audio.sidreg.SidRegCaptureWriter;
+
+/**
+ * Capture SID register writes in a compact binary format, that can be replayed
+ * without emulating the C64, see {@link sidplay.audio.sidreg.SidRegReplayer}.
+ */
+public abstract class SIDRegCaptureDriver implements SIDListener, AudioDriver {
+
+	/**
+	 * File based driver to create a SID register capture file.
+	 */
+	public static class SIDRegCaptureFileDriver extends SIDRegCaptureDriver {
+
+		private OutputStream file;
+
+		@Override
+		protected OutputStream getOut(String recordingFilename) throws IOException {
+			System.out.println("Recording, file=" + recordingFilename);
+			return file = new BufferedOutputStream(new FileOutputStream(recordingFilename));
+		}
+
+		@Override
+		public void close() {
+			super.close();
+			if (file != null) {
+				try {
+					file.close();
+				} catch (IOException e) {
+					throw new RuntimeException("Error closing SID register capture", e);
+				} finally {
+					file = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Driver to write into a SID register capture stream.<BR>
+	 *
+	 * <B>Note:</B> The caller is responsible of closing the output stream
+	 */
+	public static class SIDRegCaptureStreamDriver extends SIDRegCaptureDriver {
+
+		private final OutputStream out;
+
+		/**
+		 * Use several instances for parallel emulator instances, where applicable.
+		 *
+		 * @param out Output stream to write the SID register capture to
+		 */
+		public SIDRegCaptureStreamDriver(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		protected OutputStream getOut(String recordingFilename) {
+			return out;
+		}
+
+	}
+
+	private EventScheduler context;
+
+	private SidRegCaptureWriter writer;
+
+	private ByteBuffer sampleBuffer;
+
+	@Override
+	public void open(IAudioSection audioSection, String recordingFilename, CPUClock cpuClock, EventScheduler context)
+			throws IOException, LineUnavailableException, InterruptedException {
+		AudioConfig cfg = new AudioConfig(audioSection);
+		this.context = context;
+
+		writer = new SidRegCaptureWriter(getOut(recordingFilename), cpuClock);
+
+		sampleBuffer = ByteBuffer.allocate(cfg.getChunkFrames() * Short.BYTES * cfg.getChannels())
+				.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@Override
+	public void write(int addr, byte data) {
+		write(0, addr, data);
+	}
+
+	@Override
+	public void write(int sidNum, int addr, byte data) {
+		try {
+			writer.write(sidNum, context.getTime(Event.Phase.PHI2), addr, data);
+		} catch (IOException e) {
+			throw new RuntimeException("Error writing SID register capture", e);
+		}
+	}
+
+	@Override
+	public void write() throws InterruptedException {
+	}
+
+	@Override
+	public void close() {
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (IOException e) {
+				throw new RuntimeException("Error closing SID register capture", e);
+			} finally {
+				writer = null;
+			}
+		}
+	}
+
+	@Override
+	public ByteBuffer buffer() {
+		return sampleBuffer;
+	}
+
+	@Override
+	public boolean isRecording() {
+		return true;
+	}
+
+	@Override
+	public String getExtension() {
+		return ".sidreg";
+	}
+
+	protected abstract OutputStream getOut(String recordingFilename) throws IOException;
+}
@@ -34,17 +34,17 @@ public class DelayProcessor implements AudioProcessor {
 			}
 			int len = sampleBuffer.position();
 			((Buffer) sampleBuffer).flip();
-			ByteBuffer buffer = ByteBuffer.wrap(new byte[len]).order(sampleBuffer.order());
 
-			for (int i = 0; i < len >> 1; i++) {
-				int inputSample = sampleBuffer.getShort();
+			// process in-place
+			for (int i = 0; i < len; i += Short.BYTES) {
+				int inputSample = sampleBuffer.getShort(i);
 				int delaySample = delayBuffer[readIndex++];
 				int outputSample = inputSample * audioSection.getDelayDryLevel() / 100
 						+ delaySample * audioSection.getDelayWetLevel() / 100;
 
 				outputSample = Math.max(Math.min(outputSample, Short.MAX_VALUE), Short.MIN_VALUE);
 
-				buffer.putShort((short) outputSample);
+				sampleBuffer.putShort(i, (short) outputSample);
 
 				inputSample += delaySample * audioSection.getDelayFeedbackLevel() / 100;
 
@@ -59,9 +59,7 @@ public class DelayProcessor implements AudioProcessor {
 					writeIndex = 0;
 				}
 			}
-			((Buffer) sampleBuffer).flip();
-			((Buffer) buffer).flip();
-			sampleBuffer.put(buffer);
+			((Buffer) sampleBuffer).position(len);
 		}
 	}
 
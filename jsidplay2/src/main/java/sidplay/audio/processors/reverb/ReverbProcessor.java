@@ -13,6 +13,8 @@ public class ReverbProcessor implements AudioProcessor {
 
 	private IAudioSection audioSection;
 
+	private short[] dest = new short[0];
+
 	public ReverbProcessor(IConfig config) {
 		this.audioSection = config.getAudioSection();
 	}
@@ -50,11 +52,18 @@ public class ReverbProcessor implements AudioProcessor {
 			if (reverb.mix != audioSection.getReverbDryWetMix()) {
 				reverb.mix = audioSection.getReverbDryWetMix();
 			}
-			short[] dest = new short[sampleBuffer.position() >> 1];
+			int len = sampleBuffer.position() >> 1;
+			if (dest.length < len) {
+				dest = new short[len];
+			}
 			((Buffer) sampleBuffer).flip();
-			sampleBuffer.asShortBuffer().get(dest);
-			int newLen = reverb.doReverb(dest, dest.length);
-			sampleBuffer.asShortBuffer().put(dest, 0, newLen);
+			for (int i = 0; i < len; i++) {
+				dest[i] = sampleBuffer.getShort(i << 1);
+			}
+			int newLen = reverb.doReverb(dest, len);
+			for (int i = 0; i < newLen; i++) {
+				sampleBuffer.putShort(i << 1, dest[i]);
+			}
 			((Buffer) sampleBuffer).position(newLen << 1);
 		}
 	}
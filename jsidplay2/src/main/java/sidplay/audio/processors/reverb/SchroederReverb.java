@@ -4,6 +4,8 @@
 */
 package sidplay.audio.processors.reverb;
 
+import java.util.Arrays;
+
 /**
  * This reverb module is called a Schroeder reverb because the organization of
  * parallel comb filters and series connected allpass filters was suggested by
@@ -37,7 +39,7 @@ public class SchroederReverb {
 	protected AllpassNetwork allpass1;
 	protected AllpassNetwork allpass2;
 
-	private double[] dBuffer = new double[1];
+	private double[] dBuffer = new double[1], dBuffer1 = new double[0];
 
 	public SchroederReverb(int sampleRate, int numberOfChannels, int sampleBufferSize) {
 
@@ -68,7 +70,11 @@ public class SchroederReverb {
 		// Allocate buffer as required. Buffer must be initialized
 		// to zeros.
 		if (length != -1) {
-			dBuffer = new double[length];
+			if (dBuffer.length != length) {
+				dBuffer = new double[length];
+			} else {
+				Arrays.fill(dBuffer, 0);
+			}
 		}
 
 		// Apply the combs in parallel, get the possibly new length.
@@ -90,7 +96,11 @@ public class SchroederReverb {
 		} else {
 			newLength = dBuffer.length;
 		}
-		double[] dBuffer1 = new double[newLength];
+		if (dBuffer1.length != newLength) {
+			dBuffer1 = new double[newLength];
+		} else {
+			Arrays.fill(dBuffer1, 0);
+		}
 
 		// Apply the allpass networks
 		length = allpass1.doFilter(dBuffer, dBuffer1, inputExhausted ? -1 : newLength);
@@ -0,0 +1,189 @@
+package sidplay.audio.sidreg;
+
+import static sidplay.audio.sidreg.SidRegCaptureWriter.MAGIC;
+import static sidplay.audio.sidreg.SidRegCaptureWriter.MAX_SIDS;
+import static sidplay.audio.sidreg.SidRegCaptureWriter.VERSION;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import libsidplay.common.CPUClock;
+
+/**
+ * Read SID register writes of the binary capture format in the order of their
+ * clock time, see {@link SidRegCaptureWriter}.
+ */
+public class SidRegCaptureReader {
+
+	private static final class SidStream {
+		private final ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+		private byte[] records;
+		private int pos;
+		private long time;
+		private boolean hasNext;
+	}
+
+	private final CPUClock cpuClock;
+
+	private final SidStream[] streams = new SidStream[MAX_SIDS];
+
+	private int sidCount;
+
+	private int sidNum, register;
+	private long time;
+	private byte value;
+
+	/**
+	 * Read a capture completely.
+	 *
+	 * @param in input stream of the capture
+	 * @throws IOException I/O error or invalid format
+	 */
+	public SidRegCaptureReader(InputStream in) throws IOException {
+		final DataInputStream dataIn = new DataInputStream(in);
+		final byte[] magic = new byte[MAGIC.length];
+		dataIn.readFully(magic);
+		if (!Arrays.equals(magic, MAGIC)) {
+			throw new IOException("Not a SID register capture");
+		}
+		final int version = dataIn.readUnsignedByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported SID register capture version: " + version);
+		}
+		cpuClock = CPUClock.valueOf(dataIn.readUTF());
+
+		final Inflater inflater = new Inflater();
+		try {
+			byte[] compressed = new byte[0], records = new byte[0];
+			int sidNum;
+			while ((sidNum = dataIn.read()) != -1) {
+				if (sidNum >= MAX_SIDS) {
+					throw new IOException("Maximum supported SIDS exceeded: " + sidNum);
+				}
+				final int length = dataIn.readInt(), compressedLength = dataIn.readInt();
+				if (compressed.length < compressedLength) {
+					compressed = new byte[compressedLength];
+				}
+				if (records.length < length) {
+					records = new byte[length];
+				}
+				dataIn.readFully(compressed, 0, compressedLength);
+				inflater.reset();
+				inflater.setInput(compressed, 0, compressedLength);
+				if (inflater.inflate(records, 0, length) != length || !inflater.finished()) {
+					throw new IOException("Corrupt SID register capture block");
+				}
+				if (streams[sidNum] == null) {
+					streams[sidNum] = new SidStream();
+				}
+				streams[sidNum].blocks.write(records, 0, length);
+				sidCount = Math.max(sidCount, sidNum + 1);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt SID register capture block", e);
+		} finally {
+			inflater.end();
+		}
+		for (SidStream stream : streams) {
+			if (stream != null) {
+				stream.records = stream.blocks.toByteArray();
+				readTime(stream);
+			}
+		}
+	}
+
+	/**
+	 * @return CPU clock of the captured SID register writes
+	 */
+	public CPUClock getCPUClock() {
+		return cpuClock;
+	}
+
+	/**
+	 * @return number of captured SIDs (highest SID number + 1)
+	 */
+	public int getSIDCount() {
+		return sidCount;
+	}
+
+	/**
+	 * Advance to the next SID register write of all SIDs.
+	 *
+	 * @return there is a next SID register write
+	 * @throws IOException invalid format
+	 */
+	public boolean next() throws IOException {
+		SidStream next = null;
+		for (int i = 0; i < MAX_SIDS; i++) {
+			SidStream stream = streams[i];
+			if (stream != null && stream.hasNext && (next == null || stream.time < next.time)) {
+				next = stream;
+				sidNum = i;
+			}
+		}
+		if (next == null) {
+			return false;
+		}
+		time = next.time;
+		register = next.records[next.pos++] & 0x1f;
+		value = next.records[next.pos++];
+		readTime(next);
+		return true;
+	}
+
+	/**
+	 * @return clock time of the current SID register write (relative to the first
+	 *         write)
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return SID chip number of the current SID register write
+	 */
+	public int getSidNum() {
+		return sidNum;
+	}
+
+	/**
+	 * @return SID register of the current SID register write
+	 */
+	public int getRegister() {
+		return register;
+	}
+
+	/**
+	 * @return SID register value of the current SID register write
+	 */
+	public byte getValue() {
+		return value;
+	}
+
+	private void readTime(SidStream stream) throws IOException {
+		final byte[] records = stream.records;
+		stream.hasNext = stream.pos < records.length;
+		if (!stream.hasNext) {
+			return;
+		}
+		long cycles = 0;
+		for (int shift = 0;; shift += 7) {
+			if (stream.pos + 2 >= records.length || shift > 63) {
+				throw new EOFException("Truncated SID register capture");
+			}
+			final byte b = records[stream.pos++];
+			cycles |= (long) (b & 0x7f) << shift;
+			if (b >= 0) {
+				break;
+			}
+		}
+		stream.time += cycles;
+	}
+
+}
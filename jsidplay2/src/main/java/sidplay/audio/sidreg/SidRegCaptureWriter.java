@@ -0,0 +1,165 @@
+package sidplay.audio.sidreg;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import libsidplay.common.CPUClock;
+
+/**
+ * Write SID register writes in a compact binary capture format.
+ *
+ * <pre>
+ * Header:  magic "JSIDREG", version (byte), CPU clock (UTF string, e.g. PAL)
+ * Block:   SID number (byte), uncompressed length (int), compressed length (int), deflated records
+ * Record:  cycles since the previous write of the same SID (unsigned varint), register (byte), value (byte)
+ * </pre>
+ *
+ * Each SID chip has a stream of its own, written as a sequence of blocks. The
+ * cycles of the first write of each SID are relative to the first write of the
+ * capture. The CPU writes once per cycle at most, therefore the order of the
+ * writes of all SIDs can be restored by their clock time.
+ */
+public class SidRegCaptureWriter implements Closeable {
+
+	public static final byte[] MAGIC = "JSIDREG".getBytes(US_ASCII);
+
+	public static final int VERSION = 1;
+
+	/**
+	 * Maximum number of SID chips.
+	 */
+	public static final int MAX_SIDS = 3;
+
+	/**
+	 * Uncompressed size of a block.
+	 */
+	public static final int BLOCK_SIZE = 1 << 16;
+
+	/**
+	 * Maximum size of a record (varint of 64 bits, register and value).
+	 */
+	private static final int MAX_RECORD_SIZE = 12;
+
+	private static final class SidStream {
+		private final byte[] records = new byte[BLOCK_SIZE + MAX_RECORD_SIZE];
+		private int size;
+		private long lastTime;
+	}
+
+	private final DataOutputStream out;
+
+	private final SidStream[] streams = new SidStream[MAX_SIDS];
+
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+	private byte[] compressed = new byte[BLOCK_SIZE];
+
+	/**
+	 * Time of the first write of the capture (-1 means no write, yet).
+	 */
+	private long startTime = -1;
+
+	/**
+	 * Create a capture and write the header.
+	 *
+	 * @param out      output stream of the capture
+	 * @param cpuClock CPU clock of the captured SID register writes
+	 * @throws IOException I/O error
+	 */
+	public SidRegCaptureWriter(OutputStream out, CPUClock cpuClock) throws IOException {
+		this.out = new DataOutputStream(out);
+		this.out.write(MAGIC);
+		this.out.writeByte(VERSION);
+		this.out.writeUTF(cpuClock.name());
+	}
+
+	/**
+	 * Capture a SID register write.
+	 *
+	 * @param sidNum   SID chip number
+	 * @param time     clock time of the write
+	 * @param register SID register
+	 * @param value    SID register value
+	 * @throws IOException I/O error
+	 */
+	public void write(int sidNum, long time, int register, byte value) throws IOException {
+		if (startTime == -1) {
+			startTime = time;
+		}
+		SidStream stream = streams[sidNum];
+		if (stream == null) {
+			stream = streams[sidNum] = new SidStream();
+			stream.lastTime = startTime;
+		}
+		long cycles = time - stream.lastTime;
+		stream.lastTime = time;
+
+		final byte[] records = stream.records;
+		int size = stream.size;
+		while ((cycles & ~0x7fL) != 0) {
+			records[size++] = (byte) (cycles & 0x7f | 0x80);
+			cycles >>>= 7;
+		}
+		records[size++] = (byte) cycles;
+		records[size++] = (byte) register;
+		records[size++] = value;
+		stream.size = size;
+
+		if (size >= BLOCK_SIZE) {
+			writeBlock(sidNum, stream);
+		}
+	}
+
+	/**
+	 * Write all captured SID register writes.
+	 *
+	 * @throws IOException I/O error
+	 */
+	public void flush() throws IOException {
+		for (int sidNum = 0; sidNum < MAX_SIDS; sidNum++) {
+			if (streams[sidNum] != null && streams[sidNum].size > 0) {
+				writeBlock(sidNum, streams[sidNum]);
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Write all captured SID register writes, the output stream stays open.
+	 *
+	 * @throws IOException I/O error
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private void writeBlock(int sidNum, SidStream stream) throws IOException {
+		deflater.reset();
+		deflater.setInput(stream.records, 0, stream.size);
+		deflater.finish();
+		int length = 0;
+		while (!deflater.finished()) {
+			if (length == compressed.length) {
+				compressed = Arrays.copyOf(compressed, compressed.length << 1);
+			}
+			length += deflater.deflate(compressed, length, compressed.length - length);
+		}
+		out.writeByte(sidNum);
+		out.writeInt(stream.size);
+		out.writeInt(length);
+		out.write(compressed, 0, length);
+		stream.size = 0;
+	}
+
+}
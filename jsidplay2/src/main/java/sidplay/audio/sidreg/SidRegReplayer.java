@@ -0,0 +1,106 @@
+package sidplay.audio.sidreg;
+
+import static libsidplay.common.SIDEmu.NONE;
+import static libsidplay.sidtune.SidTune.RESET;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.LineUnavailableException;
+
+import builder.resid.ReSIDBuilder;
+import libsidplay.common.CPUClock;
+import libsidplay.common.Event;
+import libsidplay.common.EventScheduler;
+import libsidplay.common.SIDEmu;
+import libsidplay.config.IConfig;
+import sidplay.audio.AudioDriver;
+
+/**
+ * Replay a SID register capture (see {@link SidRegCaptureWriter}) with
+ * emulated SID chips without emulating the C64. Only the SID chips and the
+ * mixer are clocked, therefore a capture can be re-rendered much faster than
+ * the tune can be played, e.g. using different chip models or filter settings
+ * of the configuration.
+ */
+public class SidRegReplayer {
+
+	private final IConfig config;
+
+	/**
+	 * @param config configuration of the SID emulation and audio
+	 */
+	public SidRegReplayer(IConfig config) {
+		this.config = config;
+	}
+
+	/**
+	 * Replay a SID register capture.
+	 *
+	 * @param in                input stream of the capture
+	 * @param audioDriver       audio driver to render to
+	 * @param recordingFilename filename of the recording
+	 * @throws IOException              invalid capture or audio driver error
+	 * @throws LineUnavailableException audio line currently in use
+	 * @throws InterruptedException     replay interrupted
+	 */
+	public void replay(InputStream in, AudioDriver audioDriver, String recordingFilename)
+			throws IOException, LineUnavailableException, InterruptedException {
+		final SidRegCaptureReader reader = new SidRegCaptureReader(in);
+		final CPUClock cpuClock = reader.getCPUClock();
+
+		final EventScheduler context = new EventScheduler();
+		context.setCyclesPerSecond(cpuClock.getCpuFrequency());
+
+		audioDriver.open(config.getAudioSection(), recordingFilename, cpuClock, context);
+		final ReSIDBuilder sidBuilder = new ReSIDBuilder(context, config, cpuClock);
+		try {
+			sidBuilder.setAudioDriver(audioDriver);
+			final SIDEmu[] sids = new SIDEmu[reader.getSIDCount()];
+			for (int sidNum = 0; sidNum < sids.length; sidNum++) {
+				sids[sidNum] = sidBuilder.lock(NONE, sidNum, RESET);
+			}
+			sidBuilder.start();
+
+			final boolean[] end = new boolean[1];
+			final Event writeEvent = new Event("SID Register Write") {
+				@Override
+				public void event() throws InterruptedException {
+					do {
+						sids[reader.getSidNum()].write(reader.getRegister(), reader.getValue());
+						if (!nextWrite(reader)) {
+							end[0] = true;
+							return;
+						}
+					} while (reader.getTime() == context.getTime(Event.Phase.PHI2));
+					context.scheduleAbsolute(this, reader.getTime(), Event.Phase.PHI2);
+				}
+			};
+			if (nextWrite(reader)) {
+				context.scheduleAbsolute(writeEvent, reader.getTime(), Event.Phase.PHI2);
+				while (!end[0]) {
+					context.clock();
+				}
+			}
+			// save still unwritten sound data
+			if (audioDriver.isRecording() && audioDriver.buffer() != null) {
+				audioDriver.write();
+			}
+			for (SIDEmu sid : sids) {
+				sidBuilder.unlock(sid);
+			}
+		} finally {
+			sidBuilder.destroy();
+			audioDriver.close();
+		}
+	}
+
+	private static boolean nextWrite(SidRegCaptureReader reader) {
+		try {
+			return reader.next();
+		} catch (IOException e) {
+			throw new RuntimeException(e.getMessage(), e);
+		}
+	}
+
+}
@@ -1,8 +1,9 @@
 package sidplay.audio.xuggle;
 
+import static libsidplay.config.IEmulationSystemProperties.AUDIO_ENCODER_CHUNKS;
+
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.concurrent.TimeUnit;
@@ -19,6 +20,7 @@ import libsidplay.common.CPUClock;
 import libsidplay.common.Event.Phase;
 import libsidplay.common.EventScheduler;
 import libsidplay.config.IAudioSection;
+import sidplay.audio.AsyncEncoder;
 import sidplay.audio.AudioConfig;
 import sidplay.audio.AudioDriver;
 
@@ -34,6 +36,9 @@ public abstract class XuggleAudioDriver implements AudioDriver {
 
 	private ByteBuffer sampleBuffer;
 
+	private AsyncEncoder encoder;
+	private short[] shortArray;
+
 	@Override
 	public void open(IAudioSection audioSection, String recordingFilename, CPUClock cpuClock, EventScheduler context)
 			throws IOException, LineUnavailableException, InterruptedException {
@@ -54,24 +59,30 @@ public abstract class XuggleAudioDriver implements AudioDriver {
 		ticksPerMicrosecond = cpuClock.getCpuFrequency() / 1000000;
 		sampleBuffer = ByteBuffer.allocate(cfg.getChunkFrames() * Short.BYTES * cfg.getChannels())
 				.order(ByteOrder.LITTLE_ENDIAN);
+		shortArray = new short[sampleBuffer.capacity() >> 1];
+		encoder = new AsyncEncoder(getOutputFormatName() + " Encoder", sampleBuffer.capacity(), AUDIO_ENCODER_CHUNKS,
+				this::encode);
 	}
 
 	@Override
 	public void write() throws InterruptedException {
-		long timeStamp = getTimeStamp();
-
-		short[] shortArray = new short[sampleBuffer.position() >> 1];
-		((Buffer) sampleBuffer).flip();
-		sampleBuffer.asShortBuffer().get(shortArray);
-
-		writer.encodeAudio(0, shortArray, timeStamp, TimeUnit.MICROSECONDS);
+		encoder.submit(sampleBuffer, getTimeStamp());
 	}
 
 	@Override
 	public void close() {
-		if (writer != null && writer.isOpen()) {
-			writer.close();
-			writer = null;
+		try {
+			if (encoder != null) {
+				encoder.close();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			encoder = null;
+			if (writer != null && writer.isOpen()) {
+				writer.close();
+				writer = null;
+			}
 		}
 	}
 
@@ -93,6 +104,16 @@ public abstract class XuggleAudioDriver implements AudioDriver {
 		return (long) ((now - firstTimeStamp) / ticksPerMicrosecond);
 	}
 
+	private void encode(ByteBuffer chunk, long timeStamp) {
+		if (shortArray.length != chunk.limit() >> 1) {
+			// last chunk is incomplete
+			shortArray = new short[chunk.limit() >> 1];
+		}
+		chunk.asShortBuffer().get(shortArray);
+
+		writer.encodeAudio(0, shortArray, timeStamp, TimeUnit.MICROSECONDS);
+	}
+
 	protected abstract String getOutputFormatName();
 
 	protected abstract ID getAudioCodec();
@@ -9,6 +9,8 @@ import static java.lang.Short.BYTES;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static libsidplay.components.mos656x.VIC.MAX_HEIGHT;
 import static libsidplay.components.mos656x.VIC.MAX_WIDTH;
+import static libsidplay.config.IEmulationSystemProperties.AUDIO_ENCODER_CHUNKS;
+import static libsidplay.config.IEmulationSystemProperties.VIDEO_ENCODER_FRAMES;
 
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
@@ -22,6 +24,10 @@ import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.sound.sampled.LineUnavailableException;
 
@@ -71,12 +77,42 @@ import sidplay.audio.exceptions.IniConfigException;
  * rtmp://localhost/live/test
  * http://localhost:90/hls/test.m3u8
  * }
+ * 
+ * Colour conversion and encoding is done in an encoder thread (see
+ * jsidplay2.video.encoder_frames). VIC frames and audio chunks are copied into
+ * reusable buffers and encoded in the order of their arrival. If the encoder
+ * falls behind, the emulation waits, or for live streams, frames are dropped.
  *
  * @author ken
  *
  */
 public abstract class XuggleVideoDriver implements AudioDriver, VideoDriver {
 
+	private static final Logger XUGGLE_VIDEO_DRIVER = Logger.getLogger(XuggleVideoDriver.class.getName());
+
+	private static class Job {
+		private long timeStamp, submitNanos;
+	}
+
+	private static final class VideoFrame extends Job {
+		private final IntBuffer pixels = IntBuffer.allocate(MAX_WIDTH * MAX_HEIGHT);
+		private int borderHeight;
+	}
+
+	private static final class AudioChunk extends Job {
+		private final byte[] samples;
+		private int length;
+
+		private AudioChunk(int capacity) {
+			samples = new byte[capacity];
+		}
+	}
+
+	/**
+	 * End of stream marker.
+	 */
+	private static final Job END = new Job();
+
 	private EventScheduler context;
 
 	private IContainer container;
@@ -94,6 +130,17 @@ public abstract class XuggleVideoDriver implements AudioDriver, VideoDriver {
 
 	private int statusTextOverflow;
 
+	private IAudioSamples audioSamples;
+	private IPacket audioPacket, videoPacket;
+
+	private Thread encoderThread;
+	private BlockingQueue<VideoFrame> freeFrames;
+	private BlockingQueue<AudioChunk> freeChunks;
+	private BlockingQueue<Job> pending;
+	private volatile Throwable encoderError;
+	private volatile int maxQueueDepth;
+	private volatile long droppedFrames, maxEncoderLag;
+
 	@Override
 	public void open(IAudioSection audioSection, String recordingFilename, CPUClock cpuClock, EventScheduler context)
 			throws IOException, LineUnavailableException, InterruptedException {
@@ -153,62 +200,68 @@ public abstract class XuggleVideoDriver implements AudioDriver, VideoDriver {
 		framesPerKeyFrames = (int) cpuClock.getScreenRefresh();
 		firstTimeStamp = 0;
 		sampleBuffer = ByteBuffer.allocate(cfg.getChunkFrames() * BYTES * cfg.getChannels()).order(LITTLE_ENDIAN);
+
+		audioSamples = IAudioSamples.make(cfg.getChunkFrames(), audioCoder.getChannels(), FMT_S16);
+		audioPacket = IPacket.make();
+		videoPacket = IPacket.make();
+
+		startEncoderThread(getEncoderFrames());
 	}
 
 	@Override
 	public void write() throws InterruptedException {
 		long timeStamp = getTimeStamp();
 
-		int numSamples = sampleBuffer.position() >> 2;
-		IAudioSamples audioSamples = IAudioSamples.make(numSamples, audioCoder.getChannels(), FMT_S16);
-		audioSamples.getData().put(sampleBuffer.array(), 0, 0, sampleBuffer.position());
-		audioSamples.setComplete(true, numSamples, audioCoder.getSampleRate(), audioCoder.getChannels(), FMT_S16,
-				timeStamp);
-
-		int samplesConsumed = 0;
-		IPacket packet = IPacket.make();
-		while (samplesConsumed < audioSamples.getNumSamples()) {
-			int retval = audioCoder.encodeAudio(packet, audioSamples, samplesConsumed);
-			if (retval < 0) {
-				throw new RuntimeException("Error writing audio stream");
-			}
-			samplesConsumed += retval;
-			if (packet.isComplete()) {
-				if (container.writePacket(packet) < 0) {
-					throw new RuntimeException("Could not write audio packet!");
-				}
-			}
+		if (encoderThread == null) {
+			encodeAudio(sampleBuffer.array(), sampleBuffer.position(), timeStamp);
+			return;
 		}
-		audioSamples.delete();
-		packet.delete();
+		checkEncoderError();
+		AudioChunk chunk = freeChunks.take();
+		checkEncoderError();
+		System.arraycopy(sampleBuffer.array(), 0, chunk.samples, 0, sampleBuffer.position());
+		chunk.length = sampleBuffer.position();
+		submit(chunk, timeStamp);
 	}
 
 	@Override
 	public void accept(VIC vic) {
 		long timeStamp = getTimeStamp();
 
-		to3ByteGBR(vic.getPixels());
-
-		graphics.drawImage(statusImage, 0, vic.getBorderHeight(), null);
-
-		IVideoPicture videoPicture = converter.toPicture(vicImage, timeStamp);
-		videoPicture.setKeyFrame((frameNo++ % framesPerKeyFrames) == 0);
-
-		IPacket packet = IPacket.make();
-		if (videoCoder.encodeVideo(packet, videoPicture, 0) < 0) {
-			throw new RuntimeException("Error writing video stream");
+		if (encoderThread == null) {
+			encodeVideo(vic.getPixels(), vic.getBorderHeight(), timeStamp);
+			return;
 		}
-		if (packet.isComplete()) {
-			if (container.writePacket(packet) < 0) {
-				throw new RuntimeException("Could not write video packet!");
+		checkEncoderError();
+		VideoFrame frame = freeFrames.poll();
+		if (frame == null) {
+			if (isDropFrames()) {
+				droppedFrames++;
+				return;
+			}
+			try {
+				frame = freeFrames.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
 			}
+			checkEncoderError();
+		}
+		IntBuffer pixels = vic.getPixels();
+		((Buffer) pixels).clear();
+		((Buffer) frame.pixels).clear();
+		frame.pixels.put(pixels);
+		frame.borderHeight = vic.getBorderHeight();
+		try {
+			submit(frame, timeStamp);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
-		videoPicture.delete();
-		packet.delete();
 	}
 
 	@Override
 	public void close() {
+		stopEncoderThread();
 		if (audioCoder != null) {
 			IPacket audioPacket = IPacket.make();
 			// flush any data it was keeping a hold of
@@ -250,6 +303,19 @@ public abstract class XuggleVideoDriver implements AudioDriver, VideoDriver {
 			}
 			container = null;
 		}
+		if (audioSamples != null) {
+			audioSamples.delete();
+			audioSamples = null;
+		}
+		if (audioPacket != null) {
+			audioPacket.delete();
+			audioPacket = null;
+		}
+		if (videoPacket != null) {
+			videoPacket.delete();
+			videoPacket = null;
+		}
+		checkEncoderError();
 	}
 
 	@Override
@@ -262,7 +328,37 @@ public abstract class XuggleVideoDriver implements AudioDriver, VideoDriver {
 		return true;
 	}
 
-	public void setStatusText(String statusText) {
+	/**
+	 * @return number of frames and audio chunks waiting to be encoded
+	 */
+	public int getQueueDepth() {
+		return pending != null ? pending.size() : 0;
+	}
+
+	/**
+	 * @return maximum number of frames and audio chunks, that have been waiting to
+	 *         be encoded
+	 */
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	/**
+	 * @return maximum nanoseconds between arrival and end of encoding of a frame
+	 *         or audio chunk
+	 */
+	public long getMaxEncoderLag() {
+		return maxEncoderLag;
+	}
+
+	/**
+	 * @return number of frames dropped, because the encoder has fallen behind
+	 */
+	public long getDroppedFrames() {
+		return droppedFrames;
+	}
+
+	public synchronized void setStatusText(String statusText) {
 		Graphics2D graphics = null;
 		try {
 			if (statusImage != null) {
@@ -301,6 +397,160 @@ public abstract class XuggleVideoDriver implements AudioDriver, VideoDriver {
 		Configuration.configure(props, videoCoder);
 	}
 
+	/**
+	 * @return number of reusable frame buffers of the encoder thread (0 means
+	 *         encode in the emulation thread)
+	 */
+	protected int getEncoderFrames() {
+		return VIDEO_ENCODER_FRAMES;
+	}
+
+	/**
+	 * @return drop frames instead of waiting for the encoder (live streams)
+	 */
+	protected boolean isDropFrames() {
+		return false;
+	}
+
+	private void startEncoderThread(int frames) {
+		encoderError = null;
+		maxQueueDepth = 0;
+		droppedFrames = maxEncoderLag = 0;
+		if (frames <= 0) {
+			encoderThread = null;
+			return;
+		}
+		int chunks = Math.max(1, AUDIO_ENCODER_CHUNKS);
+		freeFrames = new ArrayBlockingQueue<>(frames);
+		freeChunks = new ArrayBlockingQueue<>(chunks);
+		pending = new ArrayBlockingQueue<>(frames + chunks + 1);
+		for (int i = 0; i < frames; i++) {
+			freeFrames.add(new VideoFrame());
+		}
+		for (int i = 0; i < chunks; i++) {
+			freeChunks.add(new AudioChunk(sampleBuffer.capacity()));
+		}
+		encoderThread = new Thread(this::encodeJobs, getOutputFormatName() + " Encoder");
+		encoderThread.setDaemon(true);
+		encoderThread.start();
+	}
+
+	private void stopEncoderThread() {
+		if (encoderThread == null) {
+			return;
+		}
+		try {
+			pending.put(END);
+			encoderThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (XUGGLE_VIDEO_DRIVER.isLoggable(Level.FINE)) {
+				XUGGLE_VIDEO_DRIVER.fine(String.format("%s: max. queue depth=%d, max. encoder lag=%dms, dropped frames=%d",
+						encoderThread.getName(), maxQueueDepth, maxEncoderLag / 1000000, droppedFrames));
+			}
+			encoderThread = null;
+		}
+	}
+
+	private void submit(Job job, long timeStamp) throws InterruptedException {
+		job.timeStamp = timeStamp;
+		job.submitNanos = System.nanoTime();
+		pending.put(job);
+
+		int queueDepth = pending.size();
+		if (queueDepth > maxQueueDepth) {
+			maxQueueDepth = queueDepth;
+		}
+	}
+
+	private void encodeJobs() {
+		while (true) {
+			final Job job;
+			try {
+				job = pending.take();
+			} catch (InterruptedException e) {
+				// keep on draining, submission and close must never block
+				encoderError = e;
+				continue;
+			}
+			if (job == END) {
+				return;
+			}
+			try {
+				if (encoderError == null) {
+					if (job instanceof VideoFrame) {
+						VideoFrame frame = (VideoFrame) job;
+						encodeVideo(frame.pixels, frame.borderHeight, job.timeStamp);
+					} else {
+						AudioChunk chunk = (AudioChunk) job;
+						encodeAudio(chunk.samples, chunk.length, job.timeStamp);
+					}
+				}
+			} catch (Throwable e) {
+				encoderError = e;
+			}
+			long lag = System.nanoTime() - job.submitNanos;
+			if (lag > maxEncoderLag) {
+				maxEncoderLag = lag;
+			}
+			// on error, jobs are dropped to never block the emulation
+			if (job instanceof VideoFrame) {
+				freeFrames.add((VideoFrame) job);
+			} else {
+				freeChunks.add((AudioChunk) job);
+			}
+		}
+	}
+
+	private void checkEncoderError() {
+		if (encoderError != null) {
+			throw new RuntimeException("Error encoding video stream", encoderError);
+		}
+	}
+
+	private void encodeAudio(byte[] samples, int length, long timeStamp) {
+		int numSamples = length >> 2;
+		audioSamples.getData().put(samples, 0, 0, length);
+		audioSamples.setComplete(true, numSamples, audioCoder.getSampleRate(), audioCoder.getChannels(), FMT_S16,
+				timeStamp);
+
+		int samplesConsumed = 0;
+		while (samplesConsumed < audioSamples.getNumSamples()) {
+			int retval = audioCoder.encodeAudio(audioPacket, audioSamples, samplesConsumed);
+			if (retval < 0) {
+				throw new RuntimeException("Error writing audio stream");
+			}
+			samplesConsumed += retval;
+			if (audioPacket.isComplete()) {
+				if (container.writePacket(audioPacket) < 0) {
+					throw new RuntimeException("Could not write audio packet!");
+				}
+			}
+		}
+	}
+
+	private void encodeVideo(IntBuffer pixels, int borderHeight, long timeStamp) {
+		to3ByteGBR(pixels);
+
+		synchronized (this) {
+			graphics.drawImage(statusImage, 0, borderHeight, null);
+		}
+
+		IVideoPicture videoPicture = converter.toPicture(vicImage, timeStamp);
+		videoPicture.setKeyFrame((frameNo++ % framesPerKeyFrames) == 0);
+
+		if (videoCoder.encodeVideo(videoPacket, videoPicture, 0) < 0) {
+			throw new RuntimeException("Error writing video stream");
+		}
+		if (videoPacket.isComplete()) {
+			if (container.writePacket(videoPacket) < 0) {
+				throw new RuntimeException("Could not write video packet!");
+			}
+		}
+		videoPicture.delete();
+	}
+
 	private long getTimeStamp() {
 		long now = context.getTime(Phase.PHI2);
 		if (firstTimeStamp == 0) {
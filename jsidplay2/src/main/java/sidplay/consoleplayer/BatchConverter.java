@@ -0,0 +1,194 @@
+package sidplay.consoleplayer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import libsidplay.config.IConfig;
+import libsidplay.sidtune.SidTune;
+import libsidplay.sidtune.SidTuneError;
+import libsidutils.PathUtils;
+import libsidutils.siddatabase.SidDatabase;
+import sidplay.Player;
+import sidplay.audio.Audio;
+import sidplay.player.State;
+import sidplay.player.TuneFileWalker;
+
+/**
+ * Convert all tunes of a directory or archive (e.g. HVSC) to recordings. A pool
+ * of worker threads plays one tune per player, each worker thread uses a
+ * configuration of its own. Immutable resources are shared by all players (song
+ * length database, ROMs and resampler tables).
+ *
+ * The directory structure is kept in the output directory. Converted tunes are
+ * appended to a progress file in the output directory, an interrupted batch
+ * conversion continues with the tunes, that have not been converted, yet.
+ */
+public class BatchConverter {
+
+	/**
+	 * Progress file in the output directory (relative paths of converted tunes).
+	 */
+	public static final String PROGRESS_FILENAME = "jsidplay2-batch.progress";
+
+	private final ThreadLocal<IConfig> configs;
+
+	private final int threads;
+
+	private final File outputDir;
+
+	private final boolean quiet;
+
+	private SidDatabase sidDatabase;
+
+	private final AtomicInteger converted = new AtomicInteger(), failed = new AtomicInteger();
+
+	private PrintStream progress;
+
+	private long startTime;
+
+	private int tuneCount;
+
+	/**
+	 * @param configSupplier supplier of the configuration of a worker thread
+	 * @param threads        number of worker threads
+	 * @param outputDir      output directory
+	 * @param quiet          quiet (no output except the summary)
+	 */
+	public BatchConverter(Supplier<IConfig> configSupplier, int threads, File outputDir, boolean quiet) {
+		this.configs = ThreadLocal.withInitial(configSupplier);
+		this.threads = threads;
+		this.outputDir = outputDir;
+		this.quiet = quiet;
+	}
+
+	/**
+	 * Set song length database (shared by all players).
+	 *
+	 * @param sidDatabase song length database
+	 */
+	public void setSidDatabase(SidDatabase sidDatabase) {
+		this.sidDatabase = sidDatabase;
+	}
+
+	/**
+	 * Convert all tunes of the directory or archive.
+	 *
+	 * @param root directory or archive (e.g. ZIP) containing the tunes
+	 * @param audio audio to record (e.g. MP3)
+	 * @throws IOException          no tunes found, progress file cannot be read
+	 *                              or written
+	 * @throws InterruptedException batch conversion interrupted
+	 */
+	public void convert(File root, Audio audio) throws IOException, InterruptedException {
+		final List<Entry<String, File>> tunes = TuneFileWalker.collectTunes(root);
+
+		outputDir.mkdirs();
+		final File progressFile = new File(outputDir, PROGRESS_FILENAME);
+		final Set<String> done = readProgress(progressFile);
+		tunes.removeIf(tune -> done.contains(tune.getKey()));
+		tuneCount = tunes.size();
+		if (!quiet && !done.isEmpty()) {
+			System.out.printf("Continue batch conversion, %d tunes already converted%n", done.size());
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "BatchConverter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		startTime = System.nanoTime();
+		try (PrintStream progress = new PrintStream(new FileOutputStream(progressFile, true), true, UTF_8.name())) {
+			this.progress = progress;
+			for (Entry<String, File> tune : tunes) {
+				executor.execute(() -> convert(tune.getKey(), tune.getValue(), audio));
+			}
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		} finally {
+			executor.shutdownNow();
+		}
+		System.out.printf("Converted %d tunes (%d failed, %d skipped) in %ds, %.1f tunes/min%n", converted.get(),
+				failed.get(), done.size(), (System.nanoTime() - startTime) / 1_000_000_000L, getTunesPerMinute());
+	}
+
+	/**
+	 * @return number of converted tunes per minute
+	 */
+	public double getTunesPerMinute() {
+		double minutes = (System.nanoTime() - startTime) / 60_000_000_000.;
+		return minutes > 0 ? converted.get() / minutes : 0;
+	}
+
+	private Set<String> readProgress(File progressFile) throws IOException {
+		final Set<String> done = new HashSet<>();
+		if (progressFile.exists()) {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(new FileInputStream(progressFile), UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					done.add(line);
+				}
+			}
+		}
+		return done;
+	}
+
+	/**
+	 * Convert a tune, called by a worker thread.
+	 */
+	private void convert(String name, File file, Audio audio) {
+		try {
+			final SidTune tune = SidTune.load(file);
+			final String basename = new File(outputDir, PathUtils.getFilenameWithoutSuffix(name)).getAbsolutePath();
+			new File(basename).getParentFile().mkdirs();
+
+			final Player player = new Player(configs.get());
+			player.setAudioDriver(audio.newAudioDriver());
+			player.setSidDatabase(sidDatabase);
+			player.setRecordingFilenameProvider(theTune -> theTune.getInfo().getSongs() > 1
+					? basename + String.format("-%02d", theTune.getInfo().getCurrentSong())
+					: basename);
+			player.play(tune);
+			player.stopC64(false);
+
+			if (player.stateProperty().get() == State.END) {
+				converted(name);
+			} else {
+				failed(name, "player has been stopped");
+			}
+		} catch (IOException | SidTuneError | RuntimeException e) {
+			failed(name, e.getMessage());
+		}
+	}
+
+	private synchronized void converted(String name) {
+		progress.println(name);
+		int count = converted.incrementAndGet();
+		if (!quiet) {
+			System.out.printf("[%d/%d] %s (%.1f tunes/min)%n", count + failed.get(), tuneCount, name,
+					getTunesPerMinute());
+		}
+	}
+
+	private synchronized void failed(String name, String message) {
+		int count = failed.incrementAndGet();
+		System.err.printf("[%d/%d] %s failed: %s%n", converted.get() + count, tuneCount, name, message);
+	}
+
+}
@@ -54,6 +54,7 @@ public interface IniDefaults {
 	float DEFAULT_BLUR = SIDPLAY2_SECTION.getBlur();
 	float DEFAULT_BLEED = SIDPLAY2_SECTION.getBleed();
 	boolean DEFAULT_TURBO_TAPE = SIDPLAY2_SECTION.isTurboTape();
+	boolean DEFAULT_WARP_LOAD = SIDPLAY2_SECTION.isWarpLoad();
 
 	// C1541 Section
 
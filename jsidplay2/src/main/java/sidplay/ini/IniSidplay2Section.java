@@ -21,6 +21,7 @@ import static sidplay.ini.IniDefaults.DEFAULT_START_TIME;
 import static sidplay.ini.IniDefaults.DEFAULT_TINT;
 import static sidplay.ini.IniDefaults.DEFAULT_TMP_DIR;
 import static sidplay.ini.IniDefaults.DEFAULT_TURBO_TAPE;
+import static sidplay.ini.IniDefaults.DEFAULT_WARP_LOAD;
 
 import java.io.File;
 import java.text.SimpleDateFormat;
@@ -286,6 +287,17 @@ public class IniSidplay2Section extends IniSection implements ISidPlay2Section {
 		iniReader.setProperty(SECTION_ID, "TurboTape", turboTape);
 	}
 
+	@Override
+	public final boolean isWarpLoad() {
+		return iniReader.getPropertyBool(SECTION_ID, "WarpLoad", DEFAULT_WARP_LOAD);
+	}
+
+	@Override
+	@Parameter(names = { "--warpLoad" }, descriptionKey = "WARP_LOAD", arity = 1, order = 9)
+	public final void setWarpLoad(boolean warpLoad) {
+		iniReader.setProperty(SECTION_ID, "WarpLoad", warpLoad);
+	}
+
 	@Override
 	public final String toString() {
 		return BeanToStringConverter.toString(this);
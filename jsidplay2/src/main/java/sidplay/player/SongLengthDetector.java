@@ -0,0 +1,426 @@
+package sidplay.player;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import builder.resid.SIDMixer;
+import libsidplay.common.CPUClock;
+import libsidplay.common.Emulation;
+import libsidplay.common.Engine;
+import libsidplay.common.Event.Phase;
+import libsidplay.common.EventScheduler;
+import libsidplay.common.SIDListener;
+import libsidplay.common.SamplingMethod;
+import libsidplay.config.IAudioSection;
+import libsidplay.config.IConfig;
+import libsidplay.sidtune.MD5Method;
+import libsidplay.sidtune.SidTune;
+import libsidplay.sidtune.SidTuneError;
+import sidplay.Player;
+import sidplay.audio.AudioDriver;
+import sidplay.ini.IniConfig;
+
+/**
+ * Detect song lengths without listening, e.g. to regenerate the song length
+ * database for tunes missing in "DOCUMENTS/Songlengths.md5".
+ *
+ * <OL>
+ * <LI>Songs are played as fast as possible without audio output (SIDs are
+ * clocked, but nothing is resampled or written).
+ * <LI>SID register writes are traced per video frame, a song ends where the
+ * trace starts repeating (loop) or where the SID output stays silent.
+ * <LI>Several tunes are detected in parallel, the result is written in the
+ * format of the song length database keyed by the MD5 checksum of the tune.
+ * </OL>
+ *
+ * <B>Note:</B> Songs without loop or silence are played until the maximum
+ * length, which is used as song length.
+ */
+public class SongLengthDetector {
+
+	private static final Logger SONG_LENGTH_DETECTOR = Logger.getLogger(SongLengthDetector.class.getName());
+
+	/**
+	 * SID output below this peak-to-peak level is considered silent.
+	 */
+	private static final int SILENCE_LEVEL = 64;
+
+	/**
+	 * Minimum length of silence in seconds to end a song.
+	 */
+	private static final double SILENCE_LENGTH = 3;
+
+	/**
+	 * Minimum length of the repeating part of a song in seconds.
+	 */
+	private static final double MIN_REPEAT_LENGTH = 15;
+
+	/**
+	 * Search for a loop each time this many seconds have been played.
+	 */
+	private static final double LOOP_CHECK_INTERVAL = 10;
+
+	/**
+	 * Trace of SID register writes per video frame. Each frame is reduced to a
+	 * hash of its register writes in the order they occur.
+	 */
+	private static final class TraceDriver implements AudioDriver, SIDListener {
+
+		private static final long FNV_OFFSET = 0xcbf29ce484222325L, FNV_PRIME = 0x100000001b3L;
+
+		private EventScheduler context;
+
+		private ByteBuffer buffer;
+
+		private int cyclesPerFrame;
+
+		private double cpuFrequency;
+
+		private long[] frames = new long[4096];
+
+		private int frameCount;
+
+		private long hash = FNV_OFFSET;
+
+		@Override
+		public void open(IAudioSection audioSection, String recordingFilename, CPUClock cpuClock,
+				EventScheduler context) {
+			this.context = context;
+			this.cyclesPerFrame = cpuClock.getCyclesPerFrame();
+			this.cpuFrequency = cpuClock.getCpuFrequency();
+			this.buffer = ByteBuffer.allocate(audioSection.getBufferSize() * Short.BYTES * 2);
+			frameCount = 0;
+			hash = FNV_OFFSET;
+		}
+
+		@Override
+		public void write(int addr, byte data) {
+			write(0, addr, data);
+		}
+
+		@Override
+		public void write(int sidNum, int addr, byte data) {
+			advance();
+			hash = (hash ^ (sidNum << 13 | (addr & 0x1f) << 8 | data & 0xff)) * FNV_PRIME;
+		}
+
+		/**
+		 * Complete all frames up to the present moment.
+		 */
+		private void advance() {
+			long frame = context.getTime(Phase.PHI2) / cyclesPerFrame;
+			while (frameCount < frame) {
+				if (frameCount == frames.length) {
+					frames = Arrays.copyOf(frames, frames.length << 1);
+				}
+				frames[frameCount++] = hash;
+				hash = FNV_OFFSET;
+			}
+		}
+
+		/**
+		 * Search the shortest loop period, the trace must repeat with that period
+		 * at least twice and for the minimum repeat length until the present moment.
+		 *
+		 * @param minRepeatFrames minimum length of the repeating part in frames
+		 * @return frame number, where the song loops for the first time or -1 (no
+		 *         loop)
+		 */
+		private int findLoop(int minRepeatFrames) {
+			for (int period = 1; period <= frameCount >> 1; period++) {
+				int matches = 0;
+				while (matches < frameCount - period
+						&& frames[frameCount - 1 - matches] == frames[frameCount - 1 - matches - period]) {
+					matches++;
+				}
+				if (matches >= period && matches + period >= minRepeatFrames) {
+					return frameCount - matches;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * @param seconds time in seconds
+		 * @return number of frames
+		 */
+		private int toFrames(double seconds) {
+			return (int) (seconds * cpuFrequency / cyclesPerFrame);
+		}
+
+		/**
+		 * @param frame frame number
+		 * @return start time of the frame in seconds
+		 */
+		private double toSeconds(int frame) {
+			return frame * (double) cyclesPerFrame / cpuFrequency;
+		}
+
+		@Override
+		public void write() {
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public ByteBuffer buffer() {
+			return buffer;
+		}
+
+		@Override
+		public boolean isRecording() {
+			return true;
+		}
+	}
+
+	/**
+	 * Detection of the length of a single song.
+	 */
+	private final class Detection {
+
+		private final Player player;
+
+		private final TraceDriver driver = new TraceDriver();
+
+		private SIDMixer mixer;
+
+		private double silenceStart = -1, nextLoopCheck = LOOP_CHECK_INTERVAL;
+
+		private boolean audible;
+
+		private double length;
+
+		private Detection(Player player) throws IOException {
+			this.player = player;
+			player.setAudioDriver(driver);
+			player.setMenuHook(p -> p.configureMixer(m -> {
+				mixer = (SIDMixer) m;
+				mixer.setSilent(true);
+				mixer.setMixerListener(this::mixerEvent);
+			}));
+		}
+
+		private double detect(SidTune tune, int songNum) {
+			tune.getInfo().setSelectedSong(songNum);
+			player.play(tune);
+			player.stopC64(false);
+			if (length > 0) {
+				return length;
+			}
+			// maximum length reached: silent at the end or loop at the end?
+			if (audible && silenceStart >= 0) {
+				return silenceStart;
+			}
+			driver.advance();
+			int loop = driver.findLoop(driver.toFrames(MIN_REPEAT_LENGTH));
+			return loop > 0 ? driver.toSeconds(loop) : maxLength;
+		}
+
+		private void mixerEvent() {
+			double time = player.time();
+			if (mixer.getOutputLevel() < SILENCE_LEVEL) {
+				if (silenceStart < 0) {
+					silenceStart = time;
+				} else if (audible && time - silenceStart >= SILENCE_LENGTH) {
+					end(silenceStart);
+					return;
+				}
+			} else {
+				silenceStart = -1;
+				audible = true;
+			}
+			if (time >= nextLoopCheck) {
+				nextLoopCheck += LOOP_CHECK_INTERVAL;
+				driver.advance();
+				int loop = driver.findLoop(driver.toFrames(MIN_REPEAT_LENGTH));
+				if (loop > 0) {
+					end(driver.toSeconds(loop));
+				}
+			}
+		}
+
+		private void end(double length) {
+			this.length = length;
+			player.quit();
+		}
+	}
+
+	private final int threads;
+
+	private final double maxLength;
+
+	private final MD5Method md5Method;
+
+	private final ThreadLocal<IConfig> configs = ThreadLocal.withInitial(this::createConfig);
+
+	private double tunesPerHourPerCore;
+
+	/**
+	 * @param threads   number of tunes detected in parallel
+	 * @param maxLength maximum song length in seconds
+	 * @param md5Method MD5 checksum of the song length database (MD5_CONTENTS for
+	 *                  Songlengths.md5, MD5_PSID_HEADER for Songlengths.txt)
+	 */
+	public SongLengthDetector(int threads, double maxLength, MD5Method md5Method) {
+		this.threads = threads;
+		this.maxLength = maxLength;
+		this.md5Method = md5Method;
+	}
+
+	/**
+	 * Detect the length of all songs of a tune.<BR>
+	 * <B>Note:</B> The tune is loaded for each song, the play list keeps the
+	 * current song of a tune once loaded.
+	 *
+	 * @param file tune to detect the song lengths
+	 * @return song lengths in seconds
+	 * @throws IOException  configuration error or tune cannot be read
+	 * @throws SidTuneError invalid tune
+	 */
+	public double[] detect(File file) throws IOException, SidTuneError {
+		final Player player = new Player(configs.get());
+		final double[] lengths = new double[SidTune.load(file).getInfo().getSongs()];
+		for (int songNum = 1; songNum <= lengths.length; songNum++) {
+			lengths[songNum - 1] = new Detection(player).detect(SidTune.load(file), songNum);
+		}
+		return lengths;
+	}
+
+	/**
+	 * Detect the song lengths of all tunes of a directory or archive (e.g. HVSC)
+	 * and write them in the format of the song length database.
+	 *
+	 * @param root         directory or archive containing the tunes
+	 * @param songLengths  song length database file to write
+	 * @throws IOException          no tunes found, song length database cannot
+	 *                              be written
+	 * @throws InterruptedException detection interrupted
+	 */
+	public void detect(File root, File songLengths) throws IOException, InterruptedException {
+		final List<Entry<String, File>> tunes = TuneFileWalker.collectTunes(root);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "SongLengthDetector");
+			thread.setDaemon(true);
+			return thread;
+		});
+		final long startTime = System.nanoTime();
+		final Map<String, Future<String>> results = new TreeMap<>();
+		try {
+			for (Entry<String, File> tune : tunes) {
+				results.put(tune.getKey(), executor.submit(() -> toSongLengths(tune.getValue())));
+			}
+			try (PrintWriter out = new PrintWriter(
+					new OutputStreamWriter(Files.newOutputStream(songLengths.toPath()), UTF_8))) {
+				out.println("[Database]");
+				for (Entry<String, Future<String>> result : results.entrySet()) {
+					String line = getResult(result.getKey(), result.getValue());
+					if (line != null) {
+						out.println("; " + result.getKey());
+						out.println(line);
+					}
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		double hours = (System.nanoTime() - startTime) / 3_600_000_000_000.;
+		int cores = Math.min(threads, Runtime.getRuntime().availableProcessors());
+		tunesPerHourPerCore = hours > 0 ? tunes.size() / hours / cores : 0;
+		SONG_LENGTH_DETECTOR.fine(() -> String.format("Song lengths of %d tunes detected in %.1fs: %.0f tunes/h/core",
+				tunes.size(), hours * 3600, tunesPerHourPerCore));
+	}
+
+	/**
+	 * @return throughput of the last detection in tunes per hour per core
+	 */
+	public double getTunesPerHourPerCore() {
+		return tunesPerHourPerCore;
+	}
+
+	/**
+	 * Detect the song lengths of a tune, called by a worker thread.
+	 *
+	 * @return line of the song length database or null (unsupported tune)
+	 */
+	private String toSongLengths(File file) throws IOException, SidTuneError {
+		final String md5 = SidTune.load(file).getMD5Digest(md5Method);
+		if (md5 == null) {
+			return null;
+		}
+		final StringBuilder line = new StringBuilder(md5).append('=');
+		for (double length : detect(file)) {
+			line.append(toString(length)).append(' ');
+		}
+		return line.toString().trim();
+	}
+
+	private String getResult(String name, Future<String> result) throws InterruptedException {
+		try {
+			return result.get();
+		} catch (ExecutionException e) {
+			SONG_LENGTH_DETECTOR.log(Level.WARNING, "Song length detection failed: " + name, e.getCause());
+			return null;
+		}
+	}
+
+	/**
+	 * Song length in the format of the song length database (m:ss.SSS).
+	 */
+	private static String toString(double length) {
+		long millis = Math.min(Math.round(length * 1000), 99 * 60_000 + 59_999);
+		return String.format("%d:%02d.%03d", millis / 60_000, millis / 1000 % 60, millis % 1000);
+	}
+
+	private IConfig createConfig() {
+		IniConfig config = new IniConfig();
+		config.getSidplay2Section().setDefaultPlayLength(maxLength);
+		config.getSidplay2Section().setEnableDatabase(false);
+		config.getSidplay2Section().setSingle(true);
+		config.getSidplay2Section().setLoop(false);
+		config.getSidplay2Section().setFadeInTime(0);
+		config.getSidplay2Section().setFadeOutTime(0);
+		config.getSidplay2Section().setStartTime(0);
+		config.getEmulationSection().setEngine(Engine.EMULATION);
+		config.getEmulationSection().setDefaultEmulation(Emulation.RESID);
+		config.getAudioSection().setSampling(SamplingMethod.DECIMATE);
+		config.getWhatsSidSection().setEnable(false);
+		return config;
+	}
+
+	/**
+	 * Regenerate the song length database.
+	 *
+	 * @param args directory or archive of the tunes, song length database file
+	 *             to write and optionally the number of threads
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 2) {
+			System.err.println("Usage: SongLengthDetector <HVSC dir/zip> <Songlengths.md5> [<threads>]");
+			System.exit(1);
+		}
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		SongLengthDetector detector = new SongLengthDetector(threads, 10 * 60, MD5Method.MD5_CONTENTS);
+		detector.detect(new File(args[0]), new File(args[1]));
+		System.out.printf("%.0f tunes/h/core%n", detector.getTunesPerHourPerCore());
+	}
+}
@@ -168,7 +168,7 @@ public abstract class Timer {
 		long absoluteCycles = (long) (maxSeconds * eventScheduler.getCyclesPerSecond());
 		if (absoluteCycles < eventScheduler.getTime(Phase.PHI1)) {
 			// event is in the past? Trigger immediately!
-			eventScheduler.scheduleAbsolute(event, 0, Phase.PHI1);
+			eventScheduler.schedule(event, 0, Phase.PHI1);
 		} else {
 			// event is in the future
 			eventScheduler.scheduleAbsolute(event, absoluteCycles, Phase.PHI1);
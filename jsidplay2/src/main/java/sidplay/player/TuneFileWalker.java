@@ -0,0 +1,57 @@
+package sidplay.player;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import libsidutils.ZipFileUtils;
+import ui.common.filefilter.AudioTuneFileFilter;
+
+/**
+ * Collect all tunes of a directory or archive (e.g. HVSC). Archives are entered,
+ * even if nested or part of the root path.
+ */
+public final class TuneFileWalker {
+
+	private static final FileFilter TUNE_FILE_FILTER = new AudioTuneFileFilter();
+
+	private TuneFileWalker() {
+	}
+
+	/**
+	 * @param root directory or archive (e.g. ZIP) containing the tunes
+	 * @return tunes sorted by name (path relative to the root, e.g.
+	 *         /MUSICIANS/H/Hubbard_Rob/Commando.sid, and file)
+	 * @throws IOException no tunes found
+	 */
+	public static List<Entry<String, File>> collectTunes(File root) throws IOException {
+		final List<Entry<String, File>> tunes = new ArrayList<>();
+		collectTunes(ZipFileUtils.newFile(root), "", tunes);
+		if (tunes.isEmpty()) {
+			throw new IOException("No tunes found in: " + root);
+		}
+		return tunes;
+	}
+
+	private static void collectTunes(File dir, String path, List<Entry<String, File>> tunes) {
+		File[] files = dir.listFiles(TUNE_FILE_FILTER);
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, Comparator.comparing(File::getName));
+		for (File file : files) {
+			String name = path + "/" + file.getName();
+			if (file.isDirectory()) {
+				collectTunes(ZipFileUtils.newFile(dir, file.getName()), name, tunes);
+			} else {
+				tunes.add(new SimpleImmutableEntry<>(name, file));
+			}
+		}
+	}
+}
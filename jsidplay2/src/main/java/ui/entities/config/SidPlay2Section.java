@@ -19,6 +19,7 @@ import static sidplay.ini.IniDefaults.DEFAULT_START_TIME;
 import static sidplay.ini.IniDefaults.DEFAULT_TINT;
 import static sidplay.ini.IniDefaults.DEFAULT_TMP_DIR;
 import static sidplay.ini.IniDefaults.DEFAULT_TURBO_TAPE;
+import static sidplay.ini.IniDefaults.DEFAULT_WARP_LOAD;
 
 import java.io.File;
 
@@ -759,6 +760,23 @@ public class SidPlay2Section implements ISidPlay2Section {
 		return turboTape.property();
 	}
 
+	private ShadowField<BooleanProperty, Boolean> warpLoad = new ShadowField<>(SimpleBooleanProperty::new,
+			DEFAULT_WARP_LOAD);
+
+	@Override
+	public final boolean isWarpLoad() {
+		return warpLoad.get();
+	}
+
+	@Override
+	public final void setWarpLoad(boolean warpLoad) {
+		this.warpLoad.set(warpLoad);
+	}
+
+	public final BooleanProperty warpLoadProperty() {
+		return warpLoad.property();
+	}
+
 	@Override
 	public final String toString() {
 		return BeanToStringConverter.toString(this);
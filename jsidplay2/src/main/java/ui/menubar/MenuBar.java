@@ -120,8 +120,8 @@ public class MenuBar extends C64VBox implements UIPart {
 	}
 
 	@FXML
-	protected CheckMenuItem pauseContinue, turboTape, driveOn, driveSoundOn, parCable, installJiffyDos, expand2000,
-			expand4000, expand6000, expand8000, expandA000, turnPrinterOn;
+	protected CheckMenuItem pauseContinue, warpLoad, turboTape, driveOn, driveSoundOn, parCable, installJiffyDos,
+			expand2000, expand4000, expand6000, expand8000, expandA000, turnPrinterOn;
 
 	@FXML
 	protected RadioMenuItem fastForward, normalSpeed;
@@ -185,6 +185,7 @@ public class MenuBar extends C64VBox implements UIPart {
 		fastForward2.selectedProperty().bindBidirectional(fastForward.selectedProperty());
 		nextFavoriteDisabledState = new SimpleBooleanProperty(true);
 		nextFavorite.disableProperty().bind(nextFavoriteDisabledState);
+		warpLoad.selectedProperty().bindBidirectional(sidplay2Section.warpLoadProperty());
 		turboTape.selectedProperty().bindBidirectional(sidplay2Section.turboTapeProperty());
 		driveOn.selectedProperty().bindBidirectional(c1541Section.driveOnProperty());
 		parCable.selectedProperty().bindBidirectional(c1541Section.parallelCableProperty());
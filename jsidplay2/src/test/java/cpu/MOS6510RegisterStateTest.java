@@ -0,0 +1,30 @@
+package cpu;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import libsidplay.common.EventScheduler;
+import libsidplay.components.mos6510.MOS6510;
+
+/**
+ * The register state must reflect each register and flag, independent of the
+ * stack pointer value (the idle loop detection of the C1541 relies on it).
+ */
+public class MOS6510RegisterStateTest {
+
+	@Test
+	public void flagsWithFullStack() {
+		final byte[] ram = new byte[0x10000];
+		MOS6510 cpu = new MOS6510(new EventScheduler());
+		cpu.setMemoryHandler(address -> ram[address], (address, value) -> ram[address] = value);
+		// stack pointer is 0xff after reset
+		cpu.triggerRST();
+
+		long state = cpu.getRegisterState();
+		Assert.assertEquals(0xff, state >>> 24 & 0xff);
+		Assert.assertEquals(0, state >>> 48);
+
+		cpu.setFlagV(true);
+		Assert.assertNotEquals(state, cpu.getRegisterState());
+	}
+}
@@ -0,0 +1,34 @@
+package floppy;
+
+import org.junit.Test;
+
+import libsidplay.common.CPUClock;
+import libsidplay.common.Event.Phase;
+import libsidplay.components.c1541.C1541;
+
+/**
+ * Run time of a program loaded from disk for a minute, while the C1541 is idle,
+ * with the C1541 clocked and fast-forwarded (run by mvn -Pbenchmark test).
+ */
+public class C1541IdleLoopBenchmark {
+
+	private static final long RUN_CYCLES = 60 * 985248;
+
+	@Test
+	public void runTime() throws Exception {
+		DiskLoadMachine machine = new DiskLoadMachine(false, false);
+		DiskLoadMachine idleMachine = new DiskLoadMachine(false, true);
+		machine.load();
+		idleMachine.load();
+		C1541 floppy = idleMachine.getFloppies()[0];
+		long c1541Cycles = -floppy.getEventScheduler().getTime(Phase.PHI2);
+		long fastForwardedCycles = -floppy.getFastForwardedCycles();
+		long nanos = machine.run(RUN_CYCLES);
+		long idleNanos = idleMachine.run(RUN_CYCLES);
+		c1541Cycles += floppy.getEventScheduler().getTime(Phase.PHI2);
+		fastForwardedCycles += floppy.getFastForwardedCycles();
+		System.out.printf("Run %.1fs emulated: C1541 clocked %dms, idle C1541 fast-forwarded %dms (%.1f%% of the cycles)%n",
+				RUN_CYCLES / CPUClock.PAL.getCpuFrequency(), nanos / 1_000_000, idleNanos / 1_000_000,
+				fastForwardedCycles * 100. / c1541Cycles);
+	}
+}
@@ -0,0 +1,41 @@
+package floppy;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import libsidplay.common.Event.Phase;
+
+/**
+ * A program loaded from disk runs, while the C1541 is idle. Fast-forwarding the
+ * idle C1541 must produce the same results as clocking it.
+ */
+public class C1541IdleLoopTest {
+
+	private static final long RUN_CYCLES = 10 * 985248;
+
+	@Test
+	public void sameResults() throws Exception {
+		DiskLoadMachine machine = new DiskLoadMachine(false, false);
+		DiskLoadMachine idleMachine = new DiskLoadMachine(false, true);
+		machine.load();
+		idleMachine.load();
+		long fastForwardedCycles = -idleMachine.getFloppies()[0].getFastForwardedCycles();
+		machine.run(RUN_CYCLES);
+		idleMachine.run(RUN_CYCLES);
+		fastForwardedCycles += idleMachine.getFloppies()[0].getFastForwardedCycles();
+
+		Assert.assertTrue("Idle C1541 not fast-forwarded", fastForwardedCycles > 0);
+		Assert.assertEquals(0, machine.getFloppies()[0].getFastForwardedCycles());
+
+		Assert.assertEquals(machine.time(), idleMachine.time());
+		Assert.assertTrue("RAM differs", Arrays.equals(machine.getC64().getRAM(), idleMachine.getC64().getRAM()));
+		Assert.assertTrue("C1541 RAM differs",
+				Arrays.equals(machine.getFloppies()[0].getRAM(), idleMachine.getFloppies()[0].getRAM()));
+		Assert.assertEquals(machine.getFloppies()[0].getEventScheduler().getTime(Phase.PHI2),
+				idleMachine.getFloppies()[0].getEventScheduler().getTime(Phase.PHI2));
+		Assert.assertEquals(machine.getFloppies()[0].getCPU().getRegisterState(),
+				idleMachine.getFloppies()[0].getCPU().getRegisterState());
+	}
+}
@@ -0,0 +1,23 @@
+package floppy;
+
+import org.junit.Test;
+
+import libsidplay.common.CPUClock;
+
+/**
+ * Load time of a program from disk with the C1541 clocked by the C64 thread
+ * and in a separate thread (run by mvn -Pbenchmark test).
+ */
+public class C1541RunnerBenchmark {
+
+	@Test
+	public void loadTime() throws Exception {
+		DiskLoadMachine machine = new DiskLoadMachine(false, false);
+		DiskLoadMachine threadedMachine = new DiskLoadMachine(true, false);
+		long nanos = machine.load();
+		long threadedNanos = threadedMachine.load();
+		double seconds = (machine.time() - DiskLoadMachine.BOOT_CYCLES) / CPUClock.PAL.getCpuFrequency();
+		System.out.printf("Load %.1fs emulated: same thread %dms, C1541 thread %dms (%d CPUs)%n", seconds,
+				nanos / 1_000_000, threadedNanos / 1_000_000, Runtime.getRuntime().availableProcessors());
+	}
+}
@@ -0,0 +1,27 @@
+package floppy;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Loading a program from disk with the C1541 clocked in a separate thread must
+ * produce the same results as clocking it by the C64 thread.
+ */
+public class C1541RunnerTest {
+
+	@Test
+	public void sameResults() throws Exception {
+		DiskLoadMachine machine = new DiskLoadMachine(false, false);
+		DiskLoadMachine threadedMachine = new DiskLoadMachine(true, false);
+		machine.load();
+		threadedMachine.load();
+
+		Assert.assertEquals(machine.time(), threadedMachine.time());
+		Assert.assertTrue("RAM differs",
+				Arrays.equals(machine.getC64().getRAM(), threadedMachine.getC64().getRAM()));
+		Assert.assertTrue("C1541 RAM differs",
+				Arrays.equals(machine.getFloppies()[0].getRAM(), threadedMachine.getFloppies()[0].getRAM()));
+	}
+}
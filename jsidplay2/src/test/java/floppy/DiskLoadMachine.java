@@ -0,0 +1,128 @@
+package floppy;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.junit.Assert;
+
+import libsidplay.HardwareEnsemble;
+import libsidplay.common.CPUClock;
+import libsidplay.common.Event.Phase;
+import libsidplay.common.EventScheduler;
+import libsidplay.components.c1541.ThreadedC1541Runner;
+import sidplay.ini.IniConfig;
+
+/**
+ * C64 with a C1541, that loads and runs the first program of a disk (shared by
+ * the C1541 tests and benchmarks).
+ */
+final class DiskLoadMachine extends HardwareEnsemble {
+
+	private static final String DISK = "/games/231A_TestDrive2_1989_Accolade.d64";
+
+	/**
+	 * Load first program of the disk (46 blocks).
+	 */
+	private static final String LOAD = "LOAD\"*\",8\r";
+
+	private static final String RUN = "RUN\r";
+
+	static final long BOOT_CYCLES = 2500000;
+
+	private static final long MAX_LOAD_CYCLES = 120000000;
+
+	/**
+	 * @param threaded        clock the C1541 in a separate thread
+	 * @param idleFastForward fast-forward the C1541 while it is idle
+	 */
+	DiskLoadMachine(boolean threaded, boolean idleFastForward) throws IOException, URISyntaxException {
+		super(createConfig());
+		if (threaded) {
+			c1541Runner = new ThreadedC1541Runner(getC64().getEventScheduler(), getFloppies()[0], 20000);
+		}
+		getFloppies()[0].setIdleFastForward(idleFastForward);
+		setClock(CPUClock.PAL);
+		reset();
+		insertDisk(new File(DiskLoadMachine.class.getResource(DISK).toURI()));
+	}
+
+	private static IniConfig createConfig() {
+		IniConfig config = new IniConfig();
+		config.getC1541Section().setDriveOn(true);
+		return config;
+	}
+
+	long time() {
+		return getC64().getEventScheduler().getTime(Phase.PHI2);
+	}
+
+	private void clockUntil(long time) throws InterruptedException {
+		final EventScheduler context = getC64().getEventScheduler();
+		while (time() < time) {
+			context.clock();
+		}
+	}
+
+	private void typeInCommand(String command) {
+		byte[] ram = getC64().getRAM();
+		System.arraycopy(command.getBytes(US_ASCII), 0, ram, 0x277, command.length());
+		ram[0xc6] = (byte) command.length();
+	}
+
+	/**
+	 * @return load has been finished ("READY." below "LOADING")
+	 */
+	private boolean isLoaded() {
+		byte[] ram = getC64().getRAM();
+		for (int row = 0; row < 24; row++) {
+			if (isScreenText(ram, 0x400 + row * 40, "LOADING")
+					&& isScreenText(ram, 0x400 + (row + 1) * 40, "READY.")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isScreenText(byte[] ram, int address, String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (ram[address + i] != (c >= 'A' && c <= 'Z' ? c - 'A' + 1 : c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Boot and load the first program of the disk.
+	 *
+	 * @return load time in nanoseconds
+	 */
+	long load() throws InterruptedException {
+		clockUntil(BOOT_CYCLES);
+		typeInCommand(LOAD);
+		final long start = System.nanoTime();
+		while (!isLoaded()) {
+			Assert.assertTrue("Load timeout", time() < MAX_LOAD_CYCLES);
+			clockUntil(time() + 20000);
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Run the loaded program.
+	 *
+	 * @param cycles C64 cycles to run
+	 * @return run time in nanoseconds
+	 */
+	long run(long cycles) throws InterruptedException {
+		typeInCommand(RUN);
+		final long start = System.nanoTime();
+		clockUntil(time() + cycles);
+		c1541Runner.synchronize(0);
+		return System.nanoTime() - start;
+	}
+}
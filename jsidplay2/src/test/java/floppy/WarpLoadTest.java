@@ -0,0 +1,140 @@
+package floppy;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import libsidplay.common.CPUClock;
+import libsidplay.common.EventScheduler;
+import libsidplay.components.c1541.C1541;
+import libsidplay.components.mos656x.VIC;
+import libsidplay.config.IAudioSection;
+import libsidplay.sidtune.SidTune;
+import sidplay.Player;
+import sidplay.audio.AudioDriver;
+import sidplay.audio.VideoDriver;
+import sidplay.ini.IniConfig;
+
+/**
+ * Warp-load an auto-started program from disk: There is no audio and video
+ * output, until the program has been loaded and started. The play time starts
+ * with the loaded program.
+ */
+public class WarpLoadTest {
+
+	private static final String DISK = "/games/231A_TestDrive2_1989_Accolade.d64";
+
+	private static final String LOAD_RUN = "LOAD\"*\",8\rRUN\r";
+
+	/**
+	 * Keyboard buffer length of the C64.
+	 */
+	private static final int RAM_COMMAND_LEN = 0xc6;
+
+	private static final int PLAY_LENGTH = 2;
+
+	private static final double MAX_DEVIATION = 0.1;
+
+	/**
+	 * Record the time of the first audio and video output.
+	 */
+	private static final class OutputDriver implements AudioDriver, VideoDriver {
+
+		private final Player player;
+
+		private ByteBuffer buffer;
+
+		private double firstFrameTime = -1, firstAudioTime = -1;
+
+		private boolean loadingAtFirstFrame;
+
+		private OutputDriver(Player player) {
+			this.player = player;
+		}
+
+		@Override
+		public void open(IAudioSection audioSection, String recordingFilename, CPUClock cpuClock,
+				EventScheduler context) {
+			buffer = ByteBuffer.allocate(audioSection.getBufferSize() * Short.BYTES * 2)
+					.order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		@Override
+		public void accept(VIC vic) {
+			if (firstFrameTime < 0) {
+				firstFrameTime = player.time();
+				loadingAtFirstFrame = player.getC64().getRAM()[RAM_COMMAND_LEN] != 0;
+				for (C1541 floppy : player.getFloppies()) {
+					loadingAtFirstFrame |= floppy.getDiskController().isMotorOn();
+				}
+			}
+		}
+
+		@Override
+		public void write() {
+			if (firstAudioTime < 0) {
+				firstAudioTime = player.time();
+			}
+			buffer.clear();
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public ByteBuffer buffer() {
+			return buffer;
+		}
+
+		@Override
+		public boolean isRecording() {
+			return true;
+		}
+	}
+
+	private OutputDriver play(boolean warpLoad) throws Exception {
+		IniConfig config = new IniConfig();
+		config.getSidplay2Section().setWarpLoad(warpLoad);
+		config.getSidplay2Section().setDefaultPlayLength(PLAY_LENGTH);
+		config.getSidplay2Section().setLoop(false);
+		config.getSidplay2Section().setSingle(true);
+
+		Player player = new Player(config);
+		OutputDriver driver = new OutputDriver(player);
+		player.setAudioDriver(driver);
+		player.setForceCheckSongLength(true);
+		player.insertDisk(new File(WarpLoadTest.class.getResource(DISK).toURI()));
+		player.resetC64(LOAD_RUN);
+		player.stopC64(false);
+
+		Assert.assertTrue("No video output", driver.firstFrameTime >= 0);
+		Assert.assertTrue("No audio output", driver.firstAudioTime >= 0);
+		// play time is relative to the start of the output
+		Assert.assertEquals(driver.firstFrameTime + PLAY_LENGTH, player.time(), MAX_DEVIATION);
+		return driver;
+	}
+
+	@Test
+	public void warpLoad() throws Exception {
+		OutputDriver driver = play(true);
+
+		// no output during the boot and the load
+		Assert.assertTrue("Output before load: " + driver.firstFrameTime,
+				driver.firstFrameTime > SidTune.getInitDelay(SidTune.RESET) / CPUClock.PAL.getCpuFrequency());
+		Assert.assertFalse("Output while loading", driver.loadingAtFirstFrame);
+		Assert.assertTrue(driver.firstAudioTime >= driver.firstFrameTime - MAX_DEVIATION);
+	}
+
+	@Test
+	public void normalLoad() throws Exception {
+		OutputDriver driver = play(false);
+
+		// output starts immediately with the boot
+		Assert.assertEquals(0, driver.firstFrameTime, MAX_DEVIATION);
+	}
+
+}
@@ -0,0 +1,75 @@
+package scheduler;
+
+import org.junit.Test;
+
+import libsidplay.common.Event;
+import libsidplay.common.Event.Phase;
+import libsidplay.common.EventScheduler;
+
+/**
+ * Throughput of the linked list and timing wheel event queue of the
+ * EventScheduler (run by mvn -Pbenchmark test).
+ */
+public class EventSchedulerBenchmark {
+
+	/**
+	 * Number of events to fire for the throughput measurement.
+	 */
+	private static final long BENCHMARK_EVENTS = 50_000_000L;
+
+	/**
+	 * Events per second of both event queues with a busy machine (C64 and C1541
+	 * CPU and VIC each clock, CIA timers, several SIDs, drive rotation and far
+	 * future timers) and an increasing number of additional near-term events.
+	 */
+	@Test
+	public void eventsPerSecond() throws InterruptedException {
+		for (int nearTermEvents : new int[] { 0, 8, 32, 128 }) {
+			for (boolean timingWheel : new boolean[] { false, true }) {
+				EventScheduler context = new EventScheduler(timingWheel);
+				busyMachine(context);
+				for (int i = 0; i < nearTermEvents; i++) {
+					periodic(context, "Near-term event " + i, 5 + i * 7, Phase.PHI1);
+				}
+				long start = System.nanoTime();
+				for (long i = 0; i < BENCHMARK_EVENTS; i++) {
+					context.clock();
+				}
+				double seconds = (System.nanoTime() - start) / 1_000_000_000.;
+				System.out.printf("%s, %d additional near-term events: %,.0f events/s%n",
+						timingWheel ? "Timing wheel" : "Linked list", nearTermEvents, BENCHMARK_EVENTS / seconds);
+			}
+		}
+	}
+
+	private void busyMachine(EventScheduler context) {
+		periodic(context, "C64 CPU", 1, Phase.PHI2);
+		periodic(context, "C64 VIC", 1, Phase.PHI1);
+		periodic(context, "C1541 CPU", 1, Phase.PHI2);
+		periodic(context, "C1541 VIA timer", 63, Phase.PHI1);
+		periodic(context, "C1541 rotation", 26, Phase.PHI1);
+		periodic(context, "CIA1 timer A", 100, Phase.PHI1);
+		periodic(context, "CIA1 timer B", 19656, Phase.PHI1);
+		periodic(context, "CIA2 timer A", 7, Phase.PHI1);
+		periodic(context, "CIA2 TOD", 98525, Phase.PHI1);
+		periodic(context, "REU DMA", 3, Phase.PHI1);
+		for (int sid = 0; sid < 3; sid++) {
+			periodic(context, "SID " + sid, 10000, Phase.PHI2);
+		}
+		periodic(context, "Audio driver", 882, Phase.PHI2);
+		periodic(context, "Video driver", 19656, Phase.PHI2);
+		for (int timer = 0; timer < 16; timer++) {
+			periodic(context, "Timer " + timer, 50000 + timer * 1000, Phase.PHI1);
+		}
+	}
+
+	private void periodic(EventScheduler context, String name, int cycles, Phase phase) {
+		context.schedule(new Event(name) {
+
+			@Override
+			public void event() {
+				context.schedule(this, cycles);
+			}
+		}, cycles, phase);
+	}
+}
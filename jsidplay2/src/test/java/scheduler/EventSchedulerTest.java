@@ -0,0 +1,85 @@
+package scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import libsidplay.common.Event;
+import libsidplay.common.Event.Phase;
+import libsidplay.common.EventScheduler;
+
+/**
+ * Compare linked list and timing wheel event queue of the EventScheduler.
+ */
+public class EventSchedulerTest {
+
+	/**
+	 * Both event queues must fire the same events at the same time in the same
+	 * order (PHI1 before PHI2, same trigger time in scheduling order).
+	 */
+	@Test
+	public void sameFiringOrder() throws InterruptedException {
+		Assert.assertEquals(fire(new EventScheduler(false), 2_000_000), fire(new EventScheduler(true), 2_000_000));
+	}
+
+	private List<String> fire(EventScheduler context, int count) throws InterruptedException {
+		final List<String> log = new ArrayList<>();
+		final Random random = new Random(0x6510);
+		final Event[] events = new Event[64];
+		for (int i = 0; i < events.length; i++) {
+			final int id = i;
+			events[i] = new Event("Event " + i) {
+
+				@Override
+				public void event() throws InterruptedException {
+					log.add(id + "@" + context.getTime(Phase.PHI1) + context.phase());
+					Event other = events[random.nextInt(events.length)];
+					if (other == this) {
+						other = events[(id + 1) % events.length];
+					}
+					switch (random.nextInt(8)) {
+					case 0:
+						// cancel and reschedule another event
+						context.cancel(other);
+						context.schedule(other, random.nextInt(20), Phase.PHI2);
+						break;
+					case 1:
+						if (!context.isPending(other)) {
+							context.scheduleAbsolute(other, context.getTime(Phase.PHI2) + random.nextInt(5000),
+									random.nextBoolean() ? Phase.PHI1 : Phase.PHI2);
+						}
+						break;
+					case 2:
+						if (!context.isPending(other) && random.nextInt(100) == 0) {
+							// absolute time in the past
+							context.scheduleAbsolute(other, Math.max(0, context.getTime(Phase.PHI2) - 50), Phase.PHI1);
+						}
+						break;
+					default:
+						break;
+					}
+					switch (random.nextInt(4)) {
+					case 0:
+						// far future
+						context.schedule(this, 2000 + random.nextInt(100000));
+						break;
+					case 1:
+						context.schedule(this, random.nextInt(3), random.nextBoolean() ? Phase.PHI1 : Phase.PHI2);
+						break;
+					default:
+						context.schedule(this, 1 + random.nextInt(64));
+						break;
+					}
+				}
+			};
+			context.schedule(events[i], i, i % 2 == 0 ? Phase.PHI1 : Phase.PHI2);
+		}
+		for (int i = 0; i < count; i++) {
+			context.clock();
+		}
+		return log;
+	}
+}
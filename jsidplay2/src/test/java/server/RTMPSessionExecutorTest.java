@@ -0,0 +1,67 @@
+package server;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import server.restful.common.RTMPSessionExecutor;
+
+/**
+ * RTMP sessions must be admitted up to the maximum number of parallel sessions,
+ * further sessions are queued and rejected, if the queue is full or the
+ * admission timeout is exceeded.
+ */
+public class RTMPSessionExecutorTest {
+
+	@Test
+	public void admitQueueAndReject() throws Exception {
+		RTMPSessionExecutor executor = new RTMPSessionExecutor(2, 1, 1, message -> {
+		});
+		CountDownLatch quit = new CountDownLatch(1);
+		RTMPSessionExecutor.Session session = started -> {
+			started.run();
+			quit.await();
+		};
+
+		Assert.assertTrue(executor.start(UUID.randomUUID(), session));
+		Assert.assertTrue(executor.start(UUID.randomUUID(), session));
+		Assert.assertEquals(2, executor.getActiveCount());
+
+		// queued, but not started within the admission timeout
+		Assert.assertFalse(executor.start(UUID.randomUUID(), session));
+		Assert.assertEquals(0, executor.getQueuedCount());
+
+		// queue full
+		Thread queued = new Thread(() -> {
+			try {
+				Assert.assertTrue(executor.start(UUID.randomUUID(), session));
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		queued.start();
+		while (executor.getQueuedCount() == 0) {
+			Thread.sleep(10);
+		}
+		Assert.assertFalse(executor.start(UUID.randomUUID(), session));
+
+		// a session ends, the queued session is started
+		quit.countDown();
+		queued.join();
+	}
+
+	@Test
+	public void failedSession() throws Exception {
+		RTMPSessionExecutor executor = new RTMPSessionExecutor(1, 1, 1, message -> {
+		});
+		Assert.assertFalse(executor.start(UUID.randomUUID(), started -> {
+			throw new IllegalStateException("no disk image");
+		}));
+		// the failed session does not block the next one
+		Assert.assertTrue(executor.start(UUID.randomUUID(), Runnable::run));
+		Assert.assertTrue(executor.toString(), executor.toString().contains("1 failed"));
+	}
+
+}
@@ -0,0 +1,148 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import libsidplay.config.IFilterSection;
+import libsidplay.sidtune.SidTune;
+import server.restful.common.RenderCache;
+import sidplay.ini.IniConfig;
+
+/**
+ * Rendered tunes must be served from the cache, concurrent requests must share
+ * one rendering and least recently used entries must be evicted.
+ */
+public class RenderCacheTest {
+
+	private static final String TUNE = "/sid/examples/special/Bojojoing.sid";
+
+	private static final int CHUNKS = 64, CHUNK_SIZE = 1024;
+
+	private File directory;
+
+	private final AtomicInteger renderings = new AtomicInteger();
+
+	@Before
+	public void createDirectory() throws Exception {
+		directory = Files.createTempDirectory("jsidplay2-render-cache").toFile();
+	}
+
+	@After
+	public void deleteDirectory() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	private void render(OutputStream out, byte value) throws IOException, InterruptedException {
+		renderings.incrementAndGet();
+		byte[] chunk = new byte[CHUNK_SIZE];
+		Arrays.fill(chunk, value);
+		for (int i = 0; i < CHUNKS; i++) {
+			out.write(chunk);
+			Thread.sleep(2);
+		}
+	}
+
+	private byte[] get(RenderCache cache, String key, byte value) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		cache.get(key, out, renderOut -> render(renderOut, value));
+		Assert.assertEquals(CHUNKS * CHUNK_SIZE, out.size());
+		return out.toByteArray();
+	}
+
+	@Test
+	public void keyDependsOnSongAndConfig() throws Exception {
+		SidTune tune = SidTune.load(new File(RenderCacheTest.class.getResource(TUNE).toURI()));
+		IniConfig config = new IniConfig();
+
+		tune.getInfo().setSelectedSong(1);
+		String key = RenderCache.getKey(tune, config, 0.);
+		Assert.assertEquals(key, RenderCache.getKey(tune, new IniConfig(), 0.));
+		Assert.assertNotEquals(key, RenderCache.getKey(tune, config, 42.));
+
+		config.getAudioSection().setMainBalance(0.25f);
+		Assert.assertNotEquals(key, RenderCache.getKey(tune, config, 0.));
+
+		config = new IniConfig();
+		config.getC1541Section().setJiffyDosInstalled(true);
+		Assert.assertNotEquals(key, RenderCache.getKey(tune, config, 0.));
+
+		config = new IniConfig();
+		IFilterSection filter = config.getFilterSection().get(0);
+		filter.setBaseresistance(filter.getBaseresistance() + 1);
+		Assert.assertNotEquals(key, RenderCache.getKey(tune, config, 0.));
+
+		tune.getInfo().setSelectedSong(2);
+		Assert.assertNotEquals(key, RenderCache.getKey(tune, new IniConfig(), 0.));
+	}
+
+	@Test
+	public void hitAndMiss() throws Exception {
+		RenderCache cache = new RenderCache(directory, Long.MAX_VALUE);
+		byte[] rendered = get(cache, "aaa", (byte) 1);
+		Assert.assertArrayEquals(rendered, get(cache, "aaa", (byte) 2));
+		Assert.assertEquals(1, renderings.get());
+
+		// entries survive a restart
+		cache = new RenderCache(directory, Long.MAX_VALUE);
+		Assert.assertArrayEquals(rendered, get(cache, "aaa", (byte) 2));
+		Assert.assertEquals(1, renderings.get());
+		Assert.assertTrue(cache.toString(), cache.toString().contains("1 hits, 0 misses"));
+	}
+
+	@Test
+	public void coalesceConcurrentRequests() throws Exception {
+		RenderCache cache = new RenderCache(directory, Long.MAX_VALUE);
+		int requests = 4;
+		byte[][] results = new byte[requests][];
+		Thread[] threads = new Thread[requests];
+		for (int i = 0; i < requests; i++) {
+			final int request = i;
+			threads[i] = new Thread(() -> {
+				try {
+					results[request] = get(cache, "aaa", (byte) (request + 1));
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals(1, renderings.get());
+		for (byte[] result : results) {
+			Assert.assertArrayEquals(results[0], result);
+		}
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() throws Exception {
+		RenderCache cache = new RenderCache(directory, 2 * CHUNKS * CHUNK_SIZE);
+		get(cache, "aaa", (byte) 1);
+		get(cache, "bbb", (byte) 2);
+		get(cache, "aaa", (byte) 1);
+		get(cache, "ccc", (byte) 3);
+		Assert.assertEquals(3, renderings.get());
+
+		// "bbb" has been evicted, "aaa" is still cached
+		get(cache, "aaa", (byte) 1);
+		Assert.assertEquals(3, renderings.get());
+		get(cache, "bbb", (byte) 2);
+		Assert.assertEquals(4, renderings.get());
+		Assert.assertEquals(2, directory.listFiles().length);
+	}
+
+}
@@ -0,0 +1,110 @@
+package sid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sidplay.audio.AsyncEncoder;
+
+/**
+ * Chunks submitted to the encoder thread must be encoded in the order of
+ * submission, completely, even if the encoder is slower than the emulation.
+ */
+public class AsyncEncoderTest {
+
+	private static final int CHUNK_SIZE = 64;
+
+	private static final int CHUNKS = 4;
+
+	@Test
+	public void encodeInOrderAndDrainOnClose() throws Exception {
+		assertEncoded(CHUNKS);
+	}
+
+	@Test
+	public void encodeSynchronously() throws Exception {
+		assertEncoded(0);
+	}
+
+	@Test
+	public void reportEncoderError() throws Exception {
+		AsyncEncoder encoder = new AsyncEncoder("Test Encoder", CHUNK_SIZE, CHUNKS, (chunk, timeStamp) -> {
+			throw new IOException("Disk full");
+		});
+		ByteBuffer sampleBuffer = ByteBuffer.allocate(CHUNK_SIZE);
+		sampleBuffer.put((byte) 1);
+		encoder.submit(sampleBuffer, 0);
+		try {
+			encoder.close();
+			Assert.fail("Encoder error has not been reported");
+		} catch (RuntimeException e) {
+			Assert.assertEquals("Disk full", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void drainAfterEncoderFailure() throws Exception {
+		AsyncEncoder encoder = new AsyncEncoder("Test Encoder", CHUNK_SIZE, CHUNKS, (chunk, timeStamp) -> {
+			throw new OutOfMemoryError("Encoder crashed");
+		});
+		ByteBuffer sampleBuffer = ByteBuffer.allocate(CHUNK_SIZE);
+		sampleBuffer.put((byte) 1);
+		// more chunks than buffers: submission must not wait for the failed encoder
+		int submitted = 0;
+		try {
+			for (; submitted < CHUNKS * 10; submitted++) {
+				encoder.submit(sampleBuffer, submitted);
+			}
+			Assert.fail("Encoder error has not been reported");
+		} catch (RuntimeException e) {
+			Assert.assertEquals("Encoder crashed", e.getCause().getMessage());
+		}
+		Assert.assertTrue(submitted > 0);
+		try {
+			encoder.close();
+			Assert.fail("Encoder error has not been reported");
+		} catch (RuntimeException e) {
+			Assert.assertEquals("Encoder crashed", e.getCause().getMessage());
+		}
+	}
+
+	private void assertEncoded(int chunks) throws InterruptedException {
+		final List<Long> timeStamps = new ArrayList<>();
+		final List<Byte> firstBytes = new ArrayList<>();
+		final int[] length = new int[1];
+		AsyncEncoder encoder = new AsyncEncoder("Test Encoder", CHUNK_SIZE, chunks, (chunk, timeStamp) -> {
+			// encoding is slower than the emulation
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			timeStamps.add(timeStamp);
+			firstBytes.add(chunk.get(0));
+			length[0] += chunk.remaining();
+		});
+		ByteBuffer sampleBuffer = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < 100; i++) {
+			sampleBuffer.clear();
+			sampleBuffer.put((byte) i);
+			// last chunk is incomplete
+			sampleBuffer.position(i < 99 ? CHUNK_SIZE : 10);
+			encoder.submit(sampleBuffer, i);
+		}
+		encoder.close();
+
+		Assert.assertEquals(100, timeStamps.size());
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(i, timeStamps.get(i).longValue());
+			Assert.assertEquals(i, firstBytes.get(i).byteValue());
+		}
+		Assert.assertEquals(99 * CHUNK_SIZE + 10, length[0]);
+		Assert.assertTrue(encoder.getMaxQueueDepth() <= chunks);
+		Assert.assertEquals(0, encoder.getQueueDepth());
+	}
+}
@@ -0,0 +1,43 @@
+package sid;
+
+import java.io.File;
+import java.lang.reflect.Method;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import builder.resid.resid.FilterModelConfig;
+
+/**
+ * Time until the reSID filter tables are ready in a fresh JVM, loaded from the
+ * pre-calculated resource compared to calculating them (run by mvn -Pbenchmark
+ * test).
+ */
+public class FilterModelConfigBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		long start = System.nanoTime();
+		Class.forName(FilterModelConfig.class.getName());
+		long loaded = System.nanoTime() - start;
+
+		Method calculateTables = FilterModelConfig.class.getDeclaredMethod("calculateTables");
+		calculateTables.setAccessible(true);
+		start = System.nanoTime();
+		calculateTables.invoke(null);
+		long calculated = System.nanoTime() - start;
+
+		System.out.printf("Filter tables ready after %dms (%s), calculated in %dms%n", loaded / 1_000_000,
+				FilterModelConfig.class.getResource("FilterModelConfig.bin") != null ? "pre-calculated"
+						: "resource missing",
+				calculated / 1_000_000);
+	}
+
+	@Test
+	public void timeToFilterTables() throws Exception {
+		Process process = new ProcessBuilder(
+				new File(System.getProperty("java.home"), "bin/java").getAbsolutePath(), "-cp",
+				System.getProperty("java.class.path"), FilterModelConfigBenchmark.class.getName()).inheritIO()
+				.start();
+		Assert.assertEquals(0, process.waitFor());
+	}
+}
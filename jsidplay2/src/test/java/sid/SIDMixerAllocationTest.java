@@ -0,0 +1,91 @@
+package sid;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import builder.resid.SIDMixer;
+import builder.resid.resid.ReSID;
+import libsidplay.common.CPUClock;
+import libsidplay.common.Event.Phase;
+import libsidplay.common.EventScheduler;
+import libsidplay.config.IAudioSection;
+import sidplay.audio.AudioDriver;
+import sidplay.ini.IniConfig;
+
+/**
+ * The mixer is called very often, it must not produce garbage.
+ */
+public class SIDMixerAllocationTest {
+
+	private static final int WARM_UP_MIXER_EVENTS = 500;
+
+	private static final int MEASURE_MIXER_EVENTS = 2000;
+
+	@Test
+	public void zeroBytesPerMixerEvent() throws InterruptedException {
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		IniConfig config = new IniConfig();
+		EventScheduler context = new EventScheduler();
+		SIDMixer mixer = new SIDMixer(context, config, CPUClock.PAL);
+		mixer.setAudioDriver(new AudioDriver() {
+
+			private final ByteBuffer buffer = ByteBuffer.allocateDirect(4096).order(ByteOrder.LITTLE_ENDIAN);
+
+			@Override
+			public void open(IAudioSection audioSection, String recordingFilename, CPUClock cpuClock,
+					EventScheduler context) {
+			}
+
+			@Override
+			public void write() {
+			}
+
+			@Override
+			public void close() {
+			}
+
+			@Override
+			public ByteBuffer buffer() {
+				return buffer;
+			}
+
+			@Override
+			public boolean isRecording() {
+				return false;
+			}
+		});
+		ReSID sid = new ReSID(context);
+		sid.write(0x18, (byte) 0x0f);
+		sid.write(0x01, (byte) 0x10);
+		sid.write(0x05, (byte) 0x09);
+		sid.write(0x06, (byte) 0xf0);
+		sid.write(0x04, (byte) 0x21);
+		mixer.add(0, sid);
+		mixer.start();
+
+		// mixer event is the only periodic event besides the thread-safe queues
+		long bufferSize = config.getAudioSection().getBufferSize();
+		clockMixerEvents(context, WARM_UP_MIXER_EVENTS * bufferSize);
+		long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+		clockMixerEvents(context, MEASURE_MIXER_EVENTS * bufferSize);
+		allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+		double bytesPerMixerEvent = allocatedBytes / (double) MEASURE_MIXER_EVENTS;
+		// tolerate the few bytes of the measurement itself
+		Assert.assertTrue("Mixer allocates " + bytesPerMixerEvent + " bytes per event", bytesPerMixerEvent < 1);
+	}
+
+	private void clockMixerEvents(EventScheduler context, long cycles) throws InterruptedException {
+		long endTime = context.getTime(Phase.PHI2) + cycles;
+		while (context.getTime(Phase.PHI2) < endTime) {
+			context.clock();
+		}
+	}
+}
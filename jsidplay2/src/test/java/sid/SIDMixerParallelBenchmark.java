@@ -0,0 +1,27 @@
+package sid;
+
+import org.junit.Test;
+
+import sid.SIDMixerParallelTest.Machine;
+
+/**
+ * Throughput of sequential and parallel clocking of the SIDs of a 3-SID tune
+ * (run by mvn -Pbenchmark test).
+ */
+public class SIDMixerParallelBenchmark {
+
+	private static final int BENCHMARK_SECONDS = 30;
+
+	@Test
+	public void realtimeFactor() throws InterruptedException {
+		for (boolean parallel : new boolean[] { false, true }) {
+			Machine machine = new Machine(parallel);
+			machine.clockSeconds(1);
+			long start = System.nanoTime();
+			machine.clockSeconds(BENCHMARK_SECONDS);
+			double seconds = (System.nanoTime() - start) / 1_000_000_000.;
+			System.out.printf("%d SIDs%s: %.1fx realtime%n", SIDMixerParallelTest.SIDS, parallel ? ", parallel" : "",
+					BENCHMARK_SECONDS / seconds);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package sid;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import builder.resid.ReSIDBase;
+import builder.resid.SIDMixer;
+import builder.resid.residfp.ReSIDfp;
+import libsidplay.common.CPUClock;
+import libsidplay.common.ChipModel;
+import libsidplay.common.Event;
+import libsidplay.common.Event.Phase;
+import libsidplay.common.EventScheduler;
+import libsidplay.config.IAudioSection;
+import sidplay.audio.AudioDriver;
+import sidplay.ini.IniConfig;
+
+/**
+ * Parallel clocking of the SIDs of a 3-SID tune must produce bit-identical
+ * audio output.
+ */
+public class SIDMixerParallelTest {
+
+	private static final int CHECKSUM_SECONDS = 5;
+
+	static final int SIDS = 3;
+
+	static final class Machine {
+
+		private final EventScheduler context = new EventScheduler();
+
+		private final ReSIDBase[] sids = new ReSIDBase[SIDS];
+
+		private long checksum;
+
+		Machine(boolean parallel) {
+			IniConfig config = new IniConfig();
+			SIDMixer mixer = new SIDMixer(context, config, CPUClock.PAL, parallel);
+			mixer.setAudioDriver(new AudioDriver() {
+
+				private final ByteBuffer buffer = ByteBuffer.allocateDirect(4096).order(ByteOrder.LITTLE_ENDIAN);
+
+				@Override
+				public void open(IAudioSection audioSection, String recordingFilename, CPUClock cpuClock,
+						EventScheduler context) {
+				}
+
+				@Override
+				public void write() {
+					for (int i = 0; i < buffer.position(); i++) {
+						checksum = 31 * checksum + buffer.get(i);
+					}
+				}
+
+				@Override
+				public void close() {
+				}
+
+				@Override
+				public ByteBuffer buffer() {
+					return buffer;
+				}
+
+				@Override
+				public boolean isRecording() {
+					return false;
+				}
+			});
+			for (int sidNum = 0; sidNum < SIDS; sidNum++) {
+				ReSIDBase sid = new ReSIDfp(context);
+				sid.setChipModel(sidNum == 1 ? ChipModel.MOS8580 : ChipModel.MOS6581);
+				sid.setClockFrequency(CPUClock.PAL.getCpuFrequency());
+				sid.setFilter(config, sidNum);
+				sid.setFilterEnable(config.getEmulationSection(), sidNum);
+				mixer.add(sidNum, sid);
+				sids[sidNum] = sid;
+			}
+			mixer.start();
+			// like a player routine: register writes at irregular times, some OSC3 reads
+			context.schedule(new Event("Tune") {
+
+				private final Random random = new Random(1);
+
+				@Override
+				public void event() {
+					ReSIDBase sid = sids[random.nextInt(SIDS)];
+					int addr = random.nextInt(0x19);
+					if (addr == 0x18) {
+						sid.write(addr, (byte) (0x0f | random.nextInt(0x100) & 0x70));
+					} else if (addr % 7 == 4 && random.nextBoolean()) {
+						sid.write(addr, (byte) (random.nextInt(0x100) & 0xf0 | random.nextInt(2)));
+					} else if (addr % 7 == 6 && random.nextInt(8) == 0) {
+						sid.write(addr, (byte) (sid.read(0x1b) & 0xf0));
+					} else {
+						sid.write(addr, (byte) random.nextInt(0x100));
+					}
+					context.schedule(this, 1 + random.nextInt(400));
+				}
+			}, 0, Phase.PHI2);
+		}
+
+		void clockSeconds(int seconds) throws InterruptedException {
+			long endTime = context.getTime(Phase.PHI2) + (long) (seconds * CPUClock.PAL.getCpuFrequency());
+			while (context.getTime(Phase.PHI2) < endTime) {
+				context.clock();
+			}
+		}
+	}
+
+	@Test
+	public void bitIdenticalOutput() throws InterruptedException {
+		Machine machine = new Machine(false);
+		Machine parallelMachine = new Machine(true);
+		machine.clockSeconds(CHECKSUM_SECONDS);
+		parallelMachine.clockSeconds(CHECKSUM_SECONDS);
+		Assert.assertTrue("No audio output", machine.checksum != 0);
+		Assert.assertEquals(machine.checksum, parallelMachine.checksum);
+	}
+}
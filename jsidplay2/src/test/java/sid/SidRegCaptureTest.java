@@ -0,0 +1,132 @@
+package sid;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import libsidplay.common.CPUClock;
+import libsidplay.common.EventScheduler;
+import libsidplay.config.IAudioSection;
+import sidplay.audio.AudioDriver;
+import sidplay.audio.sidreg.SidRegCaptureReader;
+import sidplay.audio.sidreg.SidRegCaptureWriter;
+import sidplay.audio.sidreg.SidRegReplayer;
+import sidplay.ini.IniConfig;
+
+/**
+ * SID register writes of several SIDs captured in the binary format must be
+ * read back in the same order and can be replayed without a C64.
+ */
+public class SidRegCaptureTest {
+
+	private static final int WRITES = 100000;
+
+	private static final int REPLAY_WRITES = 2000;
+
+	private static final long START_TIME = 1234567;
+
+	@Test
+	public void readWhatHasBeenWritten() throws IOException {
+		byte[] capture = createCapture(new Random(0), WRITES);
+
+		SidRegCaptureReader reader = new SidRegCaptureReader(new ByteArrayInputStream(capture));
+		Assert.assertEquals(CPUClock.NTSC, reader.getCPUClock());
+		Assert.assertEquals(2, reader.getSIDCount());
+
+		Random random = new Random(0);
+		long time = START_TIME, firstTime = -1;
+		for (int i = 0; i < WRITES; i++) {
+			time += nextCycles(random);
+			if (firstTime == -1) {
+				firstTime = time;
+			}
+			int sidNum = random.nextInt(2);
+			int register = random.nextInt(0x19);
+			byte value = (byte) random.nextInt(256);
+
+			Assert.assertTrue(reader.next());
+			Assert.assertEquals(time - firstTime, reader.getTime());
+			Assert.assertEquals(sidNum, reader.getSidNum());
+			Assert.assertEquals(register, reader.getRegister());
+			Assert.assertEquals(value, reader.getValue());
+		}
+		Assert.assertFalse(reader.next());
+		Assert.assertTrue("Capture is not compact: " + capture.length, capture.length < WRITES * 3);
+	}
+
+	@Test
+	public void replay() throws Exception {
+		byte[] capture = createCapture(new Random(0), REPLAY_WRITES);
+		SidRegCaptureReader reader = new SidRegCaptureReader(new ByteArrayInputStream(capture));
+		long lastTime = 0;
+		while (reader.next()) {
+			lastTime = reader.getTime();
+		}
+		final double seconds = lastTime / CPUClock.NTSC.getCpuFrequency();
+
+		IniConfig config = new IniConfig();
+		final int[] frames = new int[1];
+		final boolean[] closed = new boolean[1];
+		new SidRegReplayer(config).replay(new ByteArrayInputStream(capture), new AudioDriver() {
+
+			private ByteBuffer buffer;
+
+			@Override
+			public void open(IAudioSection audioSection, String recordingFilename, CPUClock cpuClock,
+					EventScheduler context) {
+				buffer = ByteBuffer.allocate(4096 * 4).order(ByteOrder.LITTLE_ENDIAN);
+			}
+
+			@Override
+			public void write() {
+				frames[0] += buffer.position() / 4;
+				buffer.clear();
+			}
+
+			@Override
+			public void close() {
+				closed[0] = true;
+			}
+
+			@Override
+			public ByteBuffer buffer() {
+				return buffer;
+			}
+
+			@Override
+			public boolean isRecording() {
+				return true;
+			}
+		}, null);
+
+		int frameRate = config.getAudioSection().getSamplingRate().getFrequency();
+		Assert.assertTrue(closed[0]);
+		Assert.assertEquals(seconds * frameRate, frames[0], frameRate * 0.1);
+	}
+
+	private byte[] createCapture(Random random, int writes) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (SidRegCaptureWriter writer = new SidRegCaptureWriter(out, CPUClock.NTSC)) {
+			long time = START_TIME;
+			for (int i = 0; i < writes; i++) {
+				time += nextCycles(random);
+				writer.write(random.nextInt(2), time, random.nextInt(0x19), (byte) random.nextInt(256));
+			}
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * @return mostly short distances, sometimes very long ones (the CPU writes
+	 *         once per cycle at most)
+	 */
+	private long nextCycles(Random random) {
+		return 1 + (random.nextInt(100) == 0 ? random.nextInt(1 << 20) : random.nextInt(30));
+	}
+}
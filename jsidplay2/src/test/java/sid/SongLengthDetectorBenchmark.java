@@ -0,0 +1,42 @@
+package sid;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.Test;
+
+import libsidplay.sidtune.MD5Method;
+import sidplay.player.SongLengthDetector;
+
+/**
+ * Throughput of the song length detection (run by mvn -Pbenchmark test).
+ */
+public class SongLengthDetectorBenchmark {
+
+	private static final String TUNE = "/sid/examples/special/Bojojoing.sid";
+
+	private static final int TUNES = 8;
+
+	@Test
+	public void throughput() throws Exception {
+		File hvscRoot = Files.createTempDirectory("jsidplay2-hvsc").toFile();
+		File songLengths = new File(hvscRoot, "Songlengths.md5");
+		try {
+			for (int i = 0; i < TUNES; i++) {
+				Files.copy(SongLengthDetectorBenchmark.class.getResourceAsStream(TUNE),
+						new File(hvscRoot, "Tune_" + i + ".sid").toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			int cores = Runtime.getRuntime().availableProcessors();
+			SongLengthDetector detector = new SongLengthDetector(cores, 180, MD5Method.MD5_CONTENTS);
+			detector.detect(hvscRoot, songLengths);
+			System.out.printf("Song length detection: %.0f tunes/h/core (%d cores)%n",
+					detector.getTunesPerHourPerCore(), cores);
+		} finally {
+			for (File file : hvscRoot.listFiles()) {
+				file.delete();
+			}
+			hvscRoot.delete();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package sid;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import libsidplay.sidtune.MD5Method;
+import libsidplay.sidtune.SidTune;
+import libsidutils.siddatabase.SidDatabase;
+import sidplay.player.SongLengthDetector;
+
+/**
+ * Detect the song lengths of a tune, the generated song length database must
+ * be readable by {@link SidDatabase}.
+ */
+public class SongLengthDetectorTest {
+
+	private static final String TUNE = "/sid/examples/special/Bojojoing.sid";
+
+	private static final double MAX_LENGTH = 180;
+
+	@Test
+	public void detectAndReadSongLengths() throws Exception {
+		File hvscRoot = Files.createTempDirectory("jsidplay2-hvsc").toFile();
+		File tuneFile = new File(hvscRoot, "Bojojoing.sid");
+		File songLengths = new File(new File(hvscRoot, "DOCUMENTS"), "Songlengths.md5");
+		try {
+			Files.copy(SongLengthDetectorTest.class.getResourceAsStream(TUNE), tuneFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			songLengths.getParentFile().mkdirs();
+
+			SongLengthDetector detector = new SongLengthDetector(2, MAX_LENGTH, MD5Method.MD5_CONTENTS);
+			detector.detect(hvscRoot, songLengths);
+			Assert.assertTrue(detector.getTunesPerHourPerCore() > 0);
+
+			SidTune tune = SidTune.load(tuneFile);
+			SidDatabase sidDatabase = new SidDatabase(hvscRoot);
+			Assert.assertEquals("/Bojojoing.sid", sidDatabase.getPath(tune));
+			for (int songNum = 1; songNum <= tune.getInfo().getSongs(); songNum++) {
+				tune.getInfo().setSelectedSong(songNum);
+				double length = sidDatabase.getSongLength(tune);
+				Assert.assertTrue("Song " + songNum + " has no end: " + length, length > 0 && length < MAX_LENGTH);
+			}
+		} finally {
+			songLengths.delete();
+			songLengths.getParentFile().delete();
+			tuneFile.delete();
+			hvscRoot.delete();
+		}
+	}
+
+	@Test
+	public void noTunes() throws Exception {
+		File hvscRoot = Files.createTempDirectory("jsidplay2-hvsc").toFile();
+		File songLengths = new File(hvscRoot, "Songlengths.md5");
+		try {
+			new SongLengthDetector(1, MAX_LENGTH, MD5Method.MD5_CONTENTS).detect(hvscRoot, songLengths);
+			Assert.fail("Song length database written without tunes");
+		} catch (IOException e) {
+			Assert.assertFalse(songLengths.exists());
+		} finally {
+			hvscRoot.delete();
+		}
+	}
+
+}
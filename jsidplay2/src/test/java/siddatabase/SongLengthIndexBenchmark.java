@@ -0,0 +1,58 @@
+package siddatabase;
+
+import static siddatabase.SongLengthIndexTest.TUNES;
+import static siddatabase.SongLengthIndexTest.hvscRoot;
+import static siddatabase.SongLengthIndexTest.songLengths;
+import static siddatabase.SongLengthIndexTest.tune;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import libsidplay.sidtune.MD5Method;
+import libsidutils.siddatabase.SidDatabase;
+import sidplay.ini.IniReader;
+
+/**
+ * Request latency of the song length lookup, parsing the song length database
+ * and using the shared song length index (run by mvn -Pbenchmark test).
+ */
+public class SongLengthIndexBenchmark {
+
+	@BeforeClass
+	public static void createSongLengthDatabase() throws Exception {
+		SongLengthIndexTest.createSongLengthDatabase();
+	}
+
+	@AfterClass
+	public static void deleteSongLengthDatabase() {
+		SongLengthIndexTest.deleteSongLengthDatabase();
+	}
+
+	@Test
+	public void requestLatency() throws Exception {
+		tune.getInfo().setSelectedSong(1);
+		int requests = 5;
+		long startTime = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			try (InputStream is = new FileInputStream(songLengths)) {
+				new IniReader(is).getPropertyString("Database", tune.getMD5Digest(MD5Method.MD5_CONTENTS), null);
+			}
+		}
+		double parsing = (System.nanoTime() - startTime) / 1_000_000. / requests;
+
+		new SidDatabase(hvscRoot);
+		requests = 100000;
+		startTime = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			Assert.assertEquals(83.456, new SidDatabase(hvscRoot).getSongLength(tune), 0);
+		}
+		double indexed = (System.nanoTime() - startTime) / 1_000_000. / requests;
+		System.out.printf("Song length lookup per request of %d tunes: parsing %.3fms, shared index %.5fms%n", TUNES,
+				parsing, indexed);
+	}
+}
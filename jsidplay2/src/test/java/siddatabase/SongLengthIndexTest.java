@@ -0,0 +1,117 @@
+package siddatabase;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import libsidplay.sidtune.MD5Method;
+import libsidplay.sidtune.SidTune;
+import libsidutils.siddatabase.SidDatabase;
+import libsidutils.siddatabase.SongLengthIndex;
+import libsidutils.siddatabase.TimeConverter;
+import sidplay.ini.IniReader;
+
+/**
+ * The song length index must return the same song lengths and paths as parsing
+ * the song length database.
+ */
+public class SongLengthIndexTest {
+
+	private static final String TUNE = "/sid/examples/special/Bojojoing.sid";
+
+	static final int TUNES = 60000;
+
+	static File hvscRoot, songLengths;
+
+	static SidTune tune;
+
+	@BeforeClass
+	public static void createSongLengthDatabase() throws Exception {
+		tune = SidTune.load(new File(SongLengthIndexTest.class.getResource(TUNE).toURI()));
+		hvscRoot = Files.createTempDirectory("jsidplay2-hvsc").toFile();
+		songLengths = new File(new File(hvscRoot, "DOCUMENTS"), "Songlengths.md5");
+		songLengths.getParentFile().mkdirs();
+		writeSongLengths("1:23.456 0:42");
+	}
+
+	@AfterClass
+	public static void deleteSongLengthDatabase() {
+		songLengths.delete();
+		songLengths.getParentFile().delete();
+		hvscRoot.delete();
+	}
+
+	private static void writeSongLengths(String tuneLengths) throws IOException {
+		Random random = new Random(0);
+		try (PrintWriter out = new PrintWriter(songLengths, "ISO-8859-1")) {
+			out.println("; HVSC Songlengths");
+			out.println("[Database]");
+			for (int i = 0; i < TUNES; i++) {
+				out.printf("; /MUSICIANS/T/Tune_%d.sid%n", i);
+				out.printf("%016x%016x=", random.nextLong(), random.nextLong());
+				for (int songNum = random.nextInt(5); songNum >= 0; songNum--) {
+					out.printf("%d:%02d.%03d ", random.nextInt(10), random.nextInt(60), random.nextInt(1000));
+				}
+				out.println();
+			}
+			out.println("; /Bojojoing.sid");
+			out.println(tune.getMD5Digest(MD5Method.MD5_CONTENTS) + "=" + tuneLengths);
+		}
+	}
+
+	@Test
+	public void sameResultsAsParsing() throws Exception {
+		IniReader database;
+		try (InputStream is = new FileInputStream(songLengths)) {
+			database = new IniReader(is);
+		}
+		SongLengthIndex index = SongLengthIndex.getInstance(hvscRoot);
+		Assert.assertEquals(TUNES + 1, index.getTuneCount());
+		for (String md5 : database.sectionProperties("Database")) {
+			if (md5.startsWith("_")) {
+				continue;
+			}
+			String[] times = database.getPropertyString("Database", md5, null).split(" ");
+			double[] lengths = index.getLengths(md5);
+			Assert.assertEquals(times.length, lengths.length);
+			for (int songNum = 1; songNum <= times.length; songNum++) {
+				Assert.assertEquals(new TimeConverter().fromString(times[songNum - 1]), lengths[songNum - 1], 0.0005);
+				Assert.assertEquals(lengths[songNum - 1], index.getLength(md5, songNum), 0);
+			}
+			Assert.assertEquals(database.getPropertyString("Database", "_" + md5, null).substring(1).trim(),
+					index.getPath(md5));
+		}
+		SidDatabase sidDatabase = new SidDatabase(hvscRoot);
+		tune.getInfo().setSelectedSong(2);
+		Assert.assertEquals(42, sidDatabase.getSongLength(tune), 0);
+		Assert.assertEquals(83.456 + 42, sidDatabase.getTuneLength(tune), 0.0005);
+		Assert.assertEquals("/Bojojoing.sid", sidDatabase.getPath(tune));
+		Assert.assertTrue(sidDatabase.getRandomPath().startsWith("/"));
+		Assert.assertEquals(0, index.getLength("00000000000000000000000000000000", 1), 0);
+	}
+
+	@Test
+	public void reloadChangedDatabase() throws Exception {
+		SidDatabase sidDatabase = new SidDatabase(hvscRoot);
+		tune.getInfo().setSelectedSong(1);
+		Assert.assertEquals(83.456, sidDatabase.getSongLength(tune), 0);
+
+		long lastModified = songLengths.lastModified();
+		writeSongLengths("2:00 0:42");
+		songLengths.setLastModified(lastModified + 2000);
+		// changes are detected after the reload check interval
+		Thread.sleep(10_500);
+		Assert.assertEquals(120, sidDatabase.getSongLength(tune), 0);
+		Assert.assertEquals(120, new SidDatabase(hvscRoot).getSongLength(tune), 0);
+	}
+
+}
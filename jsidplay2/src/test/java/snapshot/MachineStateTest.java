@@ -0,0 +1,191 @@
+package snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import builder.resid.SIDMixer;
+import builder.resid.residfp.ReSIDfp;
+import libsidplay.HardwareEnsemble;
+import libsidplay.common.CPUClock;
+import libsidplay.common.ChipModel;
+import libsidplay.common.EventScheduler;
+import libsidplay.common.MachineState;
+import libsidplay.components.keyboard.KeyTableEntry;
+import libsidplay.config.IAudioSection;
+import sidplay.audio.AudioDriver;
+import sidplay.ini.IniConfig;
+
+/**
+ * A machine restored from a snapshot must behave exactly like the machine the
+ * snapshot has been taken from (CPU, VIC, CIAs, SID, C1541).
+ */
+public class MachineStateTest {
+
+	private static final int BOOT_FRAMES = 150;
+
+	private static final int FRAMES = 50;
+
+	/**
+	 * Raster bars playing a sound, OSC3 is recorded at $C200.
+	 */
+	private static final byte[] RASTER_BARS_AND_SOUND = { (byte) 0xa9, 0x0f, (byte) 0x8d, 0x18, (byte) 0xd4,
+			(byte) 0xa9, 0x10, (byte) 0x8d, 0x0f, (byte) 0xd4, (byte) 0xa9, 0x21, (byte) 0x8d, 0x12, (byte) 0xd4,
+			(byte) 0xa9, (byte) 0xf0, (byte) 0x8d, 0x14, (byte) 0xd4, (byte) 0xee, 0x20, (byte) 0xd0, (byte) 0xad,
+			0x1b, (byte) 0xd4, (byte) 0x99, 0x00, (byte) 0xc2, (byte) 0xc8, (byte) 0xee, 0x0e, (byte) 0xd4, 0x4c,
+			0x14, (byte) 0xc0 };
+
+	private static final class Machine extends HardwareEnsemble {
+
+		private long checksum;
+
+		private int frames;
+
+		private Machine() {
+			super(createConfig());
+			setClock(CPUClock.PAL);
+			reset();
+			final EventScheduler context = getC64().getEventScheduler();
+			SIDMixer mixer = new SIDMixer(context, getConfig(), CPUClock.PAL);
+			mixer.setAudioDriver(new AudioDriver() {
+
+				private final ByteBuffer buffer = ByteBuffer.allocateDirect(4096).order(ByteOrder.LITTLE_ENDIAN);
+
+				@Override
+				public void open(IAudioSection audioSection, String recordingFilename, CPUClock cpuClock,
+						EventScheduler context) {
+				}
+
+				@Override
+				public void write() {
+				}
+
+				@Override
+				public void close() {
+				}
+
+				@Override
+				public ByteBuffer buffer() {
+					return buffer;
+				}
+
+				@Override
+				public boolean isRecording() {
+					return false;
+				}
+			});
+			ReSIDfp sid = new ReSIDfp(context);
+			sid.setChipModel(ChipModel.MOS6581);
+			sid.setClockFrequency(CPUClock.PAL.getCpuFrequency());
+			mixer.add(0, sid);
+			mixer.start();
+			getC64().insertSIDChips((sidNum, oldSid) -> sidNum == 0 ? sid : oldSid, sidNum -> 0xd400);
+			getC64().getVIC().setVideoDriver(vic -> {
+				checksum = 31 * checksum + Arrays.hashCode(vic.getPixels().array());
+				frames++;
+			});
+		}
+
+		private static IniConfig createConfig() {
+			IniConfig config = new IniConfig();
+			config.getC1541Section().setDriveOn(true);
+			return config;
+		}
+
+		private void clockFrames(int count) throws InterruptedException {
+			final EventScheduler context = getC64().getEventScheduler();
+			final int end = frames + count;
+			while (frames < end) {
+				context.clock();
+			}
+		}
+
+		private void start(byte[] program) {
+			byte[] ram = getC64().getRAM();
+			System.arraycopy(program, 0, ram, 0xc000, program.length);
+			// let the next IRQ jump into the program (and never return)
+			ram[0x0314] = 0x00;
+			ram[0x0315] = (byte) 0xc0;
+		}
+
+		private byte[] saveState() throws IOException {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			saveState(out);
+			return out.toByteArray();
+		}
+
+		private void restoreState(byte[] snapshot) throws IOException {
+			restoreState(new ByteArrayInputStream(snapshot));
+		}
+	}
+
+	@Test
+	public void restoredMachineBehavesIdentically() throws InterruptedException, IOException {
+		Machine machine = new Machine();
+		machine.clockFrames(BOOT_FRAMES);
+		machine.start(RASTER_BARS_AND_SOUND);
+		machine.clockFrames(FRAMES);
+
+		byte[] snapshot = machine.saveState();
+
+		Machine restoredMachine = new Machine();
+		restoredMachine.getC64().getEventScheduler().clockThreadSafeEvents();
+		restoredMachine.restoreState(snapshot);
+
+		machine.checksum = 0;
+		machine.clockFrames(FRAMES);
+		restoredMachine.clockFrames(FRAMES);
+
+		byte[] ram = machine.getC64().getRAM();
+		byte[] osc3 = Arrays.copyOfRange(ram, 0xc200, 0xc300);
+		Assert.assertFalse("No SID output", Arrays.equals(osc3, new byte[osc3.length]));
+		Assert.assertTrue("RAM differs", Arrays.equals(ram, restoredMachine.getC64().getRAM()));
+		Assert.assertEquals(machine.checksum, restoredMachine.checksum);
+		Assert.assertTrue("Machine state differs", Arrays.equals(machine.saveState(), restoredMachine.saveState()));
+	}
+
+	@Test
+	public void snapshotOfDifferentMachine() throws IOException {
+		Machine machine = new Machine();
+		EventScheduler context = machine.getC64().getEventScheduler();
+		machine.getC64().insertSIDChips((sidNum, oldSid) -> sidNum == 1 ? new ReSIDfp(context) : oldSid,
+				sidNum -> 0xd420);
+		try {
+			new Machine().restoreState(machine.saveState());
+			Assert.fail("Snapshot of a stereo machine restored into a mono machine");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage().contains("does not match"));
+		}
+	}
+
+	@Test
+	public void pressedKeys() throws IOException {
+		Machine machine = new Machine();
+		machine.getC64().getKeyboard().keyPressed(KeyTableEntry.SPACE);
+		machine.getC64().getKeyboard().keyPressed(KeyTableEntry.RUN_STOP);
+
+		Machine restoredMachine = new Machine();
+		restoredMachine.getC64().getKeyboard().keyPressed(KeyTableEntry.A);
+		restoredMachine.restoreState(machine.saveState());
+		Assert.assertEquals(EnumSet.of(KeyTableEntry.SPACE, KeyTableEntry.RUN_STOP),
+				restoredMachine.getC64().getKeyboard().getKeysDown());
+	}
+
+	@Test
+	public void unsupportedState() {
+		try {
+			MachineState.save(new Object[] { new Machine(), new ArrayDeque<>() }, new ByteArrayOutputStream());
+			Assert.fail("State of a collection has been skipped");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage().contains(ArrayDeque.class.getName()));
+		}
+	}
+}
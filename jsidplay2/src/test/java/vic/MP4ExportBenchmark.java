@@ -0,0 +1,62 @@
+package vic;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import libsidplay.sidtune.SidTune;
+import sidplay.Player;
+import sidplay.audio.MP4Driver.MP4FileDriver;
+import sidplay.ini.IniConfig;
+
+/**
+ * Export a tune as MP4 video, while encoding in the emulation thread and in the
+ * encoder thread. The x-realtime factor of both modes is measured (run by mvn
+ * -Pbenchmark test).
+ */
+public class MP4ExportBenchmark {
+
+	private static final String TUNE = "/sid/examples/special/Bojojoing.sid";
+
+	private static final int SECONDS = 20;
+
+	@Test
+	public void exportSynchronouslyAndInEncoderThread() throws Exception {
+		double syncFactor = export(0);
+		double threadedFactor = export(4);
+		System.out.printf("MP4 export of %ds: encoding in emulation thread %.2fx realtime, in encoder thread %.2fx realtime%n",
+				SECONDS, syncFactor, threadedFactor);
+	}
+
+	private double export(final int encoderFrames) throws Exception {
+		File video = File.createTempFile("jsidplay2-benchmark", "");
+		File recording = new File(video.getPath() + ".mp4");
+		try {
+			IniConfig config = new IniConfig();
+			config.getSidplay2Section().setDefaultPlayLength(SECONDS);
+
+			Player player = new Player(config);
+			player.setRecordingFilenameProvider(tune -> video.getPath());
+			player.setAudioDriver(new MP4FileDriver() {
+				@Override
+				protected int getEncoderFrames() {
+					return encoderFrames;
+				}
+			});
+			player.setDefaultLengthInRecordMode(true);
+			player.setCheckLoopOffInRecordMode(false);
+
+			long start = System.nanoTime();
+			player.play(SidTune.load(new File(MP4ExportBenchmark.class.getResource(TUNE).toURI())));
+			player.stopC64(false);
+			double seconds = (System.nanoTime() - start) / 1_000_000_000.;
+
+			Assert.assertTrue("Video has not been written", recording.length() > 0);
+			return SECONDS / seconds;
+		} finally {
+			video.delete();
+			recording.delete();
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package vic;
+
+import org.junit.Test;
+
+import libsidplay.common.CPUClock;
+import vic.VICPixelsTest.Machine;
+
+/**
+ * Frame rate of a video-heavy program (raster bars changing border and
+ * background color every few cycles on top of a full screen of characters)
+ * with and without pixel output (run by mvn -Pbenchmark test).
+ */
+public class VICPixelsBenchmark {
+
+	private static final int BENCHMARK_FRAMES = 5000;
+
+	@Test
+	public void framesPerSecond() throws InterruptedException {
+		for (boolean timingOnly : new boolean[] { false, true }) {
+			Machine machine = new Machine(true, timingOnly);
+			machine.clockFrames(VICPixelsTest.BOOT_FRAMES);
+			machine.start(VICPixelsTest.RASTER_BARS);
+			long start = System.nanoTime();
+			machine.clockFrames(BENCHMARK_FRAMES);
+			double seconds = (System.nanoTime() - start) / 1_000_000_000.;
+			System.out.printf("Raster bars%s: %,.0f frames/s (%.1fx realtime)%n", timingOnly ? ", timing-only" : "",
+					BENCHMARK_FRAMES / seconds, BENCHMARK_FRAMES / seconds / CPUClock.PAL.getScreenRefresh());
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package vic;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import libsidplay.HardwareEnsemble;
+import libsidplay.common.CPUClock;
+import libsidplay.common.EventScheduler;
+import sidplay.ini.IniConfig;
+
+/**
+ * Rendered frames of the VIC must stay bit-identical.
+ *
+ * Timing-only mode (no pixel output) must not change the machine state.
+ */
+public class VICPixelsTest {
+
+	static final int BOOT_FRAMES = 150;
+
+	private static final int CHECKSUM_FRAMES = 50;
+
+	/**
+	 * Checksums of the rendered frames with and without PAL emulation (the same
+	 * for every VIC instance, the palette quantization does not depend on object
+	 * identity).
+	 */
+	private static final long PAL_EMULATION_CHECKSUM = -2522369282013882274L,
+			NO_PAL_EMULATION_CHECKSUM = -1577420893781812562L;
+
+	/**
+	 * Raster bars: INC $D020, INC $D021, JMP $C000
+	 */
+	static final byte[] RASTER_BARS = { (byte) 0xee, 0x20, (byte) 0xd0, (byte) 0xee, 0x21, (byte) 0xd0, 0x4c,
+			0x00, (byte) 0xc0 };
+
+	/**
+	 * Raster bars with eight sprites in the middle of the screen, sprite 0 moving.
+	 * Collision registers are recorded at $C100 (sprite-sprite) and $C200
+	 * (sprite-background).
+	 */
+	private static final byte[] SPRITE_COLLISIONS = { (byte) 0xa2, 0x0f, (byte) 0xa9, (byte) 0x80, (byte) 0x9d, 0x00,
+			(byte) 0xd0, (byte) 0xca, 0x10, (byte) 0xfa, (byte) 0xa9, (byte) 0xff, (byte) 0x8d, 0x15, (byte) 0xd0,
+			(byte) 0xee, 0x20, (byte) 0xd0, (byte) 0xee, 0x21, (byte) 0xd0, (byte) 0xee, 0x00, (byte) 0xd0,
+			(byte) 0xad, 0x1e, (byte) 0xd0, (byte) 0x99, 0x00, (byte) 0xc1, (byte) 0xad, 0x1f, (byte) 0xd0,
+			(byte) 0x99, 0x00, (byte) 0xc2, (byte) 0xc8, 0x4c, 0x0f, (byte) 0xc0 };
+
+	static final class Machine extends HardwareEnsemble {
+
+		private boolean checksumFrames;
+
+		private long checksum;
+
+		private int frames;
+
+		Machine(boolean palEmulation, boolean timingOnly) {
+			super(new IniConfig());
+			getConfig().getSidplay2Section().setPalEmulation(palEmulation);
+			setClock(CPUClock.PAL);
+			reset();
+			getC64().getVIC().setTimingOnly(timingOnly);
+			getC64().getVIC().setVideoDriver(vic -> {
+				if (checksumFrames) {
+					checksum = 31 * checksum + Arrays.hashCode(vic.getPixels().array());
+				}
+				frames++;
+			});
+		}
+
+		void clockFrames(int count) throws InterruptedException {
+			final EventScheduler context = getC64().getEventScheduler();
+			final int end = frames + count;
+			while (frames < end) {
+				context.clock();
+			}
+		}
+
+		void start(byte[] program) {
+			byte[] ram = getC64().getRAM();
+			System.arraycopy(program, 0, ram, 0xc000, program.length);
+			for (int i = 0; i < 1000; i++) {
+				ram[0x0400 + i] = (byte) i;
+			}
+			// let the next IRQ jump into the program (and never return)
+			ram[0x0314] = 0x00;
+			ram[0x0315] = (byte) 0xc0;
+		}
+	}
+
+	@Test
+	public void bitIdenticalFrames() throws InterruptedException {
+		Assert.assertEquals(PAL_EMULATION_CHECKSUM, checksum(true));
+		Assert.assertEquals(NO_PAL_EMULATION_CHECKSUM, checksum(false));
+	}
+
+	@Test
+	public void timingOnlySameMachineState() throws InterruptedException {
+		Machine machine = new Machine(true, false);
+		Machine timingOnlyMachine = new Machine(true, true);
+		for (Machine m : new Machine[] { machine, timingOnlyMachine }) {
+			m.clockFrames(BOOT_FRAMES);
+			byte[] ram = m.getC64().getRAM();
+			// all sprites are filled blocks at $0340
+			Arrays.fill(ram, 0x0340, 0x0380, (byte) 0xff);
+			Arrays.fill(ram, 0x07f8, 0x0800, (byte) 0x0d);
+			m.start(SPRITE_COLLISIONS);
+			m.clockFrames(CHECKSUM_FRAMES);
+		}
+		byte[] ram = machine.getC64().getRAM();
+		byte[] collisions = Arrays.copyOfRange(ram, 0xc100, 0xc300);
+		Assert.assertFalse("No sprite collisions", Arrays.equals(collisions, new byte[collisions.length]));
+		Assert.assertTrue("Machine state differs", Arrays.equals(ram, timingOnlyMachine.getC64().getRAM()));
+	}
+
+	private long checksum(boolean palEmulation) throws InterruptedException {
+		Machine machine = new Machine(palEmulation, false);
+		machine.clockFrames(BOOT_FRAMES);
+		machine.start(RASTER_BARS);
+		machine.checksumFrames = true;
+		machine.clockFrames(CHECKSUM_FRAMES);
+		return machine.checksum;
+	}
+}